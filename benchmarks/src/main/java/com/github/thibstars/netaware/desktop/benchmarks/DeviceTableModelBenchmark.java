@@ -0,0 +1,130 @@
+package com.github.thibstars.netaware.desktop.benchmarks;
+
+import com.github.thibstars.netaware.desktop.DeviceRowSorter;
+import com.github.thibstars.netaware.desktop.DeviceTableModel;
+import com.github.thibstars.netaware.desktop.DeviceUpdate;
+import com.github.thibstars.netaware.desktop.Ipv4Addresses;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.DefaultTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark applying a batch of port and MAC updates, as produced by the scanner event handlers,
+ * to a result table of 1k, 10k and 100k rows.
+ * The linear scan over a {@link DefaultTableModel} is the way the handlers used to locate rows, kept as a baseline.
+ * The indexed model is also measured as the main window shows it: in a table sorted on the open ports by a
+ * {@link DeviceRowSorter}, so every batch moves rows in the view, announced once per batch.
+ * The tables are refilled before every invocation, so every batch lands on rows without ports or MAC address:
+ * applying the same batch twice would only be a no-op for the indexed model, while the cells of the baseline keep growing.
+ *
+ * @author Thibault Helsmoortel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DeviceTableModelBenchmark {
+
+    private static final int BASE_ADDRESS = Ipv4Addresses.parse("10.0.0.0");
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    @Param({"1000"})
+    private int updatesPerBatch;
+
+    private DeviceTableModel deviceTableModel;
+    private DeviceTableModel sortedDeviceTableModel;
+    private DefaultTableModel defaultTableModel;
+    private List<DeviceUpdate> updates;
+
+    @Setup(Level.Trial)
+    public void createUpdates() {
+        SplittableRandom random = new SplittableRandom(42);
+        updates = new ArrayList<>(updatesPerBatch);
+        for (int i = 0; i < updatesPerBatch; i++) {
+            String ipAddress = Ipv4Addresses.format(BASE_ADDRESS + random.nextInt(rows));
+            updates.add(i % 4 == 0
+                    ? new DeviceUpdate.MacFound(ipAddress, "00:11:22:33:44:" + String.format("%02x", i & 0xFF), "")
+                    : new DeviceUpdate.PortFound(ipAddress, 1 + random.nextInt(65535)));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fillModels() {
+        List<DeviceUpdate> devicesFound = IntStream.range(0, rows)
+                .<DeviceUpdate>mapToObj(row -> new DeviceUpdate.DeviceFound(Ipv4Addresses.format(BASE_ADDRESS + row)))
+                .toList();
+        deviceTableModel = new DeviceTableModel();
+        deviceTableModel.apply(devicesFound);
+
+        sortedDeviceTableModel = new DeviceTableModel();
+        DeviceRowSorter rowSorter = new DeviceRowSorter(sortedDeviceTableModel);
+        new JTable(sortedDeviceTableModel).setRowSorter(rowSorter);
+        sortedDeviceTableModel.addBatchListener(rowSorter);
+        rowSorter.setSortKeys(List.of(new RowSorter.SortKey(DeviceTableModel.OPEN_PORTS_COLUMN, SortOrder.ASCENDING)));
+        sortedDeviceTableModel.apply(devicesFound);
+
+        defaultTableModel = new DefaultTableModel(new Object[]{"IP Address", "Open Ports", "MAC Address"}, 0);
+        for (int row = 0; row < rows; row++) {
+            defaultTableModel.addRow(new Object[]{Ipv4Addresses.format(BASE_ADDRESS + row), "", ""});
+        }
+    }
+
+    @Benchmark
+    public DeviceTableModel indexedDeviceTableModel() {
+        deviceTableModel.apply(updates);
+
+        return deviceTableModel;
+    }
+
+    @Benchmark
+    public DeviceTableModel indexedDeviceTableModelWithSorter() {
+        sortedDeviceTableModel.apply(updates);
+
+        return sortedDeviceTableModel;
+    }
+
+    @Benchmark
+    public DefaultTableModel defaultTableModelLinearScan() {
+        for (DeviceUpdate update : updates) {
+            int row = IntStream.range(0, defaultTableModel.getRowCount())
+                    .filter(index -> defaultTableModel.getValueAt(index, 0).equals(update.ipAddress()))
+                    .findFirst()
+                    .orElse(-1);
+            if (row < 0) {
+                continue;
+            }
+            if (update instanceof DeviceUpdate.PortFound portFound) {
+                Object valueAt = defaultTableModel.getValueAt(row, 1);
+                String newValue = valueAt != null && !((String) valueAt).isBlank() ? valueAt + ", " + portFound.port()
+                        : String.valueOf(portFound.port());
+                defaultTableModel.setValueAt(newValue, row, 1);
+            } else if (update instanceof DeviceUpdate.MacFound macFound) {
+                defaultTableModel.setValueAt(macFound.macAddress(), row, 2);
+            }
+        }
+
+        return defaultTableModel;
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.thibstars.netaware.desktop.benchmarks;
+
+import com.github.thibstars.netaware.desktop.Cidr;
+import com.github.thibstars.netaware.desktop.DeviceUpdate;
+import com.github.thibstars.netaware.desktop.DiscoveryUpdate;
+import com.github.thibstars.netaware.desktop.IpBlock;
+import com.github.thibstars.netaware.desktop.Ipv4Addresses;
+import com.github.thibstars.netaware.desktop.LocalDeviceService;
+import com.github.thibstars.netaware.desktop.ProbeFactory;
+import com.github.thibstars.netaware.desktop.ScanScheduler;
+import com.github.thibstars.netaware.desktop.TargetPlanner;
+import com.github.thibstars.netaware.events.IpAddressFoundEvent;
+import com.github.thibstars.netaware.events.MacFoundEvent;
+import com.github.thibstars.netaware.events.TcpIpPortFoundEvent;
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of a full discovery, from target planning to the last published update,
+ * with stub probes standing in for the network: every 8th address of a block answers,
+ * with 3 open ports and a MAC address.
+ *
+ * @author Thibault Helsmoortel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Dnetaware.rate.ip.initialInFlight=1024", "-Dnetaware.rate.ip.maxInFlight=1024",
+        "-Dnetaware.rate.ip.initialRate=1e12", "-Dnetaware.rate.ip.maxRate=1e12",
+        "-Dnetaware.rate.port.initialInFlight=1024", "-Dnetaware.rate.port.maxInFlight=1024",
+        "-Dnetaware.rate.port.initialRate=1e12", "-Dnetaware.rate.port.maxRate=1e12"
+})
+@State(Scope.Benchmark)
+public class DiscoveryPipelineBenchmark {
+
+    private static final int[] OPEN_PORTS = {22, 80, 443};
+
+    @Param({"10.0.0.0/20", "10.0.0.0/16"})
+    private String targets;
+
+    @Param({"FAN_OUT", "LEGACY_FIXED_POOL"})
+    private ScanScheduler.Mode mode;
+
+    private Path emptyArpTable;
+    private LocalDeviceService localDeviceService;
+
+    @Setup
+    public void setUp() throws IOException {
+        // A neighbor cache without entries, so the host's cache doesn't influence the results
+        emptyArpTable = Files.createTempFile("arp", ".txt");
+        Files.writeString(emptyArpTable, "IP address       HW type     Flags       HW address            Mask     Device\n");
+        System.setProperty("netaware.scan.arpTable", emptyArpTable.toString());
+
+        localDeviceService = new LocalDeviceService(
+                new ScanScheduler(mode, ScanScheduler.DEFAULT_CONCURRENCY_BUDGET, Executors::newVirtualThreadPerTaskExecutor),
+                new TargetPlanner(false, false, List.of(Cidr.parse(targets)), List.of()),
+                new StubProbeFactory()
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        localDeviceService.close();
+        Files.deleteIfExists(emptyArpTable);
+    }
+
+    @Benchmark
+    public long discover() throws InterruptedException {
+        CountingSubscriber subscriber = new CountingSubscriber();
+        localDeviceService.discover(subscriber);
+        subscriber.completed.await();
+
+        return subscriber.devices;
+    }
+
+    private static final class CountingSubscriber implements Flow.Subscriber<DiscoveryUpdate> {
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private long devices;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(DiscoveryUpdate item) {
+            if (item instanceof DeviceUpdate.DeviceFound) {
+                devices++;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    private static final class StubProbeFactory implements ProbeFactory {
+
+        @Override
+        public Probe<IpBlock> ipProbe(EventManager eventManager) {
+            Object source = new Object();
+            return new Probe<>(source, block -> {
+                for (int address = block.startAddress(); address != block.endAddress(); address++) {
+                    if ((address & 7) == 1) {
+                        eventManager.dispatchEvent(new IpAddressFoundEvent(source, Ipv4Addresses.toInetAddress(address)));
+                    }
+                }
+            });
+        }
+
+        @Override
+        public Probe<InetAddress> portProbe(EventManager eventManager) {
+            Object source = new Object();
+            return new Probe<>(source, ipAddress -> {
+                for (int port : OPEN_PORTS) {
+                    eventManager.dispatchEvent(new TcpIpPortFoundEvent(source, ipAddress, port));
+                }
+            });
+        }
+
+        @Override
+        public Probe<InetAddress> macProbe(EventManager eventManager) {
+            Object source = new Object();
+            return new Probe<>(source, ipAddress -> {
+                byte[] address = ipAddress.getAddress();
+                eventManager.dispatchEvent(new MacFoundEvent(source, ipAddress,
+                        String.format("02:00:%02x:%02x:%02x:%02x", address[0], address[1], address[2], address[3])));
+            });
+        }
+
+        @Override
+        public Function<InetAddress, String> hostnameLookup() {
+            // No hostnames, without asking a DNS server
+            return InetAddress::getHostAddress;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.thibstars.netaware.desktop.benchmarks;
+
+import com.github.thibstars.netaware.desktop.Cidr;
+import com.github.thibstars.netaware.desktop.IpBlock;
+import com.github.thibstars.netaware.desktop.ScanScheduler;
+import com.github.thibstars.netaware.desktop.TargetPlanner;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the wall-clock time of the same sweep under every {@link ScanScheduler.Mode}.
+ * Every block is "scanned" by waiting for a fixed latency, standing in for a probe waiting for the replies of a block,
+ * so the measurement shows how well the scheduler overlaps those waits.
+ *
+ * @author Thibault Helsmoortel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScanSchedulerBenchmark {
+
+    @Param({"10.0.0.0/16", "10.0.0.0/14"})
+    private String targets;
+
+    @Param({"FAN_OUT", "LEGACY_FIXED_POOL"})
+    private ScanScheduler.Mode mode;
+
+    @Param({"1", "5"})
+    private long blockLatencyMillis;
+
+    private ScanScheduler scanScheduler;
+    private List<IpBlock> blocks;
+
+    @Setup
+    public void setUp() {
+        scanScheduler = new ScanScheduler(mode, ScanScheduler.DEFAULT_CONCURRENCY_BUDGET, Executors::newVirtualThreadPerTaskExecutor);
+        blocks = new TargetPlanner(false, false, List.of(Cidr.parse(targets)), List.of()).plan(List.of());
+    }
+
+    @Benchmark
+    public long sweep() {
+        long blockLatencyNanos = TimeUnit.MILLISECONDS.toNanos(blockLatencyMillis);
+        LongAdder scannedBlocks = new LongAdder();
+        try (ExecutorService executorService = scanScheduler.newExecutorService()) {
+            scanScheduler.sweep(blocks, executorService, block -> {
+                LockSupport.parkNanos(blockLatencyNanos);
+                scannedBlocks.increment();
+            }).join();
+        }
+
+        return scannedBlocks.sum();
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.thibstars.netaware.desktop.benchmarks;
+
+import com.github.thibstars.netaware.desktop.NetAwareDesktop;
+import com.github.thibstars.netaware.desktop.StartupReport;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of a cold start of the application window, from launching its process to painting the first frame and to
+ * showing the first scan result. Every invocation launches a new process, with an empty inventory and neighbor cache,
+ * scanning only the loopback address, so the first result doesn't depend on the network of the host.
+ * Requires a display, e.g. through {@code xvfb-run} on a server: without one the application starts headless.
+ *
+ * @author Thibault Helsmoortel
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private Path workDirectory;
+    private Path emptyArpTable;
+    private Path inventoryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        workDirectory = Files.createTempDirectory("netaware-startup");
+        emptyArpTable = workDirectory.resolve("arp.txt");
+        Files.writeString(emptyArpTable, "IP address       HW type     Flags       HW address            Mask     Device\n");
+        inventoryFile = workDirectory.resolve("inventory.dat");
+    }
+
+    /**
+     * Every start is a first start, without devices known from the previous one.
+     */
+    @Setup(Level.Invocation)
+    public void clearInventory() throws IOException {
+        Files.deleteIfExists(inventoryFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(inventoryFile);
+        Files.deleteIfExists(emptyArpTable);
+        Files.deleteIfExists(workDirectory);
+    }
+
+    @Benchmark
+    public void firstFrame() throws IOException, InterruptedException {
+        launchUntil(StartupReport.FIRST_FRAME);
+    }
+
+    @Benchmark
+    public void firstResult() throws IOException, InterruptedException {
+        launchUntil(StartupReport.FIRST_RESULT);
+    }
+
+    private void launchUntil(String milestone) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "-Dnetaware.startup.report=true",
+                "-Dnetaware.scan.localNetworks=false",
+                "-Dnetaware.scan.targets=127.0.0.1/32",
+                "-Dnetaware.scan.arpTable=" + emptyArpTable,
+                "-Dnetaware.inventory.file=" + inventoryFile,
+                NetAwareDesktop.class.getName()
+        ).redirectErrorStream(true).start();
+        try (BufferedReader reader = process.inputReader()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("startup " + milestone + " ")) {
+                    return;
+                }
+            }
+            throw new IllegalStateException("The application exited before reaching " + milestone + ", is a display available?");
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.thibstars.netaware.desktop.benchmarks;
+
+import com.github.thibstars.netaware.desktop.IpBlock;
+import com.github.thibstars.netaware.desktop.Ipv4Addresses;
+import com.github.thibstars.netaware.desktop.ScanScheduler;
+import com.github.thibstars.netaware.desktop.SweepQueue;
+import com.github.thibstars.netaware.desktop.TargetPlanner;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of how soon a sweep of the {@link TargetPlanner#PRIVATE_NETWORKS} finds its first device and 90% of its
+ * devices, with the blocks handed out in the order they were planned or ranked by the {@link SweepQueue}.
+ * The devices live in the first /24 networks of 192.168.0.0/16, the network of the local interface and its gateway,
+ * which is planned after 10.0.0.0/16 and 172.16.0.0/20. Every block is "scanned" by waiting for a fixed latency,
+ * standing in for a probe waiting for the replies of a block, on 8 blocks at a time.
+ * Each invocation measures the sweep up to its milestone, the rest of the sweep is skipped.
+ *
+ * @author Thibault Helsmoortel
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SweepQueueBenchmark {
+
+    private static final int CONCURRENCY = 8;
+    private static final int LOCAL_ADDRESS = Ipv4Addresses.parse("192.168.1.10");
+    private static final int GATEWAY_ADDRESS = Ipv4Addresses.parse("192.168.1.1");
+    // The /24 networks holding devices: 192.168.0.x up to 192.168.3.x, one device per block
+    private static final int FIRST_DEVICE_NETWORK = Ipv4Addresses.parse("192.168.0.0");
+    private static final int DEVICE_NETWORK_COUNT = 4;
+
+    /**
+     * The order the blocks are handed out in.
+     */
+    public enum Order {
+        PLANNED,
+        RANKED
+    }
+
+    @Param({"PLANNED", "RANKED"})
+    private Order order;
+
+    @Param({"1", "5"})
+    private long blockLatencyMillis;
+
+    private ScanScheduler scanScheduler;
+    private List<IpBlock> blocks;
+    private int deviceCount;
+    private ExecutorService executorService;
+    private CompletableFuture<Void> sweep;
+    private volatile boolean skipping;
+
+    @Setup
+    public void setUp() {
+        scanScheduler = new ScanScheduler(ScanScheduler.Mode.FAN_OUT, CONCURRENCY, Executors::newVirtualThreadPerTaskExecutor);
+        blocks = new TargetPlanner(false, true, List.of(), List.of()).plan(List.of());
+        deviceCount = (int) blocks.stream().filter(SweepQueueBenchmark::holdsDevice).count();
+    }
+
+    @TearDown(Level.Invocation)
+    public void skipRemainingBlocks() {
+        skipping = true;
+        sweep.join();
+        executorService.close();
+        skipping = false;
+    }
+
+    @Benchmark
+    public void firstDevice() throws InterruptedException {
+        sweepUntil(1);
+    }
+
+    @Benchmark
+    public void ninetyPercentOfDevices() throws InterruptedException {
+        sweepUntil((int) Math.ceil(deviceCount * 0.9));
+    }
+
+    private void sweepUntil(int foundDevices) throws InterruptedException {
+        SweepQueue sweepQueue = switch (order) {
+            case PLANNED -> new SweepQueue(blocks);
+            case RANKED -> new SweepQueue(blocks, List.of(LOCAL_ADDRESS), List.of(GATEWAY_ADDRESS), List.of());
+        };
+        long blockLatencyNanos = TimeUnit.MILLISECONDS.toNanos(blockLatencyMillis);
+        CountDownLatch milestone = new CountDownLatch(foundDevices);
+        executorService = scanScheduler.newExecutorService();
+        sweep = scanScheduler.sweep(sweepQueue, executorService, block -> {
+            if (skipping) {
+                return;
+            }
+            LockSupport.parkNanos(blockLatencyNanos);
+            if (holdsDevice(block)) {
+                sweepQueue.onDeviceFound(block.startAddress());
+                milestone.countDown();
+            }
+        });
+        milestone.await();
+    }
+
+    private static boolean holdsDevice(IpBlock block) {
+        long network = Integer.toUnsignedLong(block.startAddress()) - Integer.toUnsignedLong(FIRST_DEVICE_NETWORK);
+        return network >= 0 && network < (long) DEVICE_NETWORK_COUNT * 256;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.thibstars.netaware.desktop.benchmarks;
+
+import com.github.thibstars.netaware.desktop.Cidr;
+import com.github.thibstars.netaware.desktop.IpBlock;
+import com.github.thibstars.netaware.desktop.Ipv4Addresses;
+import com.github.thibstars.netaware.desktop.ScanScheduler;
+import com.github.thibstars.netaware.desktop.TargetPlanner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of planning the targets of a sweep and splitting the plan over the workers of the scan scheduler.
+ * Blocks are "scanned" by a no-op, so only the orchestration overhead is measured.
+ *
+ * @author Thibault Helsmoortel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TargetPlanningBenchmark {
+
+    private TargetPlanner privateNetworksPlanner;
+    private TargetPlanner fragmentedPlanner;
+    private List<Cidr> localNetworks;
+    private List<IpBlock> blocks;
+
+    @Setup
+    public void setUp() {
+        privateNetworksPlanner = new TargetPlanner(false, true, List.of(), List.of(Cidr.parse("10.0.128.0/17")));
+
+        // 64 included /20 networks, each with a few small holes punched in them
+        List<Cidr> includedNetworks = new ArrayList<>();
+        List<Cidr> excludedNetworks = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            int network = Ipv4Addresses.parse("10.0.0.0") + (i << 12);
+            includedNetworks.add(new Cidr(network, 20));
+            excludedNetworks.add(new Cidr(network + 0x0100, 25));
+            excludedNetworks.add(new Cidr(network + 0x0A80, 26));
+        }
+        fragmentedPlanner = new TargetPlanner(true, false, includedNetworks, excludedNetworks);
+        localNetworks = List.of(Cidr.parse("10.0.4.0/22"), Cidr.parse("192.168.1.0/24"));
+
+        blocks = privateNetworksPlanner.plan(List.of());
+    }
+
+    @Benchmark
+    public List<IpBlock> planPrivateNetworks() {
+        return privateNetworksPlanner.plan(List.of());
+    }
+
+    @Benchmark
+    public List<IpBlock> planFragmentedNetworks() {
+        return fragmentedPlanner.plan(localNetworks);
+    }
+
+    @Benchmark
+    public long sweepWithNoOpScanner(SchedulerState schedulerState) {
+        ScanScheduler scanScheduler = new ScanScheduler(schedulerState.mode, ScanScheduler.DEFAULT_CONCURRENCY_BUDGET, Executors::newVirtualThreadPerTaskExecutor);
+        LongAdder scannedBlocks = new LongAdder();
+        try (ExecutorService executorService = scanScheduler.newExecutorService()) {
+            scanScheduler.sweep(blocks, executorService, block -> scannedBlocks.increment()).join();
+        }
+
+        return scannedBlocks.sum();
+    }
+
+    /**
+     * The scheduling mode, only a parameter of the sweep, so the planning benchmarks run once.
+     */
+    @State(Scope.Benchmark)
+    public static class SchedulerState {
+
+        @Param({"FAN_OUT", "LEGACY_FIXED_POOL"})
+        private ScanScheduler.Mode mode;
+    }
+}
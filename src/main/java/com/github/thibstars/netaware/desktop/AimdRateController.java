@@ -0,0 +1,318 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate controller pacing probes with additive-increase / multiplicative-decrease (AIMD) feedback.
+ * <p>
+ * The controller limits both the amount of probes in flight and the amount of packets sent per second.
+ * Every successful probe grows the in-flight limit by roughly one slot per window of probes,
+ * every timeout shrinks it by the decrease factor, at most once per observed probe latency.
+ * The packet rate follows the in-flight limit proportionally. Both never exceed their hard upper caps.
+ * <p>
+ * Probes whose outcome is only known through their duration can be reported with {@link #onCompletion(long)}:
+ * probes taking much longer than the average probe are then counted as timeouts.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class AimdRateController {
+
+    public static final double DEFAULT_ADDITIVE_INCREASE = 1;
+    public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+    public static final double DEFAULT_LATENCY_TOLERANCE = 2;
+
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DEFAULT_DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final int maxInFlight;
+    private final double maxRate;
+    private final double ratePerSlot;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+    private final double latencyTolerance;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double inFlightLimit;
+    private double rate;
+    private int inFlight;
+    private long nextPermitNanos = System.nanoTime();
+    private long lastDecreaseNanos = System.nanoTime() - DEFAULT_DECREASE_INTERVAL_NANOS;
+    private double averageLatencyNanos;
+    private long successCount;
+    private long timeoutCount;
+
+    /**
+     * Creates a controller with the default increase, decrease and latency tolerance.
+     *
+     * @param initialInFlight the amount of probes allowed in flight initially
+     * @param maxInFlight     the hard cap on the amount of probes in flight
+     * @param initialRate     the amount of packets allowed per second initially
+     * @param maxRate         the hard cap on the amount of packets per second
+     */
+    public AimdRateController(int initialInFlight, int maxInFlight, double initialRate, double maxRate) {
+        this(initialInFlight, maxInFlight, initialRate, maxRate, DEFAULT_ADDITIVE_INCREASE, DEFAULT_DECREASE_FACTOR, DEFAULT_LATENCY_TOLERANCE);
+    }
+
+    /**
+     * @param initialInFlight  the amount of probes allowed in flight initially
+     * @param maxInFlight      the hard cap on the amount of probes in flight
+     * @param initialRate      the amount of packets allowed per second initially
+     * @param maxRate          the hard cap on the amount of packets per second
+     * @param additiveIncrease the amount of in-flight slots added per window of successful probes
+     * @param decreaseFactor   the factor applied to the in-flight limit on timeout, between 0 and 1
+     * @param latencyTolerance the multiple of the average probe latency after which a probe counts as timed out
+     */
+    public AimdRateController(int initialInFlight, int maxInFlight, double initialRate, double maxRate,
+            double additiveIncrease, double decreaseFactor, double latencyTolerance) {
+        if (initialInFlight < 1 || maxInFlight < initialInFlight) {
+            throw new IllegalArgumentException("In-flight limits must satisfy 1 <= initial <= max.");
+        }
+        if (initialRate <= 0 || maxRate < initialRate) {
+            throw new IllegalArgumentException("Rates must satisfy 0 < initial <= max.");
+        }
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("Decrease factor must be between 0 and 1.");
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxRate = maxRate;
+        this.ratePerSlot = initialRate / initialInFlight;
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.latencyTolerance = latencyTolerance;
+        this.inFlightLimit = initialInFlight;
+        this.rate = initialRate;
+    }
+
+    /**
+     * Creates a controller configured through the {@code netaware.rate.<name>.initialInFlight},
+     * {@code netaware.rate.<name>.maxInFlight}, {@code netaware.rate.<name>.initialRate}
+     * and {@code netaware.rate.<name>.maxRate} system properties.
+     *
+     * @param name            the name of the controller in the system properties, e.g. "ip" or "port"
+     * @param initialInFlight the default amount of probes allowed in flight initially
+     * @param maxInFlight     the default hard cap on the amount of probes in flight
+     * @param initialRate     the default amount of packets allowed per second initially
+     * @param maxRate         the default hard cap on the amount of packets per second
+     * @return the configured controller
+     */
+    public static AimdRateController fromSystemProperties(String name, int initialInFlight, int maxInFlight,
+            double initialRate, double maxRate) {
+        String prefix = "netaware.rate." + name + ".";
+        int configuredMaxInFlight = Integer.getInteger(prefix + "maxInFlight", maxInFlight);
+        double configuredMaxRate = Double.parseDouble(System.getProperty(prefix + "maxRate", String.valueOf(maxRate)));
+
+        return new AimdRateController(
+                Math.min(configuredMaxInFlight, Integer.getInteger(prefix + "initialInFlight", initialInFlight)),
+                configuredMaxInFlight,
+                Math.min(configuredMaxRate, Double.parseDouble(System.getProperty(prefix + "initialRate", String.valueOf(initialRate)))),
+                configuredMaxRate
+        );
+    }
+
+    /**
+     * Takes a slot for a probe sending the given amount of packets, if both a slot and the packet budget are available.
+     *
+     * @param packets the amount of packets the probe sends
+     * @return whether the probe may start
+     */
+    public boolean tryAcquire(int packets) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (inFlight >= (int) inFlightLimit || nextPermitNanos - now > 0) {
+                return false;
+            }
+            inFlight++;
+            nextPermitNanos = Math.max(nextPermitNanos, now - BURST_NANOS) + (long) (packets * 1_000_000_000d / rate);
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a slot and the packet budget for a probe are available, and takes them.
+     *
+     * @param packets the amount of packets the probe sends
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void acquire(int packets) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!tryAcquire(packets)) {
+                long waitNanos = nanosUntilNextPermit();
+                if (waitNanos == Long.MAX_VALUE) {
+                    permitReleased.await();
+                } else {
+                    permitReleased.awaitNanos(waitNanos);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the nanoseconds until the packet budget allows the next probe, 0 when it does right away,
+     * or {@link Long#MAX_VALUE} when all slots are in flight
+     */
+    public long nanosUntilNextPermit() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) inFlightLimit) {
+                return Long.MAX_VALUE;
+            }
+
+            return Math.max(0, nextPermitNanos - System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a probe that got an answer, growing the limits additively.
+     */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            successCount++;
+            inFlight--;
+            inFlightLimit = Math.min(maxInFlight, inFlightLimit + additiveIncrease / inFlightLimit);
+            rate = Math.min(maxRate, inFlightLimit * ratePerSlot);
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a probe that timed out, shrinking the limits multiplicatively.
+     * Timeouts of probes sent before the previous decrease took effect do not shrink the limits again.
+     */
+    public void onTimeout() {
+        lock.lock();
+        try {
+            timeoutCount++;
+            inFlight--;
+            long now = System.nanoTime();
+            long decreaseInterval = averageLatencyNanos > 0 ? (long) averageLatencyNanos : DEFAULT_DECREASE_INTERVAL_NANOS;
+            if (now - lastDecreaseNanos >= decreaseInterval) {
+                inFlightLimit = Math.max(1, inFlightLimit * decreaseFactor);
+                rate = Math.min(maxRate, Math.max(ratePerSlot, inFlightLimit * ratePerSlot));
+                lastDecreaseNanos = now;
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a probe that never got to send anything or was aborted, leaving the limits as they are.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a probe whose outcome is only known through its duration.
+     * The probe counts as timed out when it took longer than the latency tolerance allows.
+     *
+     * @param elapsedNanos the duration of the probe
+     * @return whether the probe counted as timed out
+     */
+    public boolean onCompletion(long elapsedNanos) {
+        boolean timedOut;
+        lock.lock();
+        try {
+            timedOut = averageLatencyNanos > 0 && elapsedNanos > latencyTolerance * averageLatencyNanos;
+            averageLatencyNanos = averageLatencyNanos == 0
+                    ? elapsedNanos
+                    : averageLatencyNanos + LATENCY_SMOOTHING * (elapsedNanos - averageLatencyNanos);
+        } finally {
+            lock.unlock();
+        }
+        if (timedOut) {
+            onTimeout();
+        } else {
+            onSuccess();
+        }
+
+        return timedOut;
+    }
+
+    /**
+     * @return the current limit of probes in flight
+     */
+    public int getInFlightLimit() {
+        lock.lock();
+        try {
+            return (int) inFlightLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current limit of packets per second
+     */
+    public double getRate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of probes currently in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSuccessCount() {
+        lock.lock();
+        try {
+            return successCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTimeoutCount() {
+        lock.lock();
+        try {
+            return timeoutCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "in flight " + inFlight + "/" + (int) inFlightLimit + ", " + Math.round(rate) + " packets/s";
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Grabber reading the banners of open TCP/IP ports to identify the services listening on them.
+ * <p>
+ * Grabs run on virtual threads of their own, so they never hold up the port scan that found the ports.
+ * Every grab borrows a direct buffer from a fixed pool, sliced out of a single allocation: the size of the pool is
+ * the strict limit of grabs in flight, shared by every discovery, further grabs wait for a buffer to be returned.
+ * A grab connects, sends a hello to HTTP ports since their clients speak first, and reads until the banner is complete,
+ * the buffer is full or the connection is closed. The whole exchange runs against a single time budget:
+ * once it runs out the connection is closed, aborting whatever is in progress, and what was read so far is identified.
+ * The hello is sent from a buffer of its own, so only bytes read from the port are ever identified.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class BannerGrabber implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENT_GRABS = 32;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private static final byte[] HTTP_HELLO = "HEAD / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    // Shared by every grab, each writing from a duplicate of its own
+    private static final ByteBuffer HTTP_HELLO_BUFFER = ByteBuffer.allocateDirect(HTTP_HELLO.length)
+            .put(HTTP_HELLO)
+            .flip()
+            .asReadOnlyBuffer();
+    // Sorted, for binary searches
+    private static final int[] HTTP_PORTS = {80, 81, 591, 3000, 5000, 8000, 8008, 8080, 8081, 8888};
+    private static final int MAX_LABEL_LENGTH = 40;
+
+    /**
+     * The outcome of a grab.
+     *
+     * @param service  the identified service, empty when it could not be identified
+     * @param timedOut whether the time budget ran out before the banner was complete
+     */
+    public record Result(String service, boolean timedOut) {
+
+    }
+
+    private final long timeoutNanos;
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("banner-deadlines").daemon().factory()
+    );
+
+    /**
+     * @param maxConcurrentGrabs the maximum amount of grabs in flight at the same time
+     * @param timeout            the time budget of a grab: connecting, sending the hello and reading the banner
+     * @param bufferSize         the maximum amount of bytes read per banner
+     */
+    public BannerGrabber(int maxConcurrentGrabs, Duration timeout, int bufferSize) {
+        if (maxConcurrentGrabs < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("Concurrent grabs and buffer size must be strictly positive.");
+        }
+        this.timeoutNanos = timeout.toNanos();
+        this.buffers = new ArrayBlockingQueue<>(maxConcurrentGrabs);
+        ByteBuffer pool = ByteBuffer.allocateDirect(maxConcurrentGrabs * bufferSize);
+        for (int i = 0; i < maxConcurrentGrabs; i++) {
+            buffers.add(pool.slice(i * bufferSize, bufferSize));
+        }
+    }
+
+    /**
+     * Creates a grabber configured through the {@code netaware.banner.concurrency}, {@code netaware.banner.timeout}
+     * (milliseconds) and {@code netaware.banner.bufferSize} system properties.
+     *
+     * @return the configured grabber
+     */
+    public static BannerGrabber fromSystemProperties() {
+        return new BannerGrabber(
+                Integer.getInteger("netaware.banner.concurrency", DEFAULT_MAX_CONCURRENT_GRABS),
+                Duration.ofMillis(Long.getLong("netaware.banner.timeout", DEFAULT_TIMEOUT.toMillis())),
+                Integer.getInteger("netaware.banner.bufferSize", DEFAULT_BUFFER_SIZE)
+        );
+    }
+
+    /**
+     * @return the amount of buffers not borrowed by a grab in flight
+     */
+    public int getAvailableBufferCount() {
+        return buffers.size();
+    }
+
+    /**
+     * Grabs the banner of an open port in the background.
+     *
+     * @param address the address of the host
+     * @param port    the open port
+     * @return a future completing with the outcome of the grab, never exceptionally
+     * @throws IllegalStateException when the grabber is closed
+     */
+    public CompletableFuture<Result> grab(InetAddress address, int port) {
+        if (executorService.isShutdown()) {
+            throw new IllegalStateException("Grabber is closed.");
+        }
+
+        return CompletableFuture.supplyAsync(() -> grabNow(address, port), executorService);
+    }
+
+    /**
+     * Stops the grabs in flight and their deadlines, completing the grabs with what they read so far. Grabbing afterwards
+     * fails.
+     */
+    @Override
+    public void close() {
+        // Interrupting a grab closes its connection
+        executorService.shutdownNow();
+        deadlines.shutdownNow();
+    }
+
+    private Result grabNow(InetAddress address, int port) {
+        ByteBuffer buffer;
+        try {
+            buffer = buffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result("", false);
+        }
+        AtomicBoolean expired = new AtomicBoolean();
+        boolean timedOut = false;
+        try (SocketChannel channel = SocketChannel.open()) {
+            ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+                // Set before closing, so an exchange aborted by the deadline always sees it
+                expired.set(true);
+                closeQuietly(channel);
+            }, timeoutNanos, TimeUnit.NANOSECONDS);
+            try {
+                exchange(channel, new InetSocketAddress(address, port), buffer, Arrays.binarySearch(HTTP_PORTS, port) >= 0);
+            } catch (IOException e) {
+                // A deadline that is running can still be cancelled, only the flag tells whether it fired
+                timedOut = expired.get();
+                throw e;
+            } finally {
+                deadline.cancel(false);
+            }
+        } catch (IOException | RejectedExecutionException e) {
+            // Refused, reset, closed by the deadline or by closing the grabber, identify whatever was read
+        }
+        try {
+            buffer.flip();
+            // Nothing read, e.g. when the deadline fired while sending the hello
+            return new Result(buffer.hasRemaining() ? identify(buffer) : "", timedOut);
+        } finally {
+            buffer.clear();
+            buffers.add(buffer);
+        }
+    }
+
+    private static void exchange(SocketChannel channel, InetSocketAddress address, ByteBuffer buffer, boolean http) throws IOException {
+        buffer.clear();
+        channel.connect(address);
+        if (http) {
+            ByteBuffer hello = HTTP_HELLO_BUFFER.duplicate();
+            while (hello.hasRemaining()) {
+                channel.write(hello);
+            }
+        }
+        int scanned = 0;
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            if (isComplete(buffer, scanned, http)) {
+                return;
+            }
+            scanned = buffer.position();
+        }
+    }
+
+    /**
+     * @return whether the bytes read so far hold a complete banner: the header of an HTTP response, or else a line
+     */
+    private static boolean isComplete(ByteBuffer buffer, int from, boolean http) {
+        for (int i = from; i < buffer.position(); i++) {
+            if (buffer.get(i) != '\n') {
+                continue;
+            }
+            if (!http || (i >= 1 && buffer.get(i - 1) == '\n') || (i >= 2 && buffer.get(i - 1) == '\r' && buffer.get(i - 2) == '\n')) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Identifies the service that sent a banner.
+     *
+     * @param banner the banner, between position and limit
+     * @return the service, e.g. "SSH OpenSSH_9.6" or "HTTP nginx/1.25.3", empty when not identified
+     */
+    static String identify(ByteBuffer banner) {
+        int start = banner.position();
+        int length = banner.remaining();
+        if (length == 0) {
+            return "";
+        }
+        if (startsWith(banner, "SSH-")) {
+            // SSH-protoversion-softwareversion SP comments
+            int software = indexOf(banner, start + 4, (byte) '-');
+            return software < 0 ? "SSH" : "SSH " + text(banner, software + 1, true);
+        }
+        if (startsWith(banner, "HTTP/")) {
+            int server = indexOfIgnoreCase(banner, "\nServer:");
+            return server < 0 ? "HTTP" : "HTTP " + text(banner, skipSpaces(banner, server + "\nServer:".length()), true);
+        }
+        if (startsWith(banner, "220")) {
+            if (indexOfIgnoreCase(banner, "SMTP") >= 0) {
+                return "SMTP";
+            }
+            if (indexOfIgnoreCase(banner, "FTP") >= 0) {
+                return "FTP";
+            }
+        }
+        if (startsWith(banner, "+OK")) {
+            return "POP3";
+        }
+        if (startsWith(banner, "* OK")) {
+            return "IMAP";
+        }
+        if (startsWith(banner, "RFB ")) {
+            return "VNC";
+        }
+        if ((banner.get(start) & 0xFF) == 0xFF) {
+            // Telnet option negotiation
+            return "Telnet";
+        }
+        if (length > 5 && banner.get(start + 4) == 10 && isPrintable(banner.get(start + 5))) {
+            // Protocol version 10 handshake following the packet header
+            return "MySQL " + text(banner, start + 5, true);
+        }
+
+        return isPrintable(banner.get(start)) ? text(banner, start, false) : "";
+    }
+
+    private static boolean startsWith(ByteBuffer banner, String prefix) {
+        if (banner.remaining() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (banner.get(banner.position() + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer banner, int from, byte value) {
+        for (int i = from; i < banner.limit(); i++) {
+            if (banner.get(i) == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int indexOfIgnoreCase(ByteBuffer banner, String part) {
+        for (int i = banner.position(); i + part.length() <= banner.limit(); i++) {
+            int j = 0;
+            while (j < part.length()
+                    && Character.toLowerCase((char) (banner.get(i + j) & 0xFF)) == Character.toLowerCase(part.charAt(j))) {
+                j++;
+            }
+            if (j == part.length()) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int skipSpaces(ByteBuffer banner, int from) {
+        int index = from;
+        while (index < banner.limit() && banner.get(index) == ' ') {
+            index++;
+        }
+
+        return index;
+    }
+
+    /**
+     * @return the printable text starting at the given index, up to the end of its line, or word, and a maximum length
+     */
+    private static String text(ByteBuffer banner, int from, boolean word) {
+        StringBuilder text = new StringBuilder(MAX_LABEL_LENGTH);
+        for (int i = from; i < banner.limit() && text.length() < MAX_LABEL_LENGTH; i++) {
+            byte value = banner.get(i);
+            if (!isPrintable(value) || (word && value == ' ')) {
+                break;
+            }
+            text.append((char) value);
+        }
+
+        return text.toString();
+    }
+
+    private static boolean isPrintable(byte value) {
+        return value >= 0x20 && value < 0x7F;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Closed either way
+        }
+    }
+}
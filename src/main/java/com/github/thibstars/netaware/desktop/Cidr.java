@@ -0,0 +1,69 @@
+package com.github.thibstars.netaware.desktop;
+
+/**
+ * An IPv4 network in CIDR notation, e.g. 192.168.1.0/24.
+ *
+ * @param network      the network address, as a 32-bit integer with all host bits cleared
+ * @param prefixLength the amount of leading network bits, between 0 and 32
+ * @author Thibault Helsmoortel
+ */
+public record Cidr(int network, int prefixLength) {
+
+    public Cidr {
+        if (prefixLength < 0 || prefixLength > 32) {
+            throw new IllegalArgumentException("Invalid prefix length: " + prefixLength);
+        }
+        network &= mask(prefixLength);
+    }
+
+    /**
+     * Parses a network in CIDR notation. An address without prefix length denotes a single host.
+     *
+     * @param cidr the network, e.g. "10.0.0.0/16" or "192.168.1.10"
+     * @return the network
+     * @throws IllegalArgumentException when the network is not in valid CIDR notation
+     */
+    public static Cidr parse(String cidr) {
+        String trimmed = cidr.trim();
+        int slash = trimmed.indexOf('/');
+        if (slash < 0) {
+            return new Cidr(Ipv4Addresses.parse(trimmed), 32);
+        }
+        try {
+            return new Cidr(Ipv4Addresses.parse(trimmed.substring(0, slash)), Integer.parseInt(trimmed.substring(slash + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CIDR notation: " + cidr, e);
+        }
+    }
+
+    /**
+     * @param address an address, as a 32-bit integer
+     * @return whether the address is part of this network
+     */
+    public boolean contains(int address) {
+        return (address & mask(prefixLength)) == network;
+    }
+
+    /**
+     * @return the first address of this network, as an unsigned value
+     */
+    public long firstAddress() {
+        return Integer.toUnsignedLong(network);
+    }
+
+    /**
+     * @return the amount of addresses in this network
+     */
+    public long size() {
+        return 1L << (32 - prefixLength);
+    }
+
+    private static int mask(int prefixLength) {
+        return prefixLength == 0 ? 0 : -1 << (32 - prefixLength);
+    }
+
+    @Override
+    public String toString() {
+        return Ipv4Addresses.format(network) + "/" + prefixLength;
+    }
+}
@@ -18,6 +18,9 @@ public class ColorPalette {
 
     // Variations of cyan
     public static final Color LIGHT_CYAN = Color.decode("#00bfd8");  // Slightly lighter cyan
+
+    // Signal colors
+    public static final Color RED = Color.decode("#c62828");  // Red
     
     // Derived colors for UI components
     public static final Color BACKGROUND_COLOR = WHITE;
@@ -29,4 +32,5 @@ public class ColorPalette {
     public static final Color TABLE_HEADER_HOVER_FOREGROUND = WHITE;
     public static final Color TABLE_SELECTION_BACKGROUND = LIGHT_CYAN;
     public static final Color TABLE_SELECTION_FOREGROUND = DEEP_BLUE;
+    public static final Color INVALID_INPUT_COLOR = RED;
 }
\ No newline at end of file
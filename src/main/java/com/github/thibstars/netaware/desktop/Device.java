@@ -0,0 +1,88 @@
+package com.github.thibstars.netaware.desktop;
+
+/**
+ * A device discovered on the network, as displayed by a single row of the {@link DeviceTableModel}.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class Device {
+
+    private final String ipAddress;
+    // Parsed once, sorting and filtering compare it for every row
+    private final long address;
+    private String hostname = "";
+    private final PortSet openPorts = new PortSet();
+    private String macAddress = "";
+    private String vendor = "";
+    private DeviceStatus status = DeviceStatus.UP;
+
+    public Device(String ipAddress) {
+        this.ipAddress = ipAddress;
+        this.address = parseAddress(ipAddress);
+    }
+
+    private static long parseAddress(String ipAddress) {
+        try {
+            return Integer.toUnsignedLong(Ipv4Addresses.parse(ipAddress));
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    /**
+     * @return the IP address as an unsigned 32-bit value, or -1 when it is not an IPv4 address
+     */
+    public long getAddress() {
+        return address;
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    public void setHostname(String hostname) {
+        this.hostname = hostname;
+    }
+
+    public PortSet getOpenPorts() {
+        return openPorts;
+    }
+
+    /**
+     * Adds an open port to this device.
+     *
+     * @param port the open TCP/IP port
+     * @return whether the port was added, false when it was already known to be open
+     */
+    public boolean addOpenPort(int port) {
+        return openPorts.add(port);
+    }
+
+    public String getMacAddress() {
+        return macAddress;
+    }
+
+    public void setMacAddress(String macAddress) {
+        this.macAddress = macAddress;
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    public void setVendor(String vendor) {
+        this.vendor = vendor;
+    }
+
+    public DeviceStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(DeviceStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.core.Event;
+import java.net.InetAddress;
+import java.time.Instant;
+
+/**
+ * A device watched by the {@link NetworkMonitor} was not found anymore by a monitoring cycle probing its address.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class DeviceDownEvent extends Event {
+
+    private final InetAddress ipAddress;
+    private final Instant lastSeen;
+
+    public DeviceDownEvent(Object source, InetAddress ipAddress, Instant lastSeen) {
+        super(source);
+        this.ipAddress = ipAddress;
+        this.lastSeen = lastSeen;
+    }
+
+    public InetAddress getIpAddress() {
+        return ipAddress;
+    }
+
+    /**
+     * @return the last time the device was found up
+     */
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+}
@@ -0,0 +1,584 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Export of the devices in the {@link DeviceTableModel} to a file, and import of such files.
+ * <p>
+ * Devices are written straight from the table model, without copying them first: a chunk of rows at a time is encoded
+ * where the table model may be read, usually the event dispatch thread, and written to the file from a background thread.
+ * Besides CSV, one device per line, and JSON, an array of device objects, devices can be exported in a compact binary format:
+ * a small header followed by a record per device, until the end of the file. A record holds a flags byte,
+ * the IPv4 address as an int, the MAC address as a long, the hostname, the status, and the open ports as a sparse bitset:
+ * the amount of 64 port words holding open ports, followed by the index and bits of each of those words.
+ * Ports outside of the 0-65535 range are rejected, both when writing and when reading.
+ * Addresses that are not IPv4 and MAC addresses that are not 48 bits are written as text instead, flagged as such.
+ * <p>
+ * Imports read the devices back as {@link InventoryEntry inventory entries}, so they can be shown as the last known devices
+ * or rescanned against. Services and statuses are only exported for reference, hostnames and vendors are not imported:
+ * vendors are looked up again from the MAC addresses.
+ *
+ * @author Thibault Helsmoortel
+ */
+public final class DeviceExport {
+
+    /**
+     * The formats devices can be exported in, chosen by file extension.
+     */
+    public enum Format {
+        CSV("csv"),
+        JSON("json"),
+        BINARY("ndx");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param file the file
+         * @return the format matching the extension of the file
+         * @throws IllegalArgumentException when the extension doesn't match a format
+         */
+        public static Format of(Path file) {
+            String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (fileName.endsWith("." + format.extension)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format, expected a .csv, .json or .ndx file: " + file);
+        }
+    }
+
+    private static final String CSV_HEADER = "ip,hostname,mac,vendor,status,ports,services";
+    private static final int MAGIC = 0x4E414458;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNK_ROWS = 1024;
+
+    private static final int TEXT_ADDRESS = 1;
+    private static final int HAS_MAC_ADDRESS = 1 << 1;
+    private static final int TEXT_MAC_ADDRESS = 1 << 2;
+    private static final int HAS_HOSTNAME = 1 << 3;
+
+    private static final DeviceStatus[] STATUSES = DeviceStatus.values();
+
+    private DeviceExport() {
+    }
+
+    /**
+     * Exports the devices of the table to a file, in the format matching its extension.
+     * See {@link #write(DeviceTableModel, Executor, Format, OutputStream)} for how the table model is read.
+     *
+     * @param tableModel    the table model holding the devices
+     * @param modelExecutor the executor of the tasks reading the table model, e.g. running them on the event dispatch thread
+     * @param file          the file to write, replaced when it exists
+     * @throws IOException when the file can't be written
+     */
+    public static void write(DeviceTableModel tableModel, Executor modelExecutor, Path file) throws IOException {
+        Format format = Format.of(file);
+        try (OutputStream output = Files.newOutputStream(file)) {
+            write(tableModel, modelExecutor, format, output);
+        }
+    }
+
+    /**
+     * Exports the devices of the table to a stream, which is left open.
+     * The rows are encoded straight from the table model, {@value #CHUNK_ROWS} at a time, by tasks run on the model
+     * executor. Each encoded chunk is written to the stream from the calling thread before the next one is encoded, so
+     * the model executor never waits for the stream and at most a chunk of rows is held in memory. Rows added while
+     * exporting are included, up to the last chunk. Must not be called on the thread of the model executor.
+     *
+     * @param tableModel    the table model holding the devices
+     * @param modelExecutor the executor of the tasks reading the table model, e.g. running them on the event dispatch thread
+     * @param format        the format to write
+     * @param output        the stream to write to
+     * @throws IOException when the stream can't be written
+     */
+    public static void write(DeviceTableModel tableModel, Executor modelExecutor, Format format, OutputStream output)
+            throws IOException {
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream(BUFFER_SIZE);
+        RowWriter rowWriter = new RowWriter(format, chunk);
+        boolean finished;
+        do {
+            try {
+                finished = CompletableFuture.supplyAsync(() -> rowWriter.writeRows(tableModel), modelExecutor).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException cause) {
+                    throw cause.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            // Joined, so the chunk is complete and no longer written to by the model executor
+            chunk.writeTo(output);
+            chunk.reset();
+        } while (!finished);
+        output.flush();
+    }
+
+    /**
+     * Imports the devices of a file, in the format matching its extension.
+     * All devices are dated at the last modification of the file.
+     *
+     * @param file the exported file
+     * @return the devices, in the order they were exported
+     * @throws IOException when the file can't be read or holds an invalid device
+     */
+    public static List<InventoryEntry> read(Path file) throws IOException {
+        Format format = Format.of(file);
+        Instant exported = Files.getLastModifiedTime(file).toInstant();
+        try (InputStream input = Files.newInputStream(file)) {
+            return read(format, input, exported);
+        }
+    }
+
+    /**
+     * Imports the devices of a stream, which is left open.
+     *
+     * @param format   the format to read
+     * @param input    the stream to read from
+     * @param exported the time the devices were exported, taken as the time they were first and last seen
+     * @return the devices, in the order they were exported
+     * @throws IOException when the stream can't be read or holds an invalid device
+     */
+    public static List<InventoryEntry> read(Format format, InputStream input, Instant exported) throws IOException {
+        List<InventoryEntry> entries = new ArrayList<>();
+        try {
+            switch (format) {
+                case CSV -> readCsv(newReader(input), exported, entries);
+                case JSON -> readJson(newReader(input), exported, entries);
+                case BINARY -> readBinary(new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE)), exported, entries);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid device after " + entries.size() + " devices: " + e.getMessage(), e);
+        }
+
+        return entries;
+    }
+
+    private static BufferedReader newReader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static void writeCsvRow(Device device, StringBuilder line, Writer writer) throws IOException {
+        line.setLength(0);
+        appendCsvField(line, device.getIpAddress()).append(',');
+        appendCsvField(line, device.getHostname()).append(',');
+        appendCsvField(line, device.getMacAddress()).append(',');
+        appendCsvField(line, device.getVendor()).append(',');
+        line.append(device.getStatus().name()).append(',');
+        PortSet openPorts = device.getOpenPorts();
+        for (int i = 0; i < openPorts.size(); i++) {
+            if (i > 0) {
+                line.append(' ');
+            }
+            line.append(openPorts.get(i));
+        }
+        line.append(',');
+        appendCsvField(line, services(openPorts)).append('\n');
+        writer.append(line);
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder line, String value) {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+
+        return line.append('"');
+    }
+
+    private static void writeJsonRow(Device device, boolean first, StringBuilder line, Writer writer) throws IOException {
+        line.setLength(0);
+        line.append(first ? "\n{\"ip\":" : ",\n{\"ip\":");
+        NdjsonWriter.appendString(line, device.getIpAddress());
+        line.append(",\"hostname\":");
+        NdjsonWriter.appendString(line, device.getHostname());
+        line.append(",\"mac\":");
+        NdjsonWriter.appendString(line, device.getMacAddress());
+        line.append(",\"vendor\":");
+        NdjsonWriter.appendString(line, device.getVendor());
+        line.append(",\"status\":\"").append(device.getStatus().name()).append("\",\"ports\":[");
+        PortSet openPorts = device.getOpenPorts();
+        for (int i = 0; i < openPorts.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(openPorts.get(i));
+        }
+        line.append("],\"services\":");
+        NdjsonWriter.appendString(line, services(openPorts));
+        line.append('}');
+        writer.append(line);
+    }
+
+    /**
+     * @return the services identified on the ports, e.g. "22: SSH OpenSSH_9.6; 80: HTTP nginx"
+     */
+    private static String services(PortSet openPorts) {
+        StringBuilder services = null;
+        for (int i = 0; i < openPorts.size(); i++) {
+            int port = openPorts.get(i);
+            String service = openPorts.getLabel(port);
+            if (service != null) {
+                services = services == null ? new StringBuilder() : services.append("; ");
+                services.append(port).append(": ").append(service);
+            }
+        }
+
+        return services == null ? "" : services.toString();
+    }
+
+    private static void writeBinaryRow(Device device, DataOutputStream output) throws IOException {
+        long macAddress = parseMacAddress(device.getMacAddress());
+        int flags = (device.getAddress() < 0 ? TEXT_ADDRESS : 0)
+                | (device.getMacAddress().isEmpty() ? 0 : HAS_MAC_ADDRESS)
+                | (!device.getMacAddress().isEmpty() && macAddress < 0 ? TEXT_MAC_ADDRESS : 0)
+                | (device.getHostname().isEmpty() ? 0 : HAS_HOSTNAME);
+        output.writeByte(flags);
+        if ((flags & TEXT_ADDRESS) != 0) {
+            output.writeUTF(device.getIpAddress());
+        } else {
+            output.writeInt((int) device.getAddress());
+        }
+        if ((flags & TEXT_MAC_ADDRESS) != 0) {
+            output.writeUTF(device.getMacAddress());
+        } else if ((flags & HAS_MAC_ADDRESS) != 0) {
+            output.writeLong(macAddress);
+        }
+        if ((flags & HAS_HOSTNAME) != 0) {
+            output.writeUTF(device.getHostname());
+        }
+        output.writeByte(device.getStatus().ordinal());
+        writePortWords(output, device.getOpenPorts());
+    }
+
+    /**
+     * Writes the ports as the words of a bitset of all ports, leaving out the words without open ports.
+     */
+    private static void writePortWords(DataOutputStream output, PortSet openPorts) throws IOException {
+        // Ports are in ascending order, so the ports of a word follow each other
+        int wordCount = 0;
+        int previousWord = -1;
+        for (int i = 0; i < openPorts.size(); i++) {
+            int word = checkPort(openPorts.get(i)) >>> 6;
+            if (word != previousWord) {
+                wordCount++;
+                previousWord = word;
+            }
+        }
+        output.writeShort(wordCount);
+
+        int i = 0;
+        while (i < openPorts.size()) {
+            int word = openPorts.get(i) >>> 6;
+            long bits = 0;
+            for (; i < openPorts.size() && openPorts.get(i) >>> 6 == word; i++) {
+                bits |= 1L << (openPorts.get(i) & 63);
+            }
+            output.writeShort(word);
+            output.writeLong(bits);
+        }
+    }
+
+    private static void readCsv(BufferedReader reader, Instant exported, List<InventoryEntry> entries) throws IOException {
+        String header = reader.readLine();
+        if (header == null || !header.startsWith("ip,")) {
+            throw new IOException("Missing CSV header, expected: " + CSV_HEADER);
+        }
+        List<String> fields = new ArrayList<>(7);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            splitCsvLine(line, fields);
+            if (fields.size() < 6) {
+                throw new IllegalArgumentException("Expected at least 6 fields: " + line);
+            }
+            entries.add(new InventoryEntry(fields.get(0), fields.get(2), parsePorts(fields.get(5)), exported, exported));
+        }
+    }
+
+    private static void splitCsvLine(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote: " + line);
+        }
+        fields.add(field.toString());
+    }
+
+    private static int[] parsePorts(String ports) {
+        int[] openPorts = new int[8];
+        int size = 0;
+        int start = 0;
+        while (start < ports.length()) {
+            int end = ports.indexOf(' ', start);
+            if (end < 0) {
+                end = ports.length();
+            }
+            if (end > start) {
+                if (size == openPorts.length) {
+                    openPorts = Arrays.copyOf(openPorts, size * 2);
+                }
+                openPorts[size++] = checkPort(Integer.parseInt(ports, start, end, 10));
+            }
+            start = end + 1;
+        }
+
+        return sortedPorts(Arrays.copyOf(openPorts, size));
+    }
+
+    private static void readJson(BufferedReader reader, Instant exported, List<InventoryEntry> entries) throws IOException {
+        NdjsonReader.parseArray(reader, values -> {
+            if (!(values.get("ip") instanceof String ipAddress)) {
+                throw new IllegalArgumentException("Missing string ip: " + values);
+            }
+            String macAddress = values.get("mac") instanceof String mac ? mac : "";
+            int[] openPorts = values.get("ports") instanceof int[] ports ? ports : new int[0];
+            for (int port : openPorts) {
+                checkPort(port);
+            }
+            entries.add(new InventoryEntry(ipAddress, macAddress, sortedPorts(openPorts), exported, exported));
+        });
+    }
+
+    private static void readBinary(DataInputStream input, Instant exported, List<InventoryEntry> entries) throws IOException {
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unsupported binary export format");
+            }
+        } catch (EOFException e) {
+            throw new IOException("Unsupported binary export format", e);
+        }
+        int flags;
+        int[] openPorts = new int[64];
+        while ((flags = input.read()) >= 0) {
+            String ipAddress = (flags & TEXT_ADDRESS) != 0 ? input.readUTF() : Ipv4Addresses.format(input.readInt());
+            String macAddress = "";
+            if ((flags & TEXT_MAC_ADDRESS) != 0) {
+                macAddress = input.readUTF();
+            } else if ((flags & HAS_MAC_ADDRESS) != 0) {
+                macAddress = formatMacAddress(input.readLong());
+            }
+            if ((flags & HAS_HOSTNAME) != 0) {
+                // Not part of an inventory entry
+                input.readUTF();
+            }
+            int status = input.readUnsignedByte();
+            if (status >= STATUSES.length) {
+                throw new IOException("Invalid status " + status + " of " + ipAddress);
+            }
+
+            int size = 0;
+            int wordCount = input.readUnsignedShort();
+            for (int i = 0; i < wordCount; i++) {
+                int word = input.readUnsignedShort();
+                long bits = input.readLong();
+                if (word >= 1024) {
+                    throw new IOException("Invalid port word " + word + " of " + ipAddress);
+                }
+                for (; bits != 0; bits &= bits - 1) {
+                    if (size == openPorts.length) {
+                        openPorts = Arrays.copyOf(openPorts, size * 2);
+                    }
+                    openPorts[size++] = word << 6 | Long.numberOfTrailingZeros(bits);
+                }
+            }
+            // Words are written in ascending order, so are the ports
+            entries.add(new InventoryEntry(ipAddress, macAddress, Arrays.copyOf(openPorts, size), exported, exported));
+        }
+    }
+
+    private static int checkPort(int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port: " + port);
+        }
+
+        return port;
+    }
+
+    private static int[] sortedPorts(int[] ports) {
+        for (int i = 1; i < ports.length; i++) {
+            if (ports[i] < ports[i - 1]) {
+                Arrays.sort(ports);
+                break;
+            }
+        }
+
+        return ports;
+    }
+
+    /**
+     * @param macAddress the MAC address, its octets optionally separated by colons, hyphens or dots
+     * @return the 48 bits of the address, or -1 when it is not a 48 bit address
+     */
+    static long parseMacAddress(String macAddress) {
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < macAddress.length(); i++) {
+            char c = macAddress.charAt(i);
+            int digit = Character.digit(c, 16);
+            if (digit >= 0) {
+                value = value << 4 | digit;
+                digits++;
+            } else if (c != ':' && c != '-' && c != '.') {
+                return -1;
+            }
+        }
+
+        return digits == 12 ? value : -1;
+    }
+
+    /**
+     * @param macAddress the 48 bits of the address
+     * @return the address as lower case octets separated by colons
+     */
+    static String formatMacAddress(long macAddress) {
+        char[] text = new char[17];
+        for (int octet = 0; octet < 6; octet++) {
+            int value = (int) (macAddress >>> (40 - 8 * octet)) & 0xFF;
+            text[octet * 3] = Character.forDigit(value >>> 4, 16);
+            text[octet * 3 + 1] = Character.forDigit(value & 0xF, 16);
+            if (octet < 5) {
+                text[octet * 3 + 2] = ':';
+            }
+        }
+
+        return new String(text);
+    }
+
+    /**
+     * Encodes the rows of a table model into a chunk, a chunk of rows at a time, starting with the header of the format
+     * and ending with its footer. Only used by one task at a time, each joined before the chunk is drained.
+     */
+    private static final class RowWriter {
+
+        private final Format format;
+        private final Writer writer;
+        private final DataOutputStream dataOutput;
+        private final StringBuilder line = new StringBuilder(128);
+        // The next row to encode, -1 until the header is written
+        private int nextRow = -1;
+
+        private RowWriter(Format format, OutputStream chunk) {
+            this.format = format;
+            this.writer = new OutputStreamWriter(chunk, StandardCharsets.UTF_8);
+            this.dataOutput = new DataOutputStream(chunk);
+        }
+
+        /**
+         * Encodes the next chunk of rows. Must run where the table model may be read.
+         *
+         * @return whether the last row of the table and the footer were encoded
+         * @throws UncheckedIOException when the chunk can't be written
+         */
+        private boolean writeRows(DeviceTableModel tableModel) {
+            try {
+                if (nextRow < 0) {
+                    writeHeader();
+                    nextRow = 0;
+                }
+                int endRow = Math.min(tableModel.getRowCount(), nextRow + CHUNK_ROWS);
+                for (; nextRow < endRow; nextRow++) {
+                    Device device = tableModel.getDevice(nextRow);
+                    switch (format) {
+                        case CSV -> writeCsvRow(device, line, writer);
+                        case JSON -> writeJsonRow(device, nextRow == 0, line, writer);
+                        case BINARY -> writeBinaryRow(device, dataOutput);
+                    }
+                }
+                boolean finished = nextRow == tableModel.getRowCount();
+                if (finished && format == Format.JSON) {
+                    writer.write("\n]\n");
+                }
+                writer.flush();
+                dataOutput.flush();
+
+                return finished;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeHeader() throws IOException {
+            switch (format) {
+                case CSV -> {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                case JSON -> writer.write('[');
+                case BINARY -> {
+                    dataOutput.writeInt(MAGIC);
+                    dataOutput.writeInt(VERSION);
+                }
+            }
+        }
+    }
+}
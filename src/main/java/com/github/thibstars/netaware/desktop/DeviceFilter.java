@@ -0,0 +1,111 @@
+package com.github.thibstars.netaware.desktop;
+
+/**
+ * Filter on the rows of the {@link DeviceTableModel}, as entered in the filter bar.
+ * A device matches when it matches every criterion that is set: its address, an open port and its vendor.
+ * Matching allocates nothing, so the whole table can be filtered again on every keystroke.
+ *
+ * @author Thibault Helsmoortel
+ */
+public final class DeviceFilter {
+
+    /**
+     * The filter matching every device.
+     */
+    public static final DeviceFilter NONE = new DeviceFilter(null, null, -1, "");
+
+    private final String addressPrefix;
+    private final Cidr network;
+    private final int port;
+    private final String vendor;
+
+    private DeviceFilter(String addressPrefix, Cidr network, int port, String vendor) {
+        this.addressPrefix = addressPrefix;
+        this.network = network;
+        this.port = port;
+        this.vendor = vendor;
+    }
+
+    /**
+     * Parses the criteria of a filter, blank criteria are not applied.
+     *
+     * @param address a network in CIDR notation, e.g. "10.0.0.0/8", or the start of an address, e.g. "192.168.1."
+     * @param port    a port that must be open
+     * @param vendor  a part of the vendor name, in any case
+     * @return the filter
+     * @throws IllegalArgumentException when the network or port is invalid
+     */
+    public static DeviceFilter parse(String address, String port, String vendor) {
+        String trimmedAddress = address.trim();
+        String trimmedPort = port.trim();
+        String trimmedVendor = vendor.trim();
+        if (trimmedAddress.isEmpty() && trimmedPort.isEmpty() && trimmedVendor.isEmpty()) {
+            return NONE;
+        }
+
+        Cidr network = trimmedAddress.contains("/") ? Cidr.parse(trimmedAddress) : null;
+        int openPort = -1;
+        if (!trimmedPort.isEmpty()) {
+            try {
+                openPort = Integer.parseInt(trimmedPort);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid port: " + port, e);
+            }
+            if (openPort < 0 || openPort > 65535) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+        }
+
+        return new DeviceFilter(
+                network == null && !trimmedAddress.isEmpty() ? trimmedAddress : null,
+                network,
+                openPort,
+                trimmedVendor
+        );
+    }
+
+    /**
+     * @param device the device
+     * @return whether the device matches every criterion of this filter
+     */
+    public boolean matches(Device device) {
+        if (addressPrefix != null && !device.getIpAddress().startsWith(addressPrefix)) {
+            return false;
+        }
+        if (network != null && (device.getAddress() < 0 || !network.contains((int) device.getAddress()))) {
+            return false;
+        }
+        if (port >= 0 && !device.getOpenPorts().contains(port)) {
+            return false;
+        }
+
+        return vendor.isEmpty() || containsIgnoreCase(device.getVendor(), vendor);
+    }
+
+    /**
+     * @param column a column of the {@link DeviceTableModel}
+     * @return whether changes to the given column can change whether a device matches
+     */
+    public boolean dependsOn(int column) {
+        return switch (column) {
+            case DeviceTableModel.IP_ADDRESS_COLUMN -> addressPrefix != null || network != null;
+            case DeviceTableModel.OPEN_PORTS_COLUMN -> port >= 0;
+            case DeviceTableModel.VENDOR_COLUMN -> !vendor.isEmpty();
+            default -> false;
+        };
+    }
+
+    public boolean isEmpty() {
+        return this == NONE;
+    }
+
+    private static boolean containsIgnoreCase(String value, String part) {
+        for (int i = 0; i + part.length() <= value.length(); i++) {
+            if (value.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
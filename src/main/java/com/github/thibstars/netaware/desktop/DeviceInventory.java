@@ -0,0 +1,204 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk inventory of the devices found by previous discoveries, keeping their last known state.
+ * <p>
+ * The inventory is stored as an append-only log of binary records, one per device update, following a small header.
+ * Loading replays the log, the last record of a device wins. Updates only append the records of the devices that changed,
+ * and the log is rewritten compactly once most of its records have been superseded.
+ * A record cut short by a crash while appending is ignored, along with anything following it.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class DeviceInventory {
+
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".netaware", "inventory.dat");
+
+    private static final int MAGIC = 0x4E41494E;
+    private static final int VERSION = 1;
+    private static final int MIN_COMPACTION_RECORDS = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final Map<String, InventoryEntry> entries = new LinkedHashMap<>();
+    private int recordCount;
+    private boolean rewriteRequired;
+
+    /**
+     * Creates an inventory backed by the given file, loading the devices it holds.
+     * A missing file denotes an empty inventory.
+     *
+     * @param file the file to load the inventory from and store it to
+     */
+    public DeviceInventory(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Creates an inventory backed by the file configured through the {@code netaware.inventory.file} system property.
+     *
+     * @return the configured inventory
+     */
+    public static DeviceInventory fromSystemProperties() {
+        return new DeviceInventory(Path.of(System.getProperty("netaware.inventory.file", DEFAULT_FILE.toString())));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the devices of this inventory, in the order they were first found
+     */
+    public synchronized List<InventoryEntry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * @param ipAddress the IP address of the device
+     * @return the last known state of the device, or null if the device is not part of this inventory
+     */
+    public synchronized InventoryEntry get(String ipAddress) {
+        return entries.get(ipAddress);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Stores the new state of the given devices, both in memory and on disk.
+     * Failing to write the file is reported, the in-memory state is updated regardless.
+     *
+     * @param updatedEntries the devices that changed
+     */
+    public synchronized void update(Collection<InventoryEntry> updatedEntries) {
+        if (updatedEntries.isEmpty()) {
+            return;
+        }
+        updatedEntries.forEach(entry -> entries.put(entry.ipAddress(), entry));
+        recordCount += updatedEntries.size();
+
+        try {
+            if (rewriteRequired || recordCount > 2 * entries.size() + MIN_COMPACTION_RECORDS) {
+                rewrite();
+            } else {
+                append(updatedEntries);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not store device inventory " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                System.err.println("Ignoring device inventory " + file + ": unsupported format.");
+                rewriteRequired = true;
+                return;
+            }
+            int firstByte;
+            while ((firstByte = input.read()) >= 0) {
+                InventoryEntry entry = readEntry(firstByte, input);
+                entries.put(entry.ipAddress(), entry);
+                recordCount++;
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing discovered yet
+        } catch (EOFException e) {
+            // Cut short in the middle of a record, appending after it would garble the records to come
+            rewriteRequired = true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read device inventory " + file + ": " + e.getMessage());
+            rewriteRequired = true;
+        }
+    }
+
+    private void append(Collection<InventoryEntry> updatedEntries) throws IOException {
+        createParentDirectories();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE))) {
+            if (Files.size(file) == 0) {
+                writeHeader(output);
+            }
+            for (InventoryEntry entry : updatedEntries) {
+                writeEntry(output, entry);
+            }
+        }
+    }
+
+    private void rewrite() throws IOException {
+        createParentDirectories();
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), BUFFER_SIZE))) {
+            writeHeader(output);
+            for (InventoryEntry entry : entries.values()) {
+                writeEntry(output, entry);
+            }
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordCount = entries.size();
+        rewriteRequired = false;
+    }
+
+    private void createParentDirectories() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+    }
+
+    private static void writeEntry(DataOutputStream output, InventoryEntry entry) throws IOException {
+        int[] openPorts = entry.openPorts();
+        output.writeInt(Ipv4Addresses.parse(entry.ipAddress()));
+        output.writeLong(entry.firstSeen().toEpochMilli());
+        output.writeLong(entry.lastSeen().toEpochMilli());
+        output.writeUTF(entry.macAddress());
+        output.writeInt(openPorts.length);
+        for (int port : openPorts) {
+            output.writeShort(port);
+        }
+    }
+
+    private static InventoryEntry readEntry(int firstByte, DataInputStream input) throws IOException {
+        int address = firstByte << 24 | input.readUnsignedByte() << 16 | input.readUnsignedShort();
+        String ipAddress = Ipv4Addresses.format(address);
+        Instant firstSeen = Instant.ofEpochMilli(input.readLong());
+        Instant lastSeen = Instant.ofEpochMilli(input.readLong());
+        String macAddress = input.readUTF();
+        int amountOfOpenPorts = input.readInt();
+        if (amountOfOpenPorts < 0 || amountOfOpenPorts > 65536) {
+            throw new IOException("Invalid amount of open ports: " + amountOfOpenPorts);
+        }
+        int[] openPorts = new int[amountOfOpenPorts];
+        for (int i = 0; i < openPorts.length; i++) {
+            openPorts[i] = input.readUnsignedShort();
+        }
+
+        return new InventoryEntry(ipAddress, macAddress, openPorts, firstSeen, lastSeen);
+    }
+}
@@ -0,0 +1,610 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+
+/**
+ * Row sorter for the {@link DeviceTableModel}, sorting on a single column and filtering through a {@link DeviceFilter}.
+ * <p>
+ * Unlike {@link javax.swing.table.TableRowSorter}, changes are applied incrementally so the view stays interactive
+ * while a scan streams in updates: a batch of inserted rows is sorted on its own and merged in, an updated row is only
+ * moved when it is out of order with its neighbours, and updates to columns that are neither sorted on nor filtered on
+ * leave the view untouched. Every row is kept in sort order, filtered or not, so changing the filter is a single pass
+ * over the rows and only changing the sort order sorts them again.
+ * Orders are kept in int arrays and rows are compared on the fields of their devices, so no values are converted
+ * or boxed. Ties are broken by model index, which keeps rows in the order they were found.
+ * <p>
+ * Registered as {@link DeviceTableModel.BatchListener} of its model, the sorter handles the events of a batch of updates
+ * at once when the batch is finished: the view stays as it was while the batch is applied and changes at most once,
+ * announced by a single event.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class DeviceRowSorter extends RowSorter<DeviceTableModel> implements DeviceTableModel.BatchListener {
+
+    // An update touching more rows than this share of the model is cheaper to sort as a whole
+    private static final int FULL_SORT_DIVISOR = 8;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final DeviceTableModel model;
+    private List<SortKey> sortKeys = List.of();
+    private int sortColumn = -1;
+    private boolean descending;
+    private DeviceFilter filter = DeviceFilter.NONE;
+    private int modelRowCount;
+    // Every row of the model in sort order, and the ones matching the filter. Without filter, the view is every row.
+    private final RowOrder sortedRows = new RowOrder();
+    private final RowOrder filteredRows = new RowOrder();
+    private RowOrder view = sortedRows;
+    // Reused for inserted batches and merge sorts
+    private int[] batch = new int[64];
+    private int[] sortBuffer = new int[64];
+    // Changes of the batch being applied to the model, handled once it is finished
+    private boolean inBatch;
+    private boolean batchChangedAllRows;
+    private int batchRowCount;
+    private final BitSet batchUpdatedRows = new BitSet();
+    private int batchUpdatedRowCount;
+
+    public DeviceRowSorter(DeviceTableModel model) {
+        this.model = model;
+        rebuild();
+    }
+
+    /**
+     * Applies a filter, replacing the current one.
+     *
+     * @param filter the filter, {@link DeviceFilter#NONE} to show every device
+     */
+    public void setFilter(DeviceFilter filter) {
+        this.filter = filter;
+        int[] previousViewToModel = view.toArray();
+        applyFilter();
+        fireRowSorterChanged(previousViewToModel);
+    }
+
+    public DeviceFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public DeviceTableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        checkColumn(column);
+        SortOrder sortOrder = column == sortColumn && !descending ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+        setSortKeys(List.of(new SortKey(column, sortOrder)));
+    }
+
+    /**
+     * Sorts on the first of the given keys, further keys are ignored since ties are kept in discovery order.
+     *
+     * @param keys the keys to sort on, empty or null to keep the rows in discovery order
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> newSortKeys = keys == null || keys.isEmpty() || keys.getFirst().getSortOrder() == SortOrder.UNSORTED
+                ? List.of()
+                : List.of(keys.getFirst());
+        if (newSortKeys.equals(sortKeys)) {
+            return;
+        }
+        if (!newSortKeys.isEmpty()) {
+            checkColumn(newSortKeys.getFirst().getColumn());
+        }
+        sortKeys = newSortKeys;
+        sortColumn = newSortKeys.isEmpty() ? -1 : newSortKeys.getFirst().getColumn();
+        descending = !newSortKeys.isEmpty() && newSortKeys.getFirst().getSortOrder() == SortOrder.DESCENDING;
+        fireSortOrderChanged();
+
+        int[] previousViewToModel = view.toArray();
+        sortedRows.sort();
+        applyFilter();
+        fireRowSorterChanged(previousViewToModel);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (index < 0 || index >= view.count) {
+            throw new IndexOutOfBoundsException("Invalid view index: " + index);
+        }
+
+        return view.rows[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index >= modelRowCount && index < batchRowCount) {
+            // Inserted by the batch being applied, placed once it is finished
+            return -1;
+        }
+        if (index < 0 || index >= modelRowCount) {
+            throw new IndexOutOfBoundsException("Invalid model index: " + index);
+        }
+
+        return view.positions[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return view.count;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return modelRowCount;
+    }
+
+    @Override
+    public void batchStarted() {
+        inBatch = true;
+        batchRowCount = modelRowCount;
+    }
+
+    @Override
+    public void batchFinished() {
+        if (!inBatch) {
+            return;
+        }
+        inBatch = false;
+        if (batchChangedAllRows) {
+            batchChangedAllRows = false;
+            batchUpdatedRows.clear();
+            batchUpdatedRowCount = 0;
+            allRowsChanged();
+            return;
+        }
+        if (batchRowCount == modelRowCount && batchUpdatedRows.isEmpty()) {
+            return;
+        }
+        int[] previousViewToModel = view.toArray();
+        if (!batchUpdatedRows.isEmpty()) {
+            updateRows(batchUpdatedRows, batchUpdatedRowCount);
+            batchUpdatedRows.clear();
+            batchUpdatedRowCount = 0;
+        }
+        if (batchRowCount > modelRowCount) {
+            insertRows(modelRowCount, batchRowCount - 1);
+        }
+        if (!Arrays.equals(previousViewToModel, 0, previousViewToModel.length, view.rows, 0, view.count)) {
+            fireRowSorterChanged(previousViewToModel);
+        }
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        if (inBatch) {
+            batchChangedAllRows = true;
+            return;
+        }
+        rebuild();
+        fireRowSorterChanged(null);
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int rowCount = inBatch ? batchRowCount : modelRowCount;
+        // The model only appends rows, anything else is handled as a change of every row
+        if (firstRow != rowCount || endRow < firstRow || endRow >= model.getRowCount()) {
+            allRowsChanged();
+            return;
+        }
+        if (inBatch) {
+            batchRowCount = endRow + 1;
+        } else if (insertRows(firstRow, endRow)) {
+            fireRowSorterChanged(null);
+        }
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        // The model never removes rows
+        allRowsChanged();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        update(firstRow, endRow);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        checkColumn(column);
+        if (column == sortColumn || filter.dependsOn(column)) {
+            update(firstRow, endRow);
+        }
+    }
+
+    /**
+     * Places inserted rows among the rows in sort order, and among the filtered ones when they match the filter.
+     *
+     * @return whether the view changed
+     */
+    private boolean insertRows(int firstRow, int endRow) {
+        modelRowCount = endRow + 1;
+        sortedRows.grow(firstRow, modelRowCount);
+        filteredRows.grow(firstRow, modelRowCount);
+
+        int insertedCount = endRow - firstRow + 1;
+        batch = ensureCapacity(batch, insertedCount);
+        for (int i = 0; i < insertedCount; i++) {
+            batch[i] = firstRow + i;
+        }
+        if (sortColumn >= 0) {
+            sort(batch, insertedCount);
+        }
+        sortedRows.merge(batch, insertedCount);
+        if (view == sortedRows) {
+            return true;
+        }
+
+        // Keep the inserted rows matching the filter, still in sort order
+        int matchingCount = 0;
+        for (int i = 0; i < insertedCount; i++) {
+            if (filter.matches(model.getDevice(batch[i]))) {
+                batch[matchingCount++] = batch[i];
+            }
+        }
+        if (matchingCount > 0) {
+            filteredRows.merge(batch, matchingCount);
+            return true;
+        }
+
+        return false;
+    }
+
+    private void update(int firstRow, int endRow) {
+        int rowCount = inBatch ? batchRowCount : modelRowCount;
+        if (endRow >= rowCount || endRow < firstRow
+                || endRow - firstRow + 1 > Math.max(INSERTION_SORT_THRESHOLD, modelRowCount / FULL_SORT_DIVISOR)) {
+            allRowsChanged();
+            return;
+        }
+        if (inBatch) {
+            // Rows inserted by the batch are placed with their latest values once it is finished
+            for (int row = firstRow; row <= Math.min(endRow, modelRowCount - 1); row++) {
+                if (!batchUpdatedRows.get(row)) {
+                    batchUpdatedRows.set(row);
+                    batchUpdatedRowCount++;
+                }
+            }
+            if (batchUpdatedRowCount > Math.max(INSERTION_SORT_THRESHOLD, modelRowCount / FULL_SORT_DIVISOR)) {
+                batchChangedAllRows = true;
+            }
+            return;
+        }
+        boolean changed = false;
+        for (int row = firstRow; row <= endRow; row++) {
+            changed |= updateRow(row);
+        }
+        if (changed) {
+            fireRowSorterChanged(null);
+        }
+    }
+
+    /**
+     * Moves an updated row to its place in sort order, and among the filtered rows.
+     *
+     * @return whether the view changed
+     */
+    private boolean updateRow(int row) {
+        boolean changed = sortedRows.moveIfOutOfOrder(row);
+        if (view != sortedRows) {
+            changed |= updateFilteredRows(row);
+        }
+
+        return changed;
+    }
+
+    /**
+     * Places several updated rows at once: they are taken out, sorted on their own and merged back in, since any of them
+     * may be out of order with the others.
+     */
+    private void updateRows(BitSet rows, int rowCount) {
+        batch = ensureCapacity(batch, rowCount);
+        int count = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            batch[count++] = row;
+        }
+        if (sortColumn >= 0) {
+            sort(batch, count);
+        }
+        sortedRows.removeAll(rows);
+        sortedRows.merge(batch, count);
+        if (view == sortedRows) {
+            return;
+        }
+        filteredRows.removeAll(rows);
+        int matchingCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (filter.matches(model.getDevice(batch[i]))) {
+                batch[matchingCount++] = batch[i];
+            }
+        }
+        filteredRows.merge(batch, matchingCount);
+    }
+
+    /**
+     * Moves an updated row to its place among the filtered rows, shows it or hides it as the filter dictates.
+     *
+     * @return whether the filtered rows changed
+     */
+    private boolean updateFilteredRows(int modelRow) {
+        boolean visible = filteredRows.positions[modelRow] >= 0;
+        if (filter.matches(model.getDevice(modelRow))) {
+            if (visible) {
+                return filteredRows.moveIfOutOfOrder(modelRow);
+            }
+            filteredRows.insert(modelRow);
+            return true;
+        }
+        if (visible) {
+            filteredRows.remove(modelRow);
+            return true;
+        }
+
+        return false;
+    }
+
+    private void rebuild() {
+        modelRowCount = model.getRowCount();
+        sortedRows.clear(modelRowCount);
+        for (int row = 0; row < modelRowCount; row++) {
+            sortedRows.append(row);
+        }
+        if (sortColumn >= 0) {
+            sortedRows.sort();
+        }
+        applyFilter();
+    }
+
+    private void applyFilter() {
+        filteredRows.clear(modelRowCount);
+        if (filter.isEmpty()) {
+            view = sortedRows;
+            return;
+        }
+        for (int i = 0; i < sortedRows.count; i++) {
+            int row = sortedRows.rows[i];
+            if (filter.matches(model.getDevice(row))) {
+                filteredRows.append(row);
+            }
+        }
+        view = filteredRows;
+    }
+
+    private void sort(int[] rows, int count) {
+        sortBuffer = ensureCapacity(sortBuffer, count);
+        mergeSort(rows, 0, count);
+    }
+
+    private void mergeSort(int[] rows, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && compare(rows[j], row) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, from, middle);
+        mergeSort(rows, middle, to);
+        if (compare(rows[middle - 1], rows[middle]) < 0) {
+            return;
+        }
+        System.arraycopy(rows, from, sortBuffer, from, to - from);
+        int left = from;
+        int right = middle;
+        int writeIndex = from;
+        while (left < middle && right < to) {
+            rows[writeIndex++] = compare(sortBuffer[left], sortBuffer[right]) <= 0 ? sortBuffer[left++] : sortBuffer[right++];
+        }
+        System.arraycopy(sortBuffer, left, rows, writeIndex, middle - left);
+        writeIndex += middle - left;
+        System.arraycopy(sortBuffer, right, rows, writeIndex, to - right);
+    }
+
+    /**
+     * Compares two rows of the model, never considering distinct rows equal.
+     */
+    private int compare(int modelRow1, int modelRow2) {
+        int result = sortColumn < 0 ? 0 : compareColumn(model.getDevice(modelRow1), model.getDevice(modelRow2));
+        if (descending) {
+            result = -result;
+        }
+
+        return result != 0 ? result : Integer.compare(modelRow1, modelRow2);
+    }
+
+    private int compareColumn(Device device1, Device device2) {
+        return switch (sortColumn) {
+            case DeviceTableModel.IP_ADDRESS_COLUMN -> Long.compare(device1.getAddress(), device2.getAddress());
+            case DeviceTableModel.HOSTNAME_COLUMN -> String.CASE_INSENSITIVE_ORDER.compare(device1.getHostname(), device2.getHostname());
+            case DeviceTableModel.OPEN_PORTS_COLUMN -> comparePorts(device1.getOpenPorts(), device2.getOpenPorts());
+            case DeviceTableModel.MAC_ADDRESS_COLUMN -> String.CASE_INSENSITIVE_ORDER.compare(device1.getMacAddress(), device2.getMacAddress());
+            case DeviceTableModel.VENDOR_COLUMN -> String.CASE_INSENSITIVE_ORDER.compare(device1.getVendor(), device2.getVendor());
+            case DeviceTableModel.STATUS_COLUMN -> device1.getStatus().compareTo(device2.getStatus());
+            default -> 0;
+        };
+    }
+
+    /**
+     * Compares port sets port by port, in ascending order, so devices sharing their lowest ports end up together.
+     */
+    private static int comparePorts(PortSet ports1, PortSet ports2) {
+        int size = Math.min(ports1.size(), ports2.size());
+        for (int i = 0; i < size; i++) {
+            int result = Integer.compare(ports1.get(i), ports2.get(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+
+        return Integer.compare(ports1.size(), ports2.size());
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= model.getColumnCount()) {
+            throw new IndexOutOfBoundsException("Invalid column: " + column);
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    /**
+     * Model rows in sort order, with the position of every row so it can be found without comparing.
+     */
+    private final class RowOrder {
+
+        private int[] rows = new int[64];
+        private int count;
+        // -1 for rows that are not part of this order
+        private int[] positions = new int[64];
+
+        private void clear(int rowCount) {
+            positions = ensureCapacity(positions, rowCount);
+            Arrays.fill(positions, 0, rowCount, -1);
+            count = 0;
+        }
+
+        private void grow(int fromRow, int rowCount) {
+            positions = ensureCapacity(positions, rowCount);
+            Arrays.fill(positions, fromRow, rowCount, -1);
+        }
+
+        private void append(int row) {
+            rows = ensureCapacity(rows, count + 1);
+            positions[row] = count;
+            rows[count++] = row;
+        }
+
+        private void sort() {
+            DeviceRowSorter.this.sort(rows, count);
+            updatePositions(0, count);
+        }
+
+        /**
+         * Merges rows in sort order into this order, from the back so rows ahead of the first merged one stay put.
+         */
+        private void merge(int[] sortedBatch, int batchCount) {
+            rows = ensureCapacity(rows, count + batchCount);
+            int index = count - 1;
+            int batchIndex = batchCount - 1;
+            int writeIndex = count + batchCount - 1;
+            while (batchIndex >= 0) {
+                if (index >= 0 && compare(rows[index], sortedBatch[batchIndex]) > 0) {
+                    rows[writeIndex--] = rows[index--];
+                } else {
+                    rows[writeIndex--] = sortedBatch[batchIndex--];
+                }
+            }
+            count += batchCount;
+            updatePositions(index + 1, count);
+        }
+
+        private void insert(int row) {
+            int position = insertionPoint(row);
+            rows = ensureCapacity(rows, count + 1);
+            System.arraycopy(rows, position, rows, position + 1, count - position);
+            rows[position] = row;
+            count++;
+            updatePositions(position, count);
+        }
+
+        private void remove(int row) {
+            int position = positions[row];
+            System.arraycopy(rows, position + 1, rows, position, count - position - 1);
+            count--;
+            positions[row] = -1;
+            updatePositions(position, count);
+        }
+
+        /**
+         * Removes the given rows that are part of this order, keeping the others in order.
+         */
+        private void removeAll(BitSet removedRows) {
+            int firstRemoved = count;
+            int writeIndex = 0;
+            for (int position = 0; position < count; position++) {
+                int row = rows[position];
+                if (removedRows.get(row)) {
+                    positions[row] = -1;
+                    firstRemoved = Math.min(firstRemoved, position);
+                } else {
+                    rows[writeIndex++] = row;
+                }
+            }
+            count = writeIndex;
+            // Rows ahead of the first removed one stay put
+            updatePositions(Math.min(firstRemoved, count), count);
+        }
+
+        /**
+         * @return whether the row was moved, false when it is still in order with its neighbours
+         */
+        private boolean moveIfOutOfOrder(int row) {
+            int position = positions[row];
+            if ((position == 0 || compare(rows[position - 1], row) < 0)
+                    && (position == count - 1 || compare(row, rows[position + 1]) < 0)) {
+                return false;
+            }
+            System.arraycopy(rows, position + 1, rows, position, count - position - 1);
+            count--;
+            int newPosition = insertionPoint(row);
+            System.arraycopy(rows, newPosition, rows, newPosition + 1, count - newPosition);
+            rows[newPosition] = row;
+            count++;
+            updatePositions(Math.min(position, newPosition), Math.max(position, newPosition) + 1);
+
+            return true;
+        }
+
+        private int insertionPoint(int row) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(rows[middle], row) > 0) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+
+            return low;
+        }
+
+        private void updatePositions(int from, int to) {
+            for (int position = from; position < to; position++) {
+                positions[rows[position]] = position;
+            }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(rows, count);
+        }
+    }
+}
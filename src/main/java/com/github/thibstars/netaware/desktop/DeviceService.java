@@ -1,15 +1,37 @@
 package com.github.thibstars.netaware.desktop;
 
+import java.util.concurrent.Flow;
+
 /**
  * Service contract for discovering devices.
  *
  * @author Thibault Helsmoortel
  */
-public interface DeviceService {
+public interface DeviceService extends AutoCloseable {
+
+    /**
+     * Method starting the scan to discover devices, blocking until the scan has finished.
+     *
+     * @param subscriber the subscriber receiving the results and progress of the scan
+     */
+    default void discover(Flow.Subscriber<? super DiscoveryUpdate> subscriber) {
+        discoverAsync(subscriber).completion().join();
+    }
 
     /**
-     * Method starting the scan to discover devices.
+     * Method starting the scan to discover devices in the background.
+     * The subscriber is subscribed before the scan starts, so it receives every result.
+     *
+     * @param subscriber the subscriber receiving the results and progress of the scan
+     * @return the handle to the running scan
      */
-    void discover();
+    Discovery discoverAsync(Flow.Subscriber<? super DiscoveryUpdate> subscriber);
 
+    /**
+     * Releases what the discoveries of this service share, once none is running anymore.
+     * No discoveries can be started afterwards.
+     */
+    @Override
+    default void close() {
+    }
 }
@@ -0,0 +1,40 @@
+package com.github.thibstars.netaware.desktop;
+
+/**
+ * The status of a device in the {@link DeviceTableModel}.
+ *
+ * @author Thibault Helsmoortel
+ */
+public enum DeviceStatus {
+
+    /**
+     * Loaded from the {@link DeviceInventory}, not confirmed by the running discovery yet.
+     */
+    KNOWN("Last known"),
+
+    /**
+     * Found by the running discovery.
+     */
+    UP("Up"),
+
+    /**
+     * Found by a rescan while not present in the {@link DeviceInventory}.
+     */
+    NEW("New"),
+
+    /**
+     * Present in the {@link DeviceInventory} but not found anymore by a rescan.
+     */
+    GONE("Gone");
+
+    private final String label;
+
+    DeviceStatus(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
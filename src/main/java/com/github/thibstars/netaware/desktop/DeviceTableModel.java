@@ -0,0 +1,358 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model holding the discovered devices, one {@link Device} per row.
+ * Rows are indexed by IP address so updates for a known device do not require a table scan.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class DeviceTableModel extends AbstractTableModel {
+
+    public static final int IP_ADDRESS_COLUMN = 0;
+    public static final int HOSTNAME_COLUMN = 1;
+    public static final int OPEN_PORTS_COLUMN = 2;
+    public static final int MAC_ADDRESS_COLUMN = 3;
+    public static final int VENDOR_COLUMN = 4;
+    public static final int STATUS_COLUMN = 5;
+
+    private static final String[] COLUMN_NAMES = {"IP Address", "Hostname", "Open Ports", "MAC Address", "Vendor", "Status"};
+
+    /**
+     * Listener told when the model starts and finishes applying a batch of changes, so it can handle the events
+     * of the batch at once rather than one by one. Batches do not nest.
+     */
+    public interface BatchListener {
+
+        /**
+         * Called before the first event of a batch.
+         */
+        void batchStarted();
+
+        /**
+         * Called after the last event of a batch, even when applying it failed.
+         */
+        void batchFinished();
+    }
+
+    private final transient List<Device> devices = new ArrayList<>();
+    private final transient List<BatchListener> batchListeners = new ArrayList<>();
+    private final transient Map<String, Integer> rowsByIpAddress = new HashMap<>();
+    // Rows from this index on are not announced yet, changes to them are part of their insertion event
+    private int firstUnannouncedRow = Integer.MAX_VALUE;
+
+    /**
+     * Applies a batch of updates. New rows are announced with a single insertion event for the whole batch,
+     * once the updates of the batch are applied to them, so a sorted view can place them right away.
+     *
+     * @param updates the updates to apply, in discovery order
+     */
+    public void apply(List<DeviceUpdate> updates) {
+        batchListeners.forEach(BatchListener::batchStarted);
+        try {
+            int firstInsertedRow = devices.size();
+            for (DeviceUpdate update : updates) {
+                if (update instanceof DeviceUpdate.DeviceFound) {
+                    insertDevice(update.ipAddress());
+                }
+            }
+            int lastInsertedRow = devices.size() - 1;
+
+            firstUnannouncedRow = firstInsertedRow;
+            try {
+                applyChanges(updates);
+            } finally {
+                firstUnannouncedRow = Integer.MAX_VALUE;
+            }
+            if (lastInsertedRow >= firstInsertedRow) {
+                fireTableRowsInserted(firstInsertedRow, lastInsertedRow);
+            }
+        } finally {
+            batchListeners.forEach(BatchListener::batchFinished);
+        }
+    }
+
+    /**
+     * Adds a listener told about the batches applied through {@link #apply(List)}.
+     *
+     * @param listener the listener
+     */
+    public void addBatchListener(BatchListener listener) {
+        batchListeners.add(listener);
+    }
+
+    public void removeBatchListener(BatchListener listener) {
+        batchListeners.remove(listener);
+    }
+
+    private void applyChanges(List<DeviceUpdate> updates) {
+        for (DeviceUpdate update : updates) {
+            switch (update) {
+                // Inserted above, a device loaded from the inventory is confirmed
+                case DeviceUpdate.DeviceFound deviceFound -> setStatus(deviceFound.ipAddress(), DeviceStatus.UP);
+                case DeviceUpdate.PortFound portFound -> addOpenPort(portFound.ipAddress(), portFound.port());
+                case DeviceUpdate.ServiceFound serviceFound -> setService(serviceFound.ipAddress(), serviceFound.port(), serviceFound.service());
+                case DeviceUpdate.MacFound macFound -> setMacAddress(macFound.ipAddress(), macFound.macAddress(), macFound.vendor());
+                case DeviceUpdate.HostnameFound hostnameFound -> setHostname(hostnameFound.ipAddress(), hostnameFound.hostname());
+                case DeviceUpdate.DeviceAppeared deviceAppeared -> setStatus(deviceAppeared.ipAddress(), DeviceStatus.NEW);
+                case DeviceUpdate.DeviceGone deviceGone -> setStatus(deviceGone.ipAddress(), DeviceStatus.GONE);
+                case DeviceUpdate.PortsChanged portsChanged -> changePorts(portsChanged);
+            }
+        }
+    }
+
+    /**
+     * Adds a row per device of the inventory, showing its last known state until it is found again.
+     * Devices already present are reconciled with their entry: a device found as new turns out to be known and is up,
+     * a device not confirmed by a discovery yet also shows the open ports and MAC address of the entry, and devices found
+     * by a discovery only take the MAC address of the entry when they have none yet. Gone devices stay gone.
+     * All rows are added and reconciled as a single batch.
+     *
+     * @param entries     the devices of the inventory
+     * @param ouiRegistry the registry naming the manufacturers of the devices
+     */
+    public void addKnownDevices(List<InventoryEntry> entries, OuiRegistry ouiRegistry) {
+        batchListeners.forEach(BatchListener::batchStarted);
+        try {
+            int firstInsertedRow = devices.size();
+            // An entry listed twice reconciles a row inserted by this call, its changes are part of the insertion event
+            firstUnannouncedRow = firstInsertedRow;
+            try {
+                for (InventoryEntry entry : entries) {
+                    int rowCount = devices.size();
+                    int row = insertDevice(entry.ipAddress());
+                    if (row == rowCount) {
+                        Device device = devices.get(row);
+                        device.setStatus(DeviceStatus.KNOWN);
+                        device.setMacAddress(entry.macAddress());
+                        device.setVendor(ouiRegistry.lookup(entry.macAddress()));
+                        for (int port : entry.openPorts()) {
+                            device.addOpenPort(port);
+                        }
+                    } else {
+                        reconcile(row, entry, ouiRegistry);
+                    }
+                }
+            } finally {
+                firstUnannouncedRow = Integer.MAX_VALUE;
+            }
+            int lastInsertedRow = devices.size() - 1;
+            if (lastInsertedRow >= firstInsertedRow) {
+                fireTableRowsInserted(firstInsertedRow, lastInsertedRow);
+            }
+        } finally {
+            batchListeners.forEach(BatchListener::batchFinished);
+        }
+    }
+
+    /**
+     * Reconciles a device already present with its entry, see {@link #addKnownDevices(List, OuiRegistry)}.
+     */
+    private void reconcile(int row, InventoryEntry entry, OuiRegistry ouiRegistry) {
+        Device device = devices.get(row);
+        boolean confirmed = device.getStatus() != DeviceStatus.KNOWN;
+        if (device.getStatus() == DeviceStatus.NEW) {
+            setStatus(entry.ipAddress(), DeviceStatus.UP);
+        }
+        if (!confirmed) {
+            for (int port : entry.openPorts()) {
+                addOpenPort(entry.ipAddress(), port);
+            }
+        }
+        if (!entry.macAddress().isEmpty() && !entry.macAddress().equals(device.getMacAddress())
+                && (!confirmed || device.getMacAddress().isEmpty())) {
+            setMacAddress(entry.ipAddress(), entry.macAddress(), ouiRegistry.lookup(entry.macAddress()));
+        }
+    }
+
+    /**
+     * Adds a row for the device with the given IP address, unless that device is already present.
+     *
+     * @param ipAddress the IP address of the device
+     * @return the row index of the device
+     */
+    public int addDevice(String ipAddress) {
+        int rowCount = devices.size();
+        int row = insertDevice(ipAddress);
+        if (row == rowCount) {
+            fireTableRowsInserted(row, row);
+        }
+
+        return row;
+    }
+
+    private int insertDevice(String ipAddress) {
+        Integer existingRow = rowsByIpAddress.get(ipAddress);
+        if (existingRow != null) {
+            return existingRow;
+        }
+
+        int row = devices.size();
+        devices.add(new Device(ipAddress));
+        rowsByIpAddress.put(ipAddress, row);
+
+        return row;
+    }
+
+    /**
+     * Adds an open port to the device with the given IP address. Unknown devices are ignored.
+     *
+     * @param ipAddress the IP address of the device
+     * @param port      the open TCP/IP port
+     */
+    public void addOpenPort(String ipAddress, int port) {
+        Integer row = rowsByIpAddress.get(ipAddress);
+        if (row != null && devices.get(row).addOpenPort(port)) {
+            cellUpdated(row, OPEN_PORTS_COLUMN);
+        }
+    }
+
+    /**
+     * Sets the service listening on an open port of the device with the given IP address.
+     * Unknown devices and ports not known to be open are ignored.
+     *
+     * @param ipAddress the IP address of the device
+     * @param port      the open TCP/IP port
+     * @param service   the service listening on the port
+     */
+    public void setService(String ipAddress, int port, String service) {
+        Integer row = rowsByIpAddress.get(ipAddress);
+        if (row != null && devices.get(row).getOpenPorts().setLabel(port, service)) {
+            cellUpdated(row, OPEN_PORTS_COLUMN);
+        }
+    }
+
+    /**
+     * Sets the MAC address and manufacturer of the device with the given IP address. Unknown devices are ignored.
+     *
+     * @param ipAddress  the IP address of the device
+     * @param macAddress the MAC address of the device
+     * @param vendor     the manufacturer the MAC address is assigned to, empty when unknown
+     */
+    public void setMacAddress(String ipAddress, String macAddress, String vendor) {
+        Integer row = rowsByIpAddress.get(ipAddress);
+        if (row != null) {
+            Device device = devices.get(row);
+            device.setMacAddress(macAddress);
+            cellUpdated(row, MAC_ADDRESS_COLUMN);
+            if (!device.getVendor().equals(vendor)) {
+                device.setVendor(vendor);
+                cellUpdated(row, VENDOR_COLUMN);
+            }
+        }
+    }
+
+    /**
+     * Sets the hostname of the device with the given IP address. Unknown devices are ignored.
+     *
+     * @param ipAddress the IP address of the device
+     * @param hostname  the hostname of the device
+     */
+    public void setHostname(String ipAddress, String hostname) {
+        Integer row = rowsByIpAddress.get(ipAddress);
+        if (row != null && !devices.get(row).getHostname().equals(hostname)) {
+            devices.get(row).setHostname(hostname);
+            cellUpdated(row, HOSTNAME_COLUMN);
+        }
+    }
+
+    /**
+     * Sets the status of the device with the given IP address. Unknown devices are ignored.
+     *
+     * @param ipAddress the IP address of the device
+     * @param status    the status of the device
+     */
+    public void setStatus(String ipAddress, DeviceStatus status) {
+        Integer row = rowsByIpAddress.get(ipAddress);
+        if (row != null && devices.get(row).getStatus() != status) {
+            devices.get(row).setStatus(status);
+            cellUpdated(row, STATUS_COLUMN);
+        }
+    }
+
+    private void cellUpdated(int row, int column) {
+        if (row < firstUnannouncedRow) {
+            fireTableCellUpdated(row, column);
+        }
+    }
+
+    private void changePorts(DeviceUpdate.PortsChanged portsChanged) {
+        Integer row = rowsByIpAddress.get(portsChanged.ipAddress());
+        if (row != null) {
+            Device device = devices.get(row);
+            for (int port : portsChanged.closedPorts()) {
+                device.getOpenPorts().remove(port);
+            }
+            for (int port : portsChanged.openedPorts()) {
+                device.addOpenPort(port);
+            }
+            cellUpdated(row, OPEN_PORTS_COLUMN);
+        }
+    }
+
+    /**
+     * Returns the row index of the device with the given IP address.
+     *
+     * @param ipAddress the IP address of the device
+     * @return the row index, or -1 if the device is not present
+     */
+    public int getRowOf(String ipAddress) {
+        return rowsByIpAddress.getOrDefault(ipAddress, -1);
+    }
+
+    /**
+     * @param row  the row index of the device
+     * @param port the TCP/IP port
+     * @return whether the port is open on the device at the given row
+     */
+    public boolean hasOpenPort(int row, int port) {
+        return devices.get(row).getOpenPorts().contains(port);
+    }
+
+    public Device getDevice(int row) {
+        return devices.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return devices.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return switch (columnIndex) {
+            case OPEN_PORTS_COLUMN -> PortSet.class;
+            case STATUS_COLUMN -> DeviceStatus.class;
+            default -> String.class;
+        };
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Device device = devices.get(rowIndex);
+        return switch (columnIndex) {
+            case IP_ADDRESS_COLUMN -> device.getIpAddress();
+            case HOSTNAME_COLUMN -> device.getHostname();
+            case OPEN_PORTS_COLUMN -> device.getOpenPorts();
+            case MAC_ADDRESS_COLUMN -> device.getMacAddress();
+            case VENDOR_COLUMN -> device.getVendor();
+            case STATUS_COLUMN -> device.getStatus();
+            default -> throw new IndexOutOfBoundsException("Unknown column: " + columnIndex);
+        };
+    }
+}
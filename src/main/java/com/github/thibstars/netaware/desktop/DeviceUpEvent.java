@@ -0,0 +1,23 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.core.Event;
+import java.net.InetAddress;
+
+/**
+ * A device watched by the {@link NetworkMonitor} was found up, either for the first time or after being down.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class DeviceUpEvent extends Event {
+
+    private final InetAddress ipAddress;
+
+    public DeviceUpEvent(Object source, InetAddress ipAddress) {
+        super(source);
+        this.ipAddress = ipAddress;
+    }
+
+    public InetAddress getIpAddress() {
+        return ipAddress;
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A single discovery result to be applied to a {@link DeviceTableModel}.
+ *
+ * @author Thibault Helsmoortel
+ */
+public sealed interface DeviceUpdate extends DiscoveryUpdate {
+
+    /**
+     * @return the IP address of the device this update applies to
+     */
+    String ipAddress();
+
+    /**
+     * A device was found at the given IP address.
+     *
+     * @param ipAddress the IP address of the device
+     */
+    record DeviceFound(String ipAddress) implements DeviceUpdate {
+
+    }
+
+    /**
+     * An open TCP/IP port was found on the device with the given IP address.
+     *
+     * @param ipAddress the IP address of the device
+     * @param port      the open TCP/IP port
+     */
+    record PortFound(String ipAddress, int port) implements DeviceUpdate {
+
+    }
+
+    /**
+     * The service listening on an open TCP/IP port of the device with the given IP address was identified.
+     *
+     * @param ipAddress the IP address of the device
+     * @param port      the open TCP/IP port
+     * @param service   the service, e.g. "SSH OpenSSH_9.6"
+     */
+    record ServiceFound(String ipAddress, int port, String service) implements DeviceUpdate {
+
+    }
+
+    /**
+     * The MAC address of the device with the given IP address was found.
+     *
+     * @param ipAddress  the IP address of the device
+     * @param macAddress the MAC address of the device
+     * @param vendor     the manufacturer the MAC address is assigned to, empty when unknown
+     */
+    record MacFound(String ipAddress, String macAddress, String vendor) implements DeviceUpdate {
+
+    }
+
+    /**
+     * The hostname of the device with the given IP address was resolved.
+     *
+     * @param ipAddress the IP address of the device
+     * @param hostname  the hostname of the device
+     */
+    record HostnameFound(String ipAddress, String hostname) implements DeviceUpdate {
+
+    }
+
+    /**
+     * A device not present in the {@link DeviceInventory} was found by a rescan.
+     *
+     * @param ipAddress the IP address of the device
+     */
+    record DeviceAppeared(String ipAddress) implements DeviceUpdate {
+
+    }
+
+    /**
+     * A device present in the {@link DeviceInventory} was not found anymore by a rescan covering its address.
+     *
+     * @param ipAddress the IP address of the device
+     * @param lastSeen  the last time the device was found
+     */
+    record DeviceGone(String ipAddress, Instant lastSeen) implements DeviceUpdate {
+
+    }
+
+    /**
+     * A rescan found other open ports on a device than the {@link DeviceInventory} holds.
+     *
+     * @param ipAddress   the IP address of the device
+     * @param openedPorts the ports found open that were not open before, in ascending order
+     * @param closedPorts the ports that were open before but were not found open anymore, in ascending order
+     */
+    record PortsChanged(String ipAddress, int[] openedPorts, int[] closedPorts) implements DeviceUpdate {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PortsChanged other
+                    && Objects.equals(ipAddress, other.ipAddress)
+                    && Arrays.equals(openedPorts, other.openedPorts)
+                    && Arrays.equals(closedPorts, other.closedPorts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ipAddress, Arrays.hashCode(openedPorts), Arrays.hashCode(closedPorts));
+        }
+
+        @Override
+        public String toString() {
+            return "PortsChanged[ipAddress=" + ipAddress + ", openedPorts=" + Arrays.toString(openedPorts)
+                    + ", closedPorts=" + Arrays.toString(closedPorts) + "]";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Buffer collecting {@link DeviceUpdate}s from scanner threads and applying them to a {@link DeviceTableModel}
+ * on the Event Dispatch Thread.
+ * Updates are flushed once per frame interval, at most a maximum batch size at a time,
+ * so a burst of discoveries results in a few batched table updates rather than one repaint per event.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class DeviceUpdateBuffer {
+
+    public static final Duration DEFAULT_FRAME_INTERVAL = Duration.ofMillis(50);
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    private final DeviceTableModel tableModel;
+    private final int maxBatchSize;
+    private final Queue<DeviceUpdate> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingUpdateCount = new AtomicInteger();
+    private final List<DeviceUpdate> batch = new ArrayList<>();
+    private final Timer flushTimer;
+    private volatile ScanMetrics scanMetrics;
+
+    public DeviceUpdateBuffer(DeviceTableModel tableModel) {
+        this(tableModel, DEFAULT_FRAME_INTERVAL, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public DeviceUpdateBuffer(DeviceTableModel tableModel, Duration frameInterval, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be strictly positive.");
+        }
+        this.tableModel = tableModel;
+        this.maxBatchSize = maxBatchSize;
+        this.flushTimer = new Timer((int) frameInterval.toMillis(), event -> flush());
+        this.flushTimer.setCoalesce(true);
+    }
+
+    /**
+     * Queues an update to be applied to the table model. Safe to call from any thread.
+     *
+     * @param update the update to apply
+     */
+    public void offer(DeviceUpdate update) {
+        pendingUpdates.offer(update);
+        pendingUpdateCount.incrementAndGet();
+    }
+
+    /**
+     * Starts flushing queued updates to the table model.
+     */
+    public void start() {
+        start(null);
+    }
+
+    /**
+     * Starts flushing queued updates to the table model, recording the table updates in the given metrics.
+     *
+     * @param scanMetrics the metrics of the discovery producing the updates, or null to record nothing
+     */
+    public void start(ScanMetrics scanMetrics) {
+        this.scanMetrics = scanMetrics;
+        SwingUtilities.invokeLater(flushTimer::start);
+    }
+
+    /**
+     * Stops flushing queued updates, after applying the updates that are still pending.
+     */
+    public void stop() {
+        SwingUtilities.invokeLater(() -> {
+            flushTimer.stop();
+            while (!pendingUpdates.isEmpty()) {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * @return the amount of updates waiting to be applied
+     */
+    public int getPendingUpdateCount() {
+        return pendingUpdateCount.get();
+    }
+
+    private void flush() {
+        ScanMetrics metrics = scanMetrics;
+        if (metrics != null) {
+            metrics.recordQueueDepth("table updates", pendingUpdateCount.get());
+        }
+        DeviceUpdate update;
+        while (batch.size() < maxBatchSize && (update = pendingUpdates.poll()) != null) {
+            batch.add(update);
+        }
+        if (!batch.isEmpty()) {
+            pendingUpdateCount.addAndGet(-batch.size());
+            long start = System.nanoTime();
+            tableModel.apply(batch);
+            if (metrics != null) {
+                metrics.record(ScanStage.UI_APPLY, batch.size() + " updates", System.nanoTime() - start, false);
+            }
+            StartupReport.reached(StartupReport.FIRST_RESULT);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Handle to a device discovery running in the background.
+ * Results and progress are published as {@link DiscoveryUpdate}s, the discovery can be awaited through its completion
+ * and aborted at any time.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class Discovery {
+
+    private final SubmissionPublisher<DiscoveryUpdate> publisher;
+    private final ExecutorService executorService;
+    private final ScanMetrics metrics;
+    // Only set when the discovery is checked against an inventory
+    private final InventoryRescan inventoryRescan;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    Discovery(SubmissionPublisher<DiscoveryUpdate> publisher, ExecutorService executorService, ScanMetrics metrics,
+            InventoryRescan inventoryRescan) {
+        this.publisher = publisher;
+        this.executorService = executorService;
+        this.metrics = metrics;
+        this.inventoryRescan = inventoryRescan;
+    }
+
+    /**
+     * @return the publisher of the results and progress of this discovery
+     */
+    public Flow.Publisher<DiscoveryUpdate> updates() {
+        return publisher;
+    }
+
+    /**
+     * @return the metrics of this discovery
+     */
+    public ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return a future completing once the discovery has finished, or cancelled when the discovery is cancelled
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    /**
+     * Aborts the discovery. Address blocks that have not been scanned yet are skipped
+     * and the threads performing the scan are interrupted.
+     */
+    public void cancel() {
+        if (completion.cancel(true)) {
+            metrics.finish();
+            executorService.shutdownNow();
+            publisher.close();
+        }
+    }
+
+    public boolean isCancelled() {
+        return completion.isCancelled();
+    }
+
+    /**
+     * Publishes an update to the subscribers of this discovery. Updates arriving after the discovery ended are dropped.
+     *
+     * @param update the update to publish
+     */
+    void publish(DiscoveryUpdate update) {
+        if (!publisher.isClosed()) {
+            if (update instanceof DeviceUpdate deviceUpdate) {
+                metrics.recordFound(deviceUpdate);
+                if (inventoryRescan != null) {
+                    inventoryRescan.record(deviceUpdate);
+                }
+            }
+            try {
+                publisher.submit(update);
+            } catch (IllegalStateException e) {
+                // Closed concurrently, the discovery has ended
+            }
+        }
+    }
+
+    /**
+     * Marks the discovery as finished, releasing its threads and completing its subscribers.
+     *
+     * @param throwable the failure that ended the discovery, or null if it ended normally
+     */
+    void finish(Throwable throwable) {
+        if (!completion.isDone()) {
+            metrics.finish();
+        }
+        executorService.shutdown();
+        if (throwable == null) {
+            publisher.close();
+            completion.complete(null);
+        } else {
+            publisher.closeExceptionally(throwable);
+            completion.completeExceptionally(throwable);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.thibstars.netaware.desktop;
+
+/**
+ * Progress of a running {@link Discovery}, expressed in scanned address blocks.
+ *
+ * @param completedBlocks the amount of address blocks that have been scanned
+ * @param totalBlocks     the total amount of address blocks to scan
+ * @author Thibault Helsmoortel
+ */
+public record DiscoveryProgress(int completedBlocks, int totalBlocks) implements DiscoveryUpdate {
+
+    /**
+     * @return the completed fraction of the discovery, between 0 and 1
+     */
+    public double fraction() {
+        return totalBlocks == 0 ? 1 : (double) completedBlocks / totalBlocks;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.thibstars.netaware.desktop;
+
+/**
+ * An item published while a {@link Discovery} is running: either a discovery result or a progress report.
+ *
+ * @author Thibault Helsmoortel
+ */
+public sealed interface DiscoveryUpdate permits DeviceUpdate, DiscoveryProgress {
+
+}
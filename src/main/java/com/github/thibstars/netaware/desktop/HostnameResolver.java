@@ -0,0 +1,168 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Resolver looking up the hostnames of IP addresses through reverse DNS, in the background.
+ * <p>
+ * Lookups run on their own threads, at most a maximum amount at a time, so a slow resolver never holds up a scan.
+ * Results are cached for a time to live, addresses without hostname for a shorter one, in a cache of bounded size
+ * evicting the least recently used address first. An address is cached from the moment its lookup starts, so concurrent
+ * requests for the same address share a single lookup.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class HostnameResolver implements AutoCloseable {
+
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(30);
+    public static final Duration DEFAULT_NEGATIVE_TIME_TO_LIVE = Duration.ofMinutes(2);
+    public static final int DEFAULT_MAX_CONCURRENT_LOOKUPS = 16;
+
+    private final Function<InetAddress, String> lookup;
+    private final int cacheSize;
+    private final long timeToLiveNanos;
+    private final long negativeTimeToLiveNanos;
+    private final Semaphore lookupPermits;
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, CachedHostname> cache;
+
+    /**
+     * Creates a resolver looking up canonical hostnames with the default cache and concurrency settings.
+     */
+    public HostnameResolver() {
+        this(InetAddress::getCanonicalHostName, DEFAULT_CACHE_SIZE, DEFAULT_TIME_TO_LIVE, DEFAULT_NEGATIVE_TIME_TO_LIVE,
+                DEFAULT_MAX_CONCURRENT_LOOKUPS);
+    }
+
+    /**
+     * @param lookup               the lookup of the hostname of an address, returning the address itself when it has none
+     * @param cacheSize            the maximum amount of addresses cached
+     * @param timeToLive           the time a hostname is cached
+     * @param negativeTimeToLive   the time the absence of a hostname is cached
+     * @param maxConcurrentLookups the maximum amount of lookups running at the same time
+     */
+    public HostnameResolver(Function<InetAddress, String> lookup, int cacheSize, Duration timeToLive,
+            Duration negativeTimeToLive, int maxConcurrentLookups) {
+        if (cacheSize < 1 || maxConcurrentLookups < 1) {
+            throw new IllegalArgumentException("Cache size and concurrent lookups must be strictly positive.");
+        }
+        this.lookup = lookup;
+        this.cacheSize = cacheSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.negativeTimeToLiveNanos = negativeTimeToLive.toNanos();
+        this.lookupPermits = new Semaphore(maxConcurrentLookups);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedHostname> eldest) {
+                return size() > HostnameResolver.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a resolver configured through the {@code netaware.dns.cacheSize}, {@code netaware.dns.ttl} and
+     * {@code netaware.dns.negativeTtl} (seconds) and {@code netaware.dns.concurrency} system properties.
+     *
+     * @param lookup the lookup of the hostname of an address, returning the address itself when it has none
+     * @return the configured resolver
+     */
+    public static HostnameResolver fromSystemProperties(Function<InetAddress, String> lookup) {
+        return new HostnameResolver(
+                lookup,
+                Integer.getInteger("netaware.dns.cacheSize", DEFAULT_CACHE_SIZE),
+                Duration.ofSeconds(Long.getLong("netaware.dns.ttl", DEFAULT_TIME_TO_LIVE.toSeconds())),
+                Duration.ofSeconds(Long.getLong("netaware.dns.negativeTtl", DEFAULT_NEGATIVE_TIME_TO_LIVE.toSeconds())),
+                Integer.getInteger("netaware.dns.concurrency", DEFAULT_MAX_CONCURRENT_LOOKUPS)
+        );
+    }
+
+    /**
+     * Resolves the hostname of an address, from the cache when possible.
+     *
+     * @param ipAddress the address
+     * @return a future completing with the hostname, or with an empty string when the address has no hostname
+     * @throws IllegalStateException when the resolver is closed
+     */
+    public CompletableFuture<String> resolve(InetAddress ipAddress) {
+        String hostAddress = ipAddress.getHostAddress();
+        synchronized (cache) {
+            if (executorService.isShutdown()) {
+                throw new IllegalStateException("Resolver is closed.");
+            }
+            // Looked up and cached under the same lock, so concurrent requests always share the entry of the first one
+            return cache.compute(hostAddress, (address, cachedHostname) ->
+                    cachedHostname == null || cachedHostname.isExpired() ? lookUpAsync(ipAddress, hostAddress) : cachedHostname
+            ).hostname();
+        }
+    }
+
+    /**
+     * Stops the lookups in flight, completing them without hostname. Resolving afterwards fails.
+     */
+    @Override
+    public void close() {
+        synchronized (cache) {
+            // Completed first, lookups that were already waiting for an answer may still finish when interrupted
+            cache.values().forEach(cachedHostname -> cachedHostname.hostname().complete(""));
+            executorService.shutdownNow();
+        }
+    }
+
+    private CachedHostname lookUpAsync(InetAddress ipAddress, String hostAddress) {
+        CachedHostname cachedHostname = new CachedHostname(new CompletableFuture<>());
+        executorService.execute(() -> {
+            String hostname = lookUp(ipAddress, hostAddress);
+            cachedHostname.expiresAtNanos = System.nanoTime() + (hostname.isEmpty() ? negativeTimeToLiveNanos : timeToLiveNanos);
+            cachedHostname.hostname().complete(hostname);
+        });
+
+        return cachedHostname;
+    }
+
+    private String lookUp(InetAddress ipAddress, String hostAddress) {
+        try {
+            lookupPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+        try {
+            String hostname = lookup.apply(ipAddress);
+            return hostname == null || hostname.equals(hostAddress) ? "" : hostname;
+        } catch (RuntimeException e) {
+            return "";
+        } finally {
+            lookupPermits.release();
+        }
+    }
+
+    /**
+     * A hostname in the cache, from the moment its lookup starts. Only expires once the lookup has completed.
+     */
+    private static final class CachedHostname {
+
+        private final CompletableFuture<String> hostname;
+        private volatile long expiresAtNanos;
+
+        private CachedHostname(CompletableFuture<String> hostname) {
+            this.hostname = hostname;
+        }
+
+        private CompletableFuture<String> hostname() {
+            return hostname;
+        }
+
+        private boolean isExpired() {
+            return hostname.isDone() && expiresAtNanos - System.nanoTime() < 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The last known state of a device, as stored in the {@link DeviceInventory}.
+ * Entries are equal when their fields are, comparing the open ports by content.
+ *
+ * @param ipAddress  the IP address of the device
+ * @param macAddress the MAC address of the device, empty when unknown
+ * @param openPorts  the open TCP/IP ports of the device, in ascending order
+ * @param firstSeen  the first time the device was found
+ * @param lastSeen   the last time the device was found
+ * @author Thibault Helsmoortel
+ */
+public record InventoryEntry(String ipAddress, String macAddress, int[] openPorts, Instant firstSeen, Instant lastSeen) {
+
+    public InventoryEntry {
+        openPorts = openPorts.clone();
+    }
+
+    @Override
+    public int[] openPorts() {
+        return openPorts.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof InventoryEntry other
+                && Objects.equals(ipAddress, other.ipAddress)
+                && Objects.equals(macAddress, other.macAddress)
+                && Arrays.equals(openPorts, other.openPorts)
+                && Objects.equals(firstSeen, other.firstSeen)
+                && Objects.equals(lastSeen, other.lastSeen);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ipAddress, macAddress, Arrays.hashCode(openPorts), firstSeen, lastSeen);
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryEntry[ipAddress=" + ipAddress + ", macAddress=" + macAddress + ", openPorts=" + Arrays.toString(openPorts)
+                + ", firstSeen=" + firstSeen + ", lastSeen=" + lastSeen + "]";
+    }
+}
@@ -0,0 +1,220 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A discovery checked against the {@link DeviceInventory}.
+ * The devices of the inventory within the targets of the discovery are verified first and the results of the discovery
+ * are collected, to report the differences with the inventory as soon as they are known: a device appeared once it is
+ * found, its ports changed once its ports have been scanned and a known device is gone once the block holding its
+ * address has been swept without finding it. Once the discovery has ended, the inventory is updated with the devices found.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class InventoryRescan {
+
+    private final DeviceInventory inventory;
+    private final List<InventoryEntry> knownEntries = new ArrayList<>();
+    private final Map<String, Device> foundDevices = new ConcurrentHashMap<>();
+    // Addresses whose differences were reported already, at most once per device
+    private final Set<String> reportedAddresses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param inventory the inventory to check the discovery against
+     * @param blocks    the blocks the discovery sweeps
+     */
+    public InventoryRescan(DeviceInventory inventory, List<IpBlock> blocks) {
+        this.inventory = inventory;
+        for (InventoryEntry entry : inventory.getEntries()) {
+            int address = Ipv4Addresses.parse(entry.ipAddress());
+            if (blocks.stream().anyMatch(block -> block.contains(address))) {
+                knownEntries.add(entry);
+            }
+        }
+    }
+
+    /**
+     * @return a single address block per known device within the targets of the discovery, to sweep first
+     */
+    public List<IpBlock> getKnownHostBlocks() {
+        return getKnownHostAddresses().stream()
+                .map(address -> new IpBlock(address, 1))
+                .toList();
+    }
+
+    /**
+     * @return the addresses of the known devices within the targets of the discovery, as 32-bit integers
+     */
+    public List<Integer> getKnownHostAddresses() {
+        return knownEntries.stream()
+                .map(entry -> Ipv4Addresses.parse(entry.ipAddress()))
+                .toList();
+    }
+
+    /**
+     * Collects a result of the discovery.
+     *
+     * @param update the result
+     */
+    public void record(DeviceUpdate update) {
+        switch (update) {
+            case DeviceUpdate.DeviceFound deviceFound -> foundDevices.putIfAbsent(deviceFound.ipAddress(), new Device(deviceFound.ipAddress()));
+            case DeviceUpdate.PortFound portFound -> {
+                Device device = foundDevices.get(portFound.ipAddress());
+                if (device != null) {
+                    synchronized (device) {
+                        device.addOpenPort(portFound.port());
+                    }
+                }
+            }
+            case DeviceUpdate.MacFound macFound -> {
+                Device device = foundDevices.get(macFound.ipAddress());
+                if (device != null) {
+                    synchronized (device) {
+                        device.setMacAddress(macFound.macAddress());
+                    }
+                }
+            }
+            case DeviceUpdate.ServiceFound serviceFound -> {
+                // Services are identified again on every discovery
+            }
+            case DeviceUpdate.HostnameFound hostnameFound -> {
+                // Hostnames are resolved again on every discovery
+            }
+            case DeviceUpdate.DeviceAppeared deviceAppeared -> {
+                // Reported by this rescan itself
+            }
+            case DeviceUpdate.DeviceGone deviceGone -> {
+                // Reported by this rescan itself
+            }
+            case DeviceUpdate.PortsChanged portsChanged -> {
+                // Reported by this rescan itself
+            }
+        }
+    }
+
+    /**
+     * Reports a found device that is not part of the inventory, once its {@link DeviceUpdate.DeviceFound} was recorded.
+     *
+     * @param ipAddress the address of the device
+     * @return the device that appeared, empty when the device is known
+     */
+    public List<DeviceUpdate> onDeviceFound(String ipAddress) {
+        if (inventory.get(ipAddress) != null || !reportedAddresses.add(ipAddress)) {
+            return List.of();
+        }
+
+        return List.of(new DeviceUpdate.DeviceAppeared(ipAddress));
+    }
+
+    /**
+     * Reports the changed ports of a known device, once every port of it has been scanned.
+     *
+     * @param ipAddress the address of the device
+     * @return the changed ports, empty when the device is not known or its ports did not change
+     */
+    public List<DeviceUpdate> onPortsScanned(String ipAddress) {
+        Device device = foundDevices.get(ipAddress);
+        InventoryEntry previousEntry = inventory.get(ipAddress);
+        if (device == null || previousEntry == null || !reportedAddresses.add(ipAddress)) {
+            return List.of();
+        }
+
+        return portsChanged(device, previousEntry);
+    }
+
+    /**
+     * Reports the known devices within a block that was swept without finding them.
+     *
+     * @param block the swept block
+     * @return the devices that are gone
+     */
+    public List<DeviceUpdate> onBlockSwept(IpBlock block) {
+        List<DeviceUpdate> deltas = new ArrayList<>();
+        for (InventoryEntry knownEntry : knownEntries) {
+            String ipAddress = knownEntry.ipAddress();
+            if (block.contains(Ipv4Addresses.parse(ipAddress)) && !foundDevices.containsKey(ipAddress) && reportedAddresses.add(ipAddress)) {
+                deltas.add(new DeviceUpdate.DeviceGone(ipAddress, knownEntry.lastSeen()));
+            }
+        }
+
+        return deltas;
+    }
+
+    /**
+     * Compares the collected results against the inventory and stores them in it.
+     *
+     * @param now the time the discovery ended
+     * @return the differences between the inventory and the collected results that were not reported yet
+     */
+    public List<DeviceUpdate> finish(Instant now) {
+        List<DeviceUpdate> deltas = new ArrayList<>();
+        List<InventoryEntry> updatedEntries = new ArrayList<>(foundDevices.size());
+        for (Device device : foundDevices.values()) {
+            String ipAddress = device.getIpAddress();
+            InventoryEntry previousEntry = inventory.get(ipAddress);
+            boolean reported = !reportedAddresses.add(ipAddress);
+            int[] openPorts;
+            String macAddress;
+            synchronized (device) {
+                openPorts = device.getOpenPorts().toArray();
+                macAddress = device.getMacAddress();
+            }
+            if (previousEntry == null) {
+                if (!reported) {
+                    deltas.add(new DeviceUpdate.DeviceAppeared(ipAddress));
+                }
+                updatedEntries.add(new InventoryEntry(ipAddress, macAddress, openPorts, now, now));
+            } else {
+                if (!reported) {
+                    deltas.addAll(portsChanged(device, previousEntry));
+                }
+                updatedEntries.add(new InventoryEntry(
+                        ipAddress,
+                        macAddress.isEmpty() ? previousEntry.macAddress() : macAddress,
+                        openPorts,
+                        previousEntry.firstSeen(),
+                        now
+                ));
+            }
+        }
+        for (InventoryEntry knownEntry : knownEntries) {
+            if (!foundDevices.containsKey(knownEntry.ipAddress()) && reportedAddresses.add(knownEntry.ipAddress())) {
+                deltas.add(new DeviceUpdate.DeviceGone(knownEntry.ipAddress(), knownEntry.lastSeen()));
+            }
+        }
+        inventory.update(updatedEntries);
+
+        return deltas;
+    }
+
+    private static List<DeviceUpdate> portsChanged(Device device, InventoryEntry previousEntry) {
+        int[] openPorts;
+        synchronized (device) {
+            openPorts = device.getOpenPorts().toArray();
+        }
+        int[] previousOpenPorts = previousEntry.openPorts();
+        int[] openedPorts = difference(openPorts, previousOpenPorts);
+        int[] closedPorts = difference(previousOpenPorts, openPorts);
+        if (openedPorts.length == 0 && closedPorts.length == 0) {
+            return List.of();
+        }
+
+        return List.of(new DeviceUpdate.PortsChanged(device.getIpAddress(), openedPorts, closedPorts));
+    }
+
+    /**
+     * @return the ports of the first sorted array that are not part of the second one
+     */
+    private static int[] difference(int[] ports, int[] excludedPorts) {
+        return Arrays.stream(ports)
+                .filter(port -> Arrays.binarySearch(excludedPorts, port) < 0)
+                .toArray();
+    }
+}
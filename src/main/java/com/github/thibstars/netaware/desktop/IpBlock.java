@@ -0,0 +1,111 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.scanners.IpScannerInput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A contiguous range of IPv4 addresses, scanned as a single unit of work.
+ *
+ * @param startAddress the first address of the block, as a 32-bit integer
+ * @param size         the amount of addresses in the block
+ * @author Thibault Helsmoortel
+ */
+public record IpBlock(int startAddress, int size) {
+
+    public IpBlock {
+        if (size < 1) {
+            throw new IllegalArgumentException("Block size must be strictly positive.");
+        }
+    }
+
+    /**
+     * @param startAddress the dotted-quad first address of the block
+     * @param size         the amount of addresses in the block
+     * @return the block
+     */
+    public static IpBlock of(String startAddress, int size) {
+        return new IpBlock(Ipv4Addresses.parse(startAddress), size);
+    }
+
+    /**
+     * Parses a block in the notation of {@link #toString()}.
+     *
+     * @param block the block, e.g. "192.168.1.0+256"
+     * @return the block
+     * @throws IllegalArgumentException when the block is not in valid notation
+     */
+    public static IpBlock parse(String block) {
+        int plus = block.indexOf('+');
+        if (plus < 0) {
+            throw new IllegalArgumentException("Invalid address block: " + block);
+        }
+        try {
+            return of(block.substring(0, plus), Integer.parseInt(block.substring(plus + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid address block: " + block, e);
+        }
+    }
+
+    /**
+     * @return the address following the last address of this block, as a 32-bit integer
+     */
+    public int endAddress() {
+        return startAddress + size;
+    }
+
+    /**
+     * @param address an address, as a 32-bit integer
+     * @return whether the address is part of this block
+     */
+    public boolean contains(int address) {
+        long offset = Integer.toUnsignedLong(address) - Integer.toUnsignedLong(startAddress);
+
+        return offset >= 0 && offset < size;
+    }
+
+    /**
+     * Takes the given addresses out of the given blocks, splitting the blocks around them.
+     *
+     * @param blocks    the blocks, in order
+     * @param addresses the addresses to take out, as 32-bit integers
+     * @return what remains of the blocks, in the same order
+     */
+    public static List<IpBlock> excluding(List<IpBlock> blocks, Collection<Integer> addresses) {
+        long[] excludedAddresses = addresses.stream().mapToLong(Integer::toUnsignedLong).sorted().distinct().toArray();
+        if (excludedAddresses.length == 0) {
+            return blocks;
+        }
+        List<IpBlock> remainder = new ArrayList<>(blocks.size());
+        for (IpBlock block : blocks) {
+            long start = Integer.toUnsignedLong(block.startAddress);
+            long end = start + block.size;
+            int index = Arrays.binarySearch(excludedAddresses, start);
+            for (index = index < 0 ? -index - 1 : index; index < excludedAddresses.length && excludedAddresses[index] < end; index++) {
+                if (excludedAddresses[index] > start) {
+                    remainder.add(new IpBlock((int) start, (int) (excludedAddresses[index] - start)));
+                }
+                start = excludedAddresses[index] + 1;
+            }
+            if (start < end) {
+                remainder.add(new IpBlock((int) start, (int) (end - start)));
+            }
+        }
+
+        return remainder;
+    }
+
+    /**
+     * @return the input for the IP scanner covering this block
+     */
+    public IpScannerInput toScannerInput() {
+        return new IpScannerInput(Ipv4Addresses.format(startAddress), size);
+    }
+
+    @Override
+    public String toString() {
+        return Ipv4Addresses.format(startAddress) + "+" + size;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Utility methods converting IPv4 addresses between their textual and their 32-bit integer form.
+ *
+ * @author Thibault Helsmoortel
+ */
+public final class Ipv4Addresses {
+
+    private Ipv4Addresses() {
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address.
+     *
+     * @param address the address, e.g. "192.168.1.1"
+     * @return the address as a 32-bit integer
+     * @throws IllegalArgumentException when the address is not a valid dotted-quad IPv4 address
+     */
+    public static int parse(String address) {
+        int result = 0;
+        int octet = -1;
+        int octets = 0;
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (octet < 0 || ++octets > 4) {
+                    throw new IllegalArgumentException("Invalid IPv4 address: " + address);
+                }
+                result = (result << 8) | octet;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    throw new IllegalArgumentException("Invalid IPv4 address: " + address);
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid IPv4 address: " + address);
+            }
+        }
+        if (octets != 4) {
+            throw new IllegalArgumentException("Invalid IPv4 address: " + address);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param address the address as a 32-bit integer
+     * @return the dotted-quad form of the address
+     */
+    public static String format(int address) {
+        return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    /**
+     * @param address the address
+     * @return the address as a 32-bit integer
+     */
+    public static int of(Inet4Address address) {
+        byte[] bytes = address.getAddress();
+
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+
+    /**
+     * @param address the address as a 32-bit integer
+     * @return the address
+     */
+    public static Inet4Address toInetAddress(int address) {
+        byte[] bytes = {(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address};
+        try {
+            return (Inet4Address) InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            // Only thrown for addresses of illegal length
+            throw new IllegalStateException(e);
+        }
+    }
+}
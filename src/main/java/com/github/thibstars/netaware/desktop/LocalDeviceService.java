@@ -3,111 +3,400 @@ package com.github.thibstars.netaware.desktop;
 import com.github.thibstars.netaware.events.IpAddressFoundEvent;
 import com.github.thibstars.netaware.events.MacFoundEvent;
 import com.github.thibstars.netaware.events.TcpIpPortFoundEvent;
-import com.github.thibstars.netaware.events.core.EventHandler;
-import com.github.thibstars.netaware.events.core.EventManager;
-import com.github.thibstars.netaware.scanners.IpScanner;
-import com.github.thibstars.netaware.scanners.IpScannerInput;
-import com.github.thibstars.netaware.scanners.MacScanner;
-import com.github.thibstars.netaware.scanners.PortScanner;
-import com.github.thibstars.netaware.utils.OptimalThreadPoolSizeCalculator;
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.IntStream;
-import javax.swing.JProgressBar;
-import javax.swing.table.DefaultTableModel;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Service able to discover devices on the local network.
  * This service will scan for IP address, open TCP/IP ports and MAC address.
+ * When given a {@link DeviceInventory}, every discovery is a rescan: the known devices are verified first
+ * and the differences with the inventory are published as soon as they are known, see {@link InventoryRescan}.
+ * <p>
+ * Every discovery runs in its own {@link ScanSession}, with its own event manager, scanners and executor,
+ * so concurrent and successive discoveries never see each other's events.
  *
  * @author Thibault Helsmoortel
  */
 public class LocalDeviceService implements DeviceService {
 
-    private final MainFrame mainFrame;
-    private final EventManager eventManager;
+    private final ScanScheduler scanScheduler;
+    private final TargetPlanner targetPlanner;
+    private final ProbeFactory probeFactory;
+    private final Set<ScanSession> runningSessions = ConcurrentHashMap.newKeySet();
+    // Devices found by earlier discoveries, their networks are swept early
+    private final Set<Integer> foundAddresses = ConcurrentHashMap.newKeySet();
+    private final AimdRateController ipRateController;
+    private final AimdRateController portRateController;
+    // Whether the non-blocking port scan engine is selected through netaware.portscan.engine=nio
+    private final boolean nioPortScan;
+    // Null when discoveries are not checked against an inventory
+    private final DeviceInventory inventory;
+    // Shared by all discoveries, so rescans find the hostnames in its cache
+    private final HostnameResolver hostnameResolver;
+    private final OuiRegistry ouiRegistry;
+    // Null unless banners are grabbed through netaware.banner.enabled=true, shared so its limit holds across discoveries
+    private final BannerGrabber bannerGrabber;
 
-    public LocalDeviceService(MainFrame mainFrame) {
-        this.mainFrame = mainFrame;
-        this.eventManager = new EventManager();
-        DefaultTableModel tableModel = mainFrame.getTableModel();
+    public LocalDeviceService() {
+        this(ScanScheduler.fromSystemProperties(), TargetPlanner.fromSystemProperties(), ProbeFactory.netAware());
+    }
 
-        eventManager.registerHandler(TcpIpPortFoundEvent.class, event -> {
-            InetAddress ipAddress = event.getIpAddress();
-            Integer port = event.getTcpIpPort();
-
-            IntStream.range(0, tableModel.getRowCount())
-                    .filter(index -> tableModel.getValueAt(index, 0).equals(ipAddress.getHostAddress()))
-                    .findFirst()
-                    .ifPresent(index -> {
-                        Object valueAt = tableModel.getValueAt(index, 1);
-                        String newValue = valueAt != null && !((String) valueAt).isBlank() ? valueAt + ", " + port
-                                : String.valueOf(port);
-                        tableModel.setValueAt(newValue, index, 1);
-                    });
-        });
-
-        eventManager.registerHandler(MacFoundEvent.class, event -> {
-            InetAddress ipAddress = event.getIpAddress();
-            String macAddress = event.getMacAddress();
+    public LocalDeviceService(ScanScheduler scanScheduler, TargetPlanner targetPlanner, ProbeFactory probeFactory) {
+        this(scanScheduler, targetPlanner, probeFactory, null);
+    }
+
+    /**
+     * @param scanScheduler the scheduler spreading the sweeps over threads
+     * @param targetPlanner the planner deciding which addresses are swept
+     * @param probeFactory  the factory of the probes performing the scans
+     * @param inventory     the inventory to check every discovery against, or null to perform plain discoveries
+     */
+    public LocalDeviceService(ScanScheduler scanScheduler, TargetPlanner targetPlanner, ProbeFactory probeFactory,
+            DeviceInventory inventory) {
+        this.scanScheduler = scanScheduler;
+        this.targetPlanner = targetPlanner;
+        this.probeFactory = probeFactory;
+        this.inventory = inventory;
+        this.hostnameResolver = HostnameResolver.fromSystemProperties(probeFactory.hostnameLookup());
+        this.ouiRegistry = OuiRegistry.getDefault();
+        this.bannerGrabber = Boolean.getBoolean("netaware.banner.enabled") ? BannerGrabber.fromSystemProperties() : null;
+        // A sweep probe covers a whole block, so its packets are the addresses of the block
+        this.ipRateController = AimdRateController.fromSystemProperties(
+                "ip", 4, scanScheduler.getConcurrencyBudget(), 1_000, 50_000
+        );
+        this.nioPortScan = "nio".equalsIgnoreCase(System.getProperty("netaware.portscan.engine"));
+        if (nioPortScan) {
+            this.portRateController = AimdRateController.fromSystemProperties(
+                    "port", 64, NioPortScanner.DEFAULT_MAX_IN_FLIGHT, 2_000, NioPortScanner.DEFAULT_MAX_RATE
+            );
+        } else {
+            // The blocking port scanner scans a host at a time, so its rate is expressed in hosts per second
+            this.portRateController = AimdRateController.fromSystemProperties("port", 8, 64, 20, 500);
+        }
+    }
+
+    @Override
+    public Discovery discoverAsync(Flow.Subscriber<? super DiscoveryUpdate> subscriber) {
+        return discoverAsync(targetPlanner.plan(), true, subscriber);
+    }
 
-            IntStream.range(0, tableModel.getRowCount())
-                    .filter(index -> tableModel.getValueAt(index, 0).equals(ipAddress.getHostAddress()))
-                    .findFirst()
-                    .ifPresent(index -> tableModel.setValueAt(macAddress, index, 2));
-        });
+    /**
+     * Starts a discovery probing only the given blocks, in the given order.
+     * Unlike a full discovery, the neighbor cache is not read since its entries outlive the devices that left.
+     *
+     * @param blocks     the blocks to probe
+     * @param subscriber the subscriber receiving the results and progress of the scan
+     * @return the handle to the running scan
+     */
+    public Discovery discoverAsync(List<IpBlock> blocks, Flow.Subscriber<? super DiscoveryUpdate> subscriber) {
+        return discoverAsync(blocks, false, subscriber);
     }
 
+    private Discovery discoverAsync(List<IpBlock> plannedBlocks, boolean fullDiscovery, Flow.Subscriber<? super DiscoveryUpdate> subscriber) {
+        ScanSession session = new ScanSession(plannedBlocks, fullDiscovery, subscriber);
+        runningSessions.add(session);
+        session.start();
+
+        return session.discovery;
+    }
+
+    /**
+     * Stops the hostname lookups and banner grabs shared by the discoveries of this service.
+     */
     @Override
-    public void discover() {
-        IpScanner ipScanner = new IpScanner(eventManager);
-        EventHandler<IpAddressFoundEvent> ipAddressFoundEventEventHandler = initIpAddressFoundEventEventHandler(ipScanner);
-        eventManager.registerHandler(IpAddressFoundEvent.class, ipAddressFoundEventEventHandler);
-
-        JProgressBar ipProgressBar = mainFrame.getIpProgressBar();
-        ipProgressBar.setVisible(true);
-
-        OptimalThreadPoolSizeCalculator optimalThreadPoolSizeCalculator = new OptimalThreadPoolSizeCalculator();
-        int optimalThreadPoolSize = optimalThreadPoolSizeCalculator.get(0.9, 1000, 2);
-        try (ExecutorService executorService = Executors.newFixedThreadPool(optimalThreadPoolSize)) {
-            executorService.submit(() -> {
-                String classABase = "10.0.";
-                int amountOfIpsToScan = 255;
-                for (int i = 0; i < amountOfIpsToScan; i++) {
-                    ipScanner.scan(new IpScannerInput(classABase + i + ".0", amountOfIpsToScan));
+    public void close() {
+        hostnameResolver.close();
+        if (bannerGrabber != null) {
+            bannerGrabber.close();
+        }
+    }
+
+    /**
+     * @return the amount of discoveries that have not been torn down yet
+     */
+    public int getRunningSessionCount() {
+        return runningSessions.size();
+    }
+
+    /**
+     * @return the planner deciding which addresses a full discovery sweeps
+     */
+    public TargetPlanner getTargetPlanner() {
+        return targetPlanner;
+    }
+
+    /**
+     * @return the inventory every discovery is checked against, or null when discoveries are not checked
+     */
+    public DeviceInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * @return the rate controller pacing the blocks of the IP sweeps
+     */
+    public AimdRateController getIpRateController() {
+        return ipRateController;
+    }
+
+    /**
+     * @return the rate controller pacing the port scans
+     */
+    public AimdRateController getPortRateController() {
+        return portRateController;
+    }
+
+    /**
+     * Runs a probe once the rate controller allows it, reporting its duration back to the controller and the metrics.
+     *
+     * @return whether the probe ran, false when interrupted while waiting for the rate controller
+     */
+    private static boolean rateControlled(AimdRateController rateController, int packets, Runnable probe,
+            ScanMetrics metrics, ScanStage stage, Object target) {
+        try {
+            rateController.acquire(packets);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            probe.run();
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            metrics.record(stage, target, elapsedNanos, rateController.onCompletion(elapsedNanos));
+        }
+
+        return true;
+    }
+
+    /**
+     * A single discovery, owning everything it runs on: its event manager and the handlers registered on it,
+     * its scanners and its executor. Everything is torn down once the discovery completes or is cancelled.
+     */
+    private final class ScanSession {
+
+        private final SessionEventManager eventManager = new SessionEventManager();
+        private final ExecutorService executorService = scanScheduler.newExecutorService();
+        private final ScanMetrics metrics = new ScanMetrics();
+        private final Queue<CompletableFuture<Void>> pendingScans = new ConcurrentLinkedQueue<>();
+        // Only added to by port scans, so complete once those are
+        private final Queue<CompletableFuture<Void>> pendingGrabs = new ConcurrentLinkedQueue<>();
+        private final Set<String> discoveredHostAddresses = ConcurrentHashMap.newKeySet();
+        // MAC addresses reported during this discovery, by IP address, so hosts from the neighbor cache aren't looked up again
+        private final Map<String, String> knownMacAddresses = new ConcurrentHashMap<>();
+        private final boolean fullDiscovery;
+        private final List<IpBlock> blocks;
+        private final SweepQueue sweepQueue;
+        // Null when the discovery is not checked against an inventory
+        private final InventoryRescan rescan;
+        private final ProbeFactory.Probe<IpBlock> ipScanner;
+        private final NeighborCacheScanner neighborCacheScanner;
+        private final ProbeFactory.Probe<InetAddress> macScanner;
+        private final Function<InetAddress, CompletableFuture<Void>> portScanner;
+        // Only set when the non-blocking port scan engine is selected
+        private final NioPortScanner nioPortScanner;
+        private final Discovery discovery;
+
+        private ScanSession(List<IpBlock> plannedBlocks, boolean fullDiscovery, Flow.Subscriber<? super DiscoveryUpdate> subscriber) {
+            this.fullDiscovery = fullDiscovery;
+
+            List<IpBlock> sweptBlocks = plannedBlocks;
+            if (inventory != null) {
+                this.rescan = new InventoryRescan(inventory, sweptBlocks);
+                if (fullDiscovery) {
+                    // Known hosts are swept on their own, leave them out of the blocks around them
+                    List<IpBlock> knownHostsFirst = new ArrayList<>(rescan.getKnownHostBlocks());
+                    knownHostsFirst.addAll(IpBlock.excluding(sweptBlocks, rescan.getKnownHostAddresses()));
+                    sweptBlocks = knownHostsFirst;
+                }
+            } else {
+                this.rescan = null;
+            }
+            this.blocks = sweptBlocks;
+            List<Integer> previousHits = new ArrayList<>(foundAddresses);
+            if (inventory != null) {
+                inventory.getEntries().forEach(entry -> previousHits.add(Ipv4Addresses.parse(entry.ipAddress())));
+            }
+            this.sweepQueue = new SweepQueue(
+                    blocks, TargetPlanner.localAddresses(), TargetPlanner.gatewayAddresses(TargetPlanner.localNetworks()), previousHits
+            );
+
+            this.ipScanner = probeFactory.ipProbe(eventManager);
+            this.neighborCacheScanner = NeighborCacheScanner.fromSystemProperties(eventManager);
+            this.macScanner = probeFactory.macProbe(eventManager);
+            if (nioPortScan) {
+                this.nioPortScanner = NioPortScanner.fromSystemProperties(eventManager, portRateController);
+                this.portScanner = this::scanPortsAsync;
+            } else {
+                this.nioPortScanner = null;
+                ProbeFactory.Probe<InetAddress> blockingPortScanner = probeFactory.portProbe(eventManager);
+                this.portScanner = ipAddress -> {
+                    rateControlled(portRateController, 1, () -> blockingPortScanner.scan(ipAddress),
+                            metrics, ScanStage.PORT_SCAN, ipAddress);
+                    return CompletableFuture.completedFuture(null);
+                };
+            }
+
+            // Only the scanners of this session dispatch to its event manager, so every event is one of its own
+            eventManager.registerHandler(IpAddressFoundEvent.class, this::onIpAddressFound);
+            eventManager.registerHandler(TcpIpPortFoundEvent.class, event -> {
+                publish(new DeviceUpdate.PortFound(event.getIpAddress().getHostAddress(), event.getTcpIpPort()));
+                if (bannerGrabber != null) {
+                    grabBanner(event.getIpAddress(), event.getTcpIpPort());
                 }
             });
-            executorService.submit(() -> {
-                String classBBase = "172.16.";
-                int amountOfIpsToScan = 255;
-                for (int i = 0; i < 16; i++) {
-                    ipScanner.scan(new IpScannerInput(classBBase + i + ".0", amountOfIpsToScan));
+            eventManager.registerHandler(MacFoundEvent.class, event -> {
+                String hostAddress = event.getIpAddress().getHostAddress();
+                String macAddress = event.getMacAddress();
+
+                knownMacAddresses.put(hostAddress, macAddress);
+                publish(new DeviceUpdate.MacFound(hostAddress, macAddress, ouiRegistry.lookup(macAddress)));
+            });
+
+            SubmissionPublisher<DiscoveryUpdate> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            this.discovery = new Discovery(publisher, executorService, metrics, rescan);
+            discovery.completion().whenComplete((result, throwable) -> {
+                tearDown();
+                if (Boolean.getBoolean("netaware.metrics.summary")) {
+                    System.err.println(metrics.summary());
                 }
             });
-            executorService.submit(() -> {
-                String classCBase = "192.168.";
-                int amountOfIpsToScan = 255;
-                for (int i = 0; i < amountOfIpsToScan; i++) {
-                    ipScanner.scan(new IpScannerInput(classCBase + i + ".0", amountOfIpsToScan));
+        }
+
+        private void start() {
+            int totalBlocks = blocks.size();
+            AtomicInteger completedBlocks = new AtomicInteger();
+
+            // The neighbor cache is known without probing, so report it before the first block is swept
+            CompletableFuture<Void> neighborCacheScan = fullDiscovery
+                    ? CompletableFuture.runAsync(neighborCacheScanner::scan, executorService)
+                    : CompletableFuture.completedFuture(null);
+            neighborCacheScan
+                    .thenCompose(ignored -> scanScheduler.sweep(sweepQueue, executorService, block -> {
+                        if (!discovery.isCancelled()
+                                && rateControlled(ipRateController, block.size(), () -> ipScanner.scan(block), metrics, ScanStage.IP_PROBE, block)) {
+                            if (rescan != null) {
+                                rescan.onBlockSwept(block).forEach(this::publish);
+                            }
+                            discovery.publish(new DiscoveryProgress(completedBlocks.incrementAndGet(), totalBlocks));
+                        }
+                    }))
+                    .thenCompose(ignored -> CompletableFuture.allOf(pendingScans.toArray(CompletableFuture[]::new)))
+                    .thenCompose(ignored -> CompletableFuture.allOf(pendingGrabs.toArray(CompletableFuture[]::new)))
+                    .thenRun(() -> {
+                        if (rescan != null && !discovery.isCancelled()) {
+                            rescan.finish(Instant.now()).forEach(discovery::publish);
+                        }
+                    })
+                    .whenComplete((result, throwable) -> discovery.finish(throwable));
+        }
+
+        private void onIpAddressFound(IpAddressFoundEvent event) {
+            InetAddress ipAddress = event.getIpAddress();
+            String hostAddress = ipAddress.getHostAddress();
+            if (!discoveredHostAddresses.add(hostAddress)) {
+                // Already found in the neighbor cache
+                return;
+            }
+            publish(new DeviceUpdate.DeviceFound(hostAddress));
+            if (rescan != null) {
+                rescan.onDeviceFound(hostAddress).forEach(this::publish);
+            }
+            if (ipAddress instanceof Inet4Address inet4Address) {
+                int address = Ipv4Addresses.of(inet4Address);
+                foundAddresses.add(address);
+                // Devices cluster, so sweep the networks around this one next
+                sweepQueue.onDeviceFound(address);
+            }
+            pendingScans.add(resolveHostname(ipAddress));
+            if (event.getSource().equals(neighborCacheScanner)) {
+                // Don't hold up reading the rest of the neighbor cache, its MAC address is reported along with it
+                pendingScans.add(CompletableFuture.supplyAsync(() -> portScanner.apply(ipAddress), executorService)
+                        .thenCompose(Function.identity())
+                        .thenRun(() -> onPortsScanned(hostAddress)));
+            } else {
+                CompletableFuture<Void> portScan = portScanner.apply(ipAddress);
+                if (portScan.isDone()) {
+                    onPortsScanned(hostAddress);
+                } else {
+                    pendingScans.add(portScan.thenRun(() -> onPortsScanned(hostAddress)));
+                }
+                if (!knownMacAddresses.containsKey(hostAddress)) {
+                    long start = System.nanoTime();
+                    macScanner.scan(ipAddress);
+                    metrics.record(ScanStage.MAC_LOOKUP, ipAddress, System.nanoTime() - start, false);
+                }
+            }
+        }
+
+        private void onPortsScanned(String hostAddress) {
+            if (rescan != null) {
+                rescan.onPortsScanned(hostAddress).forEach(this::publish);
+            }
+        }
+
+        private CompletableFuture<Void> resolveHostname(InetAddress ipAddress) {
+            long start = System.nanoTime();
+
+            return hostnameResolver.resolve(ipAddress).thenAccept(hostname -> {
+                metrics.record(ScanStage.HOSTNAME_LOOKUP, ipAddress, System.nanoTime() - start, false);
+                if (!hostname.isEmpty()) {
+                    publish(new DeviceUpdate.HostnameFound(ipAddress.getHostAddress(), hostname));
                 }
             });
-            executorService.shutdown();
         }
-    }
 
-    private EventHandler<IpAddressFoundEvent> initIpAddressFoundEventEventHandler(IpScanner ipScanner) {
-        PortScanner portScanner = new PortScanner(eventManager);
-        MacScanner macScanner = new MacScanner(eventManager);
-
-        return event -> {
-            if (event instanceof IpAddressFoundEvent ipAddressFoundEvent && ipAddressFoundEvent.getSource().equals(ipScanner)) {
-                InetAddress ipAddress = ipAddressFoundEvent.getIpAddress();
-                String hostAddress = ipAddress.getHostAddress();
-                mainFrame.getTableModel().addRow(new Object[]{hostAddress, "", ""});
-                portScanner.scan(ipAddress);
-                macScanner.scan(ipAddress);
+        private void grabBanner(InetAddress ipAddress, int port) {
+            if (discovery.isCancelled()) {
+                return;
+            }
+            long start = System.nanoTime();
+            pendingGrabs.add(bannerGrabber.grab(ipAddress, port).thenAccept(result -> {
+                metrics.record(ScanStage.BANNER_GRAB, ipAddress, System.nanoTime() - start, result.timedOut());
+                if (!result.service().isEmpty()) {
+                    publish(new DeviceUpdate.ServiceFound(ipAddress.getHostAddress(), port, result.service()));
+                }
+            }));
+        }
+
+        private CompletableFuture<Void> scanPortsAsync(InetAddress ipAddress) {
+            long start = System.nanoTime();
+            CompletableFuture<Void> portScan = nioPortScanner.scanAsync(ipAddress).whenComplete((result, throwable) ->
+                    metrics.record(ScanStage.PORT_SCAN, ipAddress, System.nanoTime() - start, false));
+            metrics.recordQueueDepth("port probes", nioPortScanner.getPendingProbeCount());
+
+            return portScan;
+        }
+
+        private void publish(DiscoveryUpdate update) {
+            discovery.publish(update);
+        }
+
+        /**
+         * Drops the handlers of this session and stops its port scanner. Its executor is shut down by the discovery.
+         */
+        private void tearDown() {
+            eventManager.close();
+            if (nioPortScanner != null) {
+                nioPortScanner.close();
             }
-        };
+            runningSessions.remove(this);
+        }
     }
 }
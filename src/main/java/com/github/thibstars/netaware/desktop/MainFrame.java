@@ -1,35 +1,58 @@
 package com.github.thibstars.netaware.desktop;
 
+import com.github.thibstars.netaware.events.core.EventManager;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.HeadlessException;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.RenderingHints;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
-import java.util.Objects;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
+import javax.swing.Icon;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.RowSorter;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
+import javax.swing.SortOrder;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableColumn;
 
@@ -40,23 +63,27 @@ import javax.swing.table.TableColumn;
  */
 public class MainFrame extends JFrame {
 
-    private final DefaultTableModel tableModel;
+    // Runs the work that doesn't need the event dispatch thread: starting up, exporting and importing
+    private static final Executor BACKGROUND_EXECUTOR = task -> Thread.ofVirtual().name("netaware-startup").start(task);
+
+    private final DeviceTableModel tableModel;
+    private final transient DeviceRowSorter rowSorter;
     private final JProgressBar ipProgressBar;
     private final JTable resultTable;
-    private final transient DeviceService localDeviceService;
+    private final transient DeviceUpdateBuffer deviceUpdateBuffer;
+    // Set in the background once the scan is started, after the window is built
+    private transient volatile DeviceService localDeviceService;
+    // Only set when monitoring is enabled through netaware.monitor=true
+    private transient volatile NetworkMonitor networkMonitor;
+    private transient volatile Discovery discovery;
     
     // Track which column header is being hovered over
     private int hoveredColumn = -1;
 
-    public MainFrame() throws HeadlessException {
-        // Set custom NetAware look and feel
-        try {
-            UIManager.setLookAndFeel(new NetAwareLookAndFeel());
-        } catch (UnsupportedLookAndFeelException e) {
-            // Fall back to default look and feel if custom look and feel is not supported
-            System.err.println("Could not set NetAware look and feel: " + e.getMessage());
-        }
-        
+    /**
+     * Builds and shows the window. The scan is started by {@link #launch()}, once the window is fully constructed.
+     */
+    private MainFrame() throws HeadlessException {
         setTitle("NetAware Desktop");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         Dimension dimension = new Dimension(750, 525);
@@ -66,13 +93,15 @@ public class MainFrame extends JFrame {
         // Set frame background color
         getContentPane().setBackground(ColorPalette.BACKGROUND_COLOR);
 
-        tableModel = new DefaultTableModel();
-        tableModel.addColumn("IP Address");
-        tableModel.addColumn("Open Ports");
-        tableModel.addColumn("MAC Address");
+        tableModel = new DeviceTableModel();
+        deviceUpdateBuffer = new DeviceUpdateBuffer(tableModel);
         
         // Configure table with more native look
         resultTable = new JTable(tableModel);
+        rowSorter = new DeviceRowSorter(tableModel);
+        resultTable.setRowSorter(rowSorter);
+        tableModel.addBatchListener(rowSorter);
+        resultTable.setDefaultRenderer(PortSet.class, new PortSetRenderer());
         // Keep minimal styling to maintain consistency with color scheme
         resultTable.setGridColor(ColorPalette.LIGHT_CYAN);
         // Set the table text color to match the "Scanning network" text
@@ -153,6 +182,38 @@ public class MainFrame extends JFrame {
         pnlProgressBarsContent.add(ipProgressBar, BorderLayout.PAGE_END);
         pnlProgressBars.add(pnlProgressBarsContent, BorderLayout.CENTER);
         
+        // Filter bar above the table
+        JTextField addressFilterField = createFilterField(12, "Network in CIDR notation or start of the IP address, e.g. 192.168.1.0/24 or 10.0.");
+        JTextField portFilterField = createFilterField(5, "Port that must be open");
+        JTextField vendorFilterField = createFilterField(10, "Part of the vendor name");
+        DocumentListener filterListener = new FilterListener(addressFilterField, portFilterField, vendorFilterField);
+        addressFilterField.getDocument().addDocumentListener(filterListener);
+        portFilterField.getDocument().addDocumentListener(filterListener);
+        vendorFilterField.getDocument().addDocumentListener(filterListener);
+
+        JPanel filterBar = new JPanel(new FlowLayout(FlowLayout.LEADING, 5, 0));
+        filterBar.setBackground(ColorPalette.BACKGROUND_COLOR);
+        filterBar.setBorder(new EmptyBorder(0, 0, 5, 0));
+        filterBar.add(createFilterLabel("Address"));
+        filterBar.add(addressFilterField);
+        filterBar.add(createFilterLabel("Port"));
+        filterBar.add(portFilterField);
+        filterBar.add(createFilterLabel("Vendor"));
+        filterBar.add(vendorFilterField);
+        JButton exportButton = new JButton("Export...");
+        exportButton.setToolTipText("Save the devices as CSV, JSON or compact binary");
+        exportButton.addActionListener(event -> exportDevices());
+        JButton importButton = new JButton("Import...");
+        importButton.setToolTipText("Show exported devices as last known devices, to compare against the scan");
+        importButton.addActionListener(event -> importDevices());
+        filterBar.add(exportButton);
+        filterBar.add(importButton);
+
+        JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.setBackground(ColorPalette.BACKGROUND_COLOR);
+        tablePanel.add(filterBar, BorderLayout.NORTH);
+        tablePanel.add(scrollPane, BorderLayout.CENTER);
+
         // Create a container panel for both progress bar and table
         JPanel contentPanel = new JPanel(new BorderLayout());
         contentPanel.setBackground(ColorPalette.BACKGROUND_COLOR);
@@ -163,7 +224,7 @@ public class MainFrame extends JFrame {
         
         // Add progress bar at the top and table below it
         contentPanel.add(pnlProgressBars, BorderLayout.NORTH);
-        contentPanel.add(scrollPane, BorderLayout.CENTER);
+        contentPanel.add(tablePanel, BorderLayout.CENTER);
         
         ipProgressBar.addComponentListener(new ComponentAdapter() {
             @Override
@@ -182,34 +243,245 @@ public class MainFrame extends JFrame {
         mainPanel.add(contentPanel, BorderLayout.CENTER);
         add(mainPanel);
 
+        // Abort a running scan when the window is closed
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (discovery != null) {
+                    discovery.cancel();
+                }
+                if (networkMonitor != null) {
+                    networkMonitor.stop();
+                }
+                if (localDeviceService != null) {
+                    localDeviceService.close();
+                }
+            }
+        });
+
+        setVisible(true);
+    }
+
+    /**
+     * Launches the application window.
+     * <p>
+     * Only installing the look and feel precedes building the window, which is shown as soon as it is built.
+     * The inventory is loaded and the icon decoded in the background in the meantime. The scan is started in the
+     * background once both the inventory and the window are ready, and a failure to start it is shown on the window.
+     */
+    public static void launch() {
+        CompletableFuture<DeviceInventory> deviceInventory = CompletableFuture.supplyAsync(() -> {
+            DeviceInventory inventory = DeviceInventory.fromSystemProperties();
+            // The known devices are shown with their vendor, load the registry here rather than on the event dispatch thread
+            OuiRegistry.getDefault();
+            return inventory;
+        }, BACKGROUND_EXECUTOR);
+        CompletableFuture<Image> applicationIcon = CompletableFuture.supplyAsync(MainFrame::loadApplicationIcon, BACKGROUND_EXECUTOR);
+
+        SwingUtilities.invokeLater(() -> {
+            installLookAndFeel();
+            MainFrame mainFrame = new MainFrame();
+            // The scan only reaches the components of the window through the event queue
+            deviceInventory.thenAcceptAsync(mainFrame::startScanning, BACKGROUND_EXECUTOR).exceptionally(throwable -> {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                SwingUtilities.invokeLater(() -> {
+                    mainFrame.ipProgressBar.setVisible(false);
+                    mainFrame.showError("Could not start scanning: " + cause.getMessage());
+                });
+                return null;
+            });
+            applicationIcon.thenAccept(icon -> {
+                if (icon != null) {
+                    SwingUtilities.invokeLater(() -> mainFrame.setIconImage(icon));
+                }
+            });
+        });
+    }
+
+    private static void installLookAndFeel() {
         try {
-            BufferedImage applicationIcon = ImageIO.read(
-                    new File(
-                            Objects.requireNonNull(
-                                    this.getClass().getClassLoader().getResource("NetAware.png")
-                            ).getFile()
-                    )
-            );
-            setIconImage(resize(applicationIcon, 64, 64));
+            UIManager.setLookAndFeel(new NetAwareLookAndFeel());
+        } catch (UnsupportedLookAndFeelException e) {
+            // Fall back to default look and feel if custom look and feel is not supported
+            System.err.println("Could not set NetAware look and feel: " + e.getMessage());
+        }
+    }
+
+    private static Image loadApplicationIcon() {
+        // The icon is small enough to decode in memory, rather than through a temporary file
+        ImageIO.setUseCache(false);
+        try (InputStream iconStream = MainFrame.class.getClassLoader().getResourceAsStream("NetAware.png")) {
+            if (iconStream == null) {
+                System.err.println("Could not find application icon NetAware.png");
+                return null;
+            }
+            return resize(ImageIO.read(iconStream), 64, 64);
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            System.err.println("Could not load application icon: " + e.getMessage());
+            return null;
         }
+    }
 
-        setVisible(true);
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        StartupReport.reached(StartupReport.FIRST_FRAME);
+    }
 
-        this.localDeviceService = new LocalDeviceService(this);
+    /**
+     * Shows the known devices and starts the scan, off the event dispatch thread.
+     *
+     * @param deviceInventory the inventory of known devices
+     */
+    private void startScanning(DeviceInventory deviceInventory) {
+        // Show the last known state right away, the rescan confirms or updates it
+        List<InventoryEntry> knownDevices = deviceInventory.getEntries();
+        SwingUtilities.invokeLater(() -> tableModel.addKnownDevices(knownDevices, OuiRegistry.getDefault()));
+
+        Integer coordinatorPort = Integer.getInteger("netaware.shard.coordinate");
+        if (coordinatorPort != null) {
+            try {
+                this.localDeviceService = startCoordinator(coordinatorPort);
+                discoverDevices();
+                return;
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> showError("Could not start coordinator, scanning locally: " + e.getMessage()));
+            }
+        }
+        LocalDeviceService deviceService = new LocalDeviceService(
+                ScanScheduler.fromSystemProperties(), TargetPlanner.fromSystemProperties(), ProbeFactory.netAware(), deviceInventory
+        );
+        if (Boolean.getBoolean("netaware.monitor")) {
+            NetworkMonitor monitor = NetworkMonitor.fromSystemProperties(deviceService, new EventManager());
+            monitor.forwardUpdates(deviceUpdateBuffer::offer);
+            this.networkMonitor = monitor;
+        }
+        this.localDeviceService = deviceService;
 
         discoverDevices();
     }
 
+    /**
+     * Starts a coordinator handing out the sweep to workers, and the workers requested through
+     * {@code netaware.shard.spawnWorkers}. Sharded discoveries are not checked against the inventory, nor monitored.
+     */
+    private static ShardCoordinator startCoordinator(int port) throws IOException {
+        ShardCoordinator coordinator = ShardCoordinator.fromSystemProperties(TargetPlanner.fromSystemProperties(), port);
+        try {
+            System.err.println("Coordinating workers on port " + coordinator.getPort());
+            coordinator.spawnLocalWorkers(Integer.getInteger("netaware.shard.spawnWorkers", 0));
+        } catch (IOException e) {
+            coordinator.close();
+            throw e;
+        }
+
+        return coordinator;
+    }
+
     private void discoverDevices() {
-        resultTable.removeAll();
-        localDeviceService.discover();
+        SwingUtilities.invokeLater(() -> {
+            resultTable.removeAll();
+            ipProgressBar.setVisible(true);
+        });
 
-        ipProgressBar.setVisible(false);
+        discovery = localDeviceService.discoverAsync(new DiscoverySubscriber());
+        deviceUpdateBuffer.start(discovery.getMetrics());
+        discovery.completion().whenComplete((result, throwable) -> SwingUtilities.invokeLater(() -> {
+            ipProgressBar.setVisible(false);
+            if (throwable != null && !(throwable instanceof CancellationException)) {
+                showError("Device discovery failed: " + throwable.getMessage());
+            }
+        }));
     }
 
-    public DefaultTableModel getTableModel() {
+    /**
+     * Watches the devices found by the discovery and keeps the table up to date with the changes the monitor finds.
+     */
+    private void startMonitoring() {
+        if (discovery.isCancelled()) {
+            return;
+        }
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            Device device = tableModel.getDevice(row);
+            if (device.getStatus() != DeviceStatus.GONE && device.getStatus() != DeviceStatus.KNOWN) {
+                networkMonitor.watch(device.getIpAddress(), device.getOpenPorts().toArray());
+            }
+        }
+        deviceUpdateBuffer.start();
+        networkMonitor.start();
+    }
+
+    /**
+     * Exports the devices of the table to a file chosen by the user in the background, straight from the table model.
+     */
+    private void exportDevices() {
+        JFileChooser fileChooser = createExportFileChooser();
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = fileChooser.getSelectedFile().toPath();
+        if (fileChooser.getFileFilter() instanceof FileNameExtensionFilter filter
+                && !file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith("." + filter.getExtensions()[0])) {
+            file = file.resolveSibling(file.getFileName() + "." + filter.getExtensions()[0]);
+        }
+        Path exportFile = file;
+        CompletableFuture.runAsync(() -> {
+            try {
+                // Reads the table a chunk at a time on the event dispatch thread
+                DeviceExport.write(tableModel, SwingUtilities::invokeLater, exportFile);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, BACKGROUND_EXECUTOR).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                SwingUtilities.invokeLater(() -> showError("Could not export devices to " + exportFile + ": " + cause.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Imports the devices of a file chosen by the user in the background, adding them as known devices and reconciling
+     * the ones already in the table.
+     */
+    private void importDevices() {
+        JFileChooser fileChooser = createExportFileChooser();
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = fileChooser.getSelectedFile().toPath();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return DeviceExport.read(file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, BACKGROUND_EXECUTOR).whenComplete((entries, throwable) -> SwingUtilities.invokeLater(() -> {
+            if (throwable == null) {
+                tableModel.addKnownDevices(entries, OuiRegistry.getDefault());
+            } else {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                showError("Could not import devices from " + file + ": " + cause.getMessage());
+            }
+        }));
+    }
+
+    private static JFileChooser createExportFileChooser() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("CSV (*.csv)", DeviceExport.Format.CSV.getExtension()));
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("JSON (*.json)", DeviceExport.Format.JSON.getExtension()));
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Compact binary (*.ndx)", DeviceExport.Format.BINARY.getExtension()));
+
+        return fileChooser;
+    }
+
+    private void showError(String message) {
+        System.err.println(message);
+        JOptionPane.showMessageDialog(this, message, getTitle(), JOptionPane.ERROR_MESSAGE);
+    }
+
+    public DeviceTableModel getTableModel() {
         return tableModel;
     }
 
@@ -217,21 +489,149 @@ public class MainFrame extends JFrame {
         return ipProgressBar;
     }
 
+    private static JTextField createFilterField(int columns, String toolTipText) {
+        JTextField field = new JTextField(columns);
+        field.setToolTipText(toolTipText);
+        field.setForeground(ColorPalette.TEXT_COLOR);
+
+        return field;
+    }
+
+    private static JLabel createFilterLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setForeground(ColorPalette.TEXT_COLOR);
+
+        return label;
+    }
+
+    /**
+     * Resizes an image, halving it with bilinear interpolation until a last step reaches the requested size.
+     * Gives a quality close to {@link Image#getScaledInstance(int, int, int)} with {@link Image#SCALE_SMOOTH},
+     * for a fraction of the time.
+     *
+     * @param image     the image to resize
+     * @param newWidth  the width of the resized image
+     * @param newHeight the height of the resized image
+     * @return the resized image
+     */
     public static BufferedImage resize(BufferedImage image, int newWidth, int newHeight) {
-        Image temporaryImage = image.getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
-        BufferedImage rescaledImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage rescaledImage = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = width / 2 >= newWidth ? width / 2 : newWidth;
+            height = height / 2 >= newHeight ? height / 2 : newHeight;
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
 
-        Graphics2D g2d = rescaledImage.createGraphics();
-        g2d.drawImage(temporaryImage, 0, 0, null);
-        g2d.dispose();
+            Graphics2D g2d = step.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(rescaledImage, 0, 0, width, height, null);
+            g2d.dispose();
+            rescaledImage = step;
+        } while (width != newWidth || height != newHeight);
 
         return rescaledImage;
     }
     
     /**
-     * Custom renderer for table headers that changes colors on hover.
+     * Subscriber forwarding discovered devices to the table and reporting scan progress on the progress bar.
+     */
+    private class DiscoverySubscriber implements Flow.Subscriber<DiscoveryUpdate> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(DiscoveryUpdate item) {
+            switch (item) {
+                case DeviceUpdate deviceUpdate -> deviceUpdateBuffer.offer(deviceUpdate);
+                case DiscoveryProgress progress -> SwingUtilities.invokeLater(() -> {
+                    ipProgressBar.setIndeterminate(false);
+                    ipProgressBar.setMaximum(progress.totalBlocks());
+                    ipProgressBar.setValue(progress.completedBlocks());
+                });
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            System.err.println("Device discovery failed: " + throwable.getMessage());
+            deviceUpdateBuffer.stop();
+        }
+
+        @Override
+        public void onComplete() {
+            // Delivered after the last update, so the buffer can be drained
+            deviceUpdateBuffer.stop();
+            if (networkMonitor != null) {
+                // Queued after draining the buffer, so the watched devices are complete
+                SwingUtilities.invokeLater(MainFrame.this::startMonitoring);
+            }
+        }
+    }
+
+    /**
+     * Applies the filter bar to the table on every change, marking the criteria that can't be parsed.
+     */
+    private class FilterListener implements DocumentListener {
+
+        private final JTextField addressField;
+        private final JTextField portField;
+        private final JTextField vendorField;
+
+        private FilterListener(JTextField addressField, JTextField portField, JTextField vendorField) {
+            this.addressField = addressField;
+            this.portField = portField;
+            this.vendorField = vendorField;
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            applyFilter();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            applyFilter();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            applyFilter();
+        }
+
+        private void applyFilter() {
+            boolean validAddress = isValid(addressField.getText(), "");
+            boolean validPort = isValid("", portField.getText());
+            addressField.setForeground(validAddress ? ColorPalette.TEXT_COLOR : ColorPalette.INVALID_INPUT_COLOR);
+            portField.setForeground(validPort ? ColorPalette.TEXT_COLOR : ColorPalette.INVALID_INPUT_COLOR);
+            // Keep the last valid filter while a criterion is being typed
+            if (validAddress && validPort) {
+                rowSorter.setFilter(DeviceFilter.parse(addressField.getText(), portField.getText(), vendorField.getText()));
+            }
+        }
+
+        private static boolean isValid(String address, String port) {
+            try {
+                DeviceFilter.parse(address, port, "");
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Custom renderer for table headers that changes colors on hover and shows the sort order.
+     * The sort icons are looked up once, rendering a header allocates nothing.
      */
     private class HoverHeaderRenderer extends DefaultTableCellRenderer {
+
+        private final transient Icon ascendingIcon = UIManager.getIcon("Table.ascendingSortIcon");
+        private final transient Icon descendingIcon = UIManager.getIcon("Table.descendingSortIcon");
+
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value, 
                 boolean isSelected, boolean hasFocus, int row, int column) {
@@ -241,6 +641,8 @@ public class MainFrame extends JFrame {
             
             // Center the header text
             setHorizontalAlignment(SwingConstants.CENTER);
+            setHorizontalTextPosition(SwingConstants.LEADING);
+            setIcon(sortIcon(table.convertColumnIndexToModel(column)));
             
             // Apply hover effect if this is the hovered column
             if (column == hoveredColumn) {
@@ -253,5 +655,14 @@ public class MainFrame extends JFrame {
             
             return component;
         }
+
+        private Icon sortIcon(int modelColumn) {
+            List<? extends RowSorter.SortKey> sortKeys = rowSorter.getSortKeys();
+            if (sortKeys.isEmpty() || sortKeys.getFirst().getColumn() != modelColumn) {
+                return null;
+            }
+
+            return sortKeys.getFirst().getSortOrder() == SortOrder.DESCENDING ? descendingIcon : ascendingIcon;
+        }
     }
 }
@@ -0,0 +1,376 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reader of the lines written by {@link NdjsonWriter}, turning them back into discovery updates, and of JSON arrays
+ * of such objects, laid out in any way, as exported by {@link DeviceExport}.
+ * Only flat objects are understood: string, integer, boolean, null and integer array values.
+ *
+ * @author Thibault Helsmoortel
+ */
+public final class NdjsonReader {
+
+    private NdjsonReader() {
+    }
+
+    /**
+     * Parses a line holding a single flat JSON object.
+     *
+     * @param line the line
+     * @return the values of the object by name: strings, longs, booleans and int arrays, leaving out null values
+     * @throws IllegalArgumentException when the line is not such an object
+     */
+    public static Map<String, Object> parseObject(String line) {
+        Parser parser = new Parser(line);
+        parser.skipWhitespace();
+        Map<String, Object> values = parser.readObject();
+        parser.expectEnd("object");
+
+        return values;
+    }
+
+    /**
+     * Parses a JSON array of flat objects, whatever whitespace and line breaks separate its tokens.
+     * The array is streamed: only the object being parsed is held in memory.
+     *
+     * @param reader   the reader of the text holding the array, read up to its end
+     * @param consumer the consumer of the values of each object, see {@link #parseObject(String)}, in array order
+     * @throws IOException              when the text can't be read
+     * @throws IllegalArgumentException when the text is not such an array, after consuming the objects preceding the error
+     */
+    public static void parseArray(Reader reader, Consumer<Map<String, Object>> consumer) throws IOException {
+        int c = skipWhitespace(reader);
+        if (c != '[') {
+            throw new IllegalArgumentException("Expected '[' at the start of the array");
+        }
+        c = skipWhitespace(reader);
+        StringBuilder object = new StringBuilder(256);
+        int count = 0;
+        while (c != ']') {
+            if (c != '{') {
+                throw new IllegalArgumentException("Expected '{' or ']' after " + count + " objects");
+            }
+            readObject(reader, object);
+            consumer.accept(parseObject(object.toString()));
+            count++;
+            c = skipWhitespace(reader);
+            if (c == ',') {
+                c = skipWhitespace(reader);
+                if (c != '{') {
+                    throw new IllegalArgumentException("Expected '{' after " + count + " objects");
+                }
+            } else if (c != ']') {
+                throw new IllegalArgumentException("Expected ',' or ']' after " + count + " objects");
+            }
+        }
+        if (skipWhitespace(reader) >= 0) {
+            throw new IllegalArgumentException("Unexpected content after array");
+        }
+    }
+
+    /**
+     * Reads the rest of an object whose opening brace was read, up to its matching closing brace.
+     */
+    private static void readObject(Reader reader, StringBuilder object) throws IOException {
+        object.setLength(0);
+        object.append('{');
+        int depth = 1;
+        boolean quoted = false;
+        boolean escaped = false;
+        while (depth > 0) {
+            int c = reader.read();
+            if (c < 0) {
+                throw new IllegalArgumentException("Unexpected end of input in object: " + object);
+            }
+            object.append((char) c);
+            if (escaped) {
+                escaped = false;
+            } else if (quoted) {
+                escaped = c == '\\';
+                quoted = c != '"';
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * @return the first character that is not whitespace, or -1 at the end of the input
+     */
+    private static int skipWhitespace(Reader reader) throws IOException {
+        int c;
+        do {
+            c = reader.read();
+        } while (c >= 0 && Character.isWhitespace(c));
+
+        return c;
+    }
+
+    /**
+     * Parses a line written by {@link NdjsonWriter} back into the update it represents.
+     *
+     * @param line the line
+     * @return the update, or null when the line holds an object of another type
+     * @throws IllegalArgumentException when the line is not a valid update
+     */
+    public static DiscoveryUpdate parseUpdate(String line) {
+        return toUpdate(parseObject(line));
+    }
+
+    /**
+     * Turns the values of a parsed line back into the update it represents.
+     *
+     * @param values the values of the line, see {@link #parseObject(String)}
+     * @return the update, or null when the values describe an object of another type
+     * @throws IllegalArgumentException when a value required by the type is missing or invalid
+     */
+    public static DiscoveryUpdate toUpdate(Map<String, Object> values) {
+        Object type = values.get("type");
+        if (!(type instanceof String typeName)) {
+            return null;
+        }
+
+        return switch (typeName) {
+            case "device" -> new DeviceUpdate.DeviceFound(string(values, "ip"));
+            case "port" -> new DeviceUpdate.PortFound(string(values, "ip"), (int) number(values, "port"));
+            case "service" -> new DeviceUpdate.ServiceFound(string(values, "ip"), (int) number(values, "port"), string(values, "service"));
+            case "mac" -> new DeviceUpdate.MacFound(string(values, "ip"), string(values, "mac"),
+                    values.get("vendor") instanceof String vendor ? vendor : "");
+            case "hostname" -> new DeviceUpdate.HostnameFound(string(values, "ip"), string(values, "hostname"));
+            case "appeared" -> new DeviceUpdate.DeviceAppeared(string(values, "ip"));
+            case "gone" -> {
+                try {
+                    yield new DeviceUpdate.DeviceGone(string(values, "ip"), Instant.parse(string(values, "lastSeen")));
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid lastSeen: " + values.get("lastSeen"), e);
+                }
+            }
+            case "ports-changed" -> new DeviceUpdate.PortsChanged(string(values, "ip"), ports(values, "opened"), ports(values, "closed"));
+            case "progress" -> new DiscoveryProgress((int) number(values, "completedBlocks"), (int) number(values, "totalBlocks"));
+            default -> null;
+        };
+    }
+
+    private static String string(Map<String, Object> values, String name) {
+        if (values.get(name) instanceof String value) {
+            return value;
+        }
+        throw new IllegalArgumentException("Missing string " + name);
+    }
+
+    private static long number(Map<String, Object> values, String name) {
+        if (values.get(name) instanceof Long value) {
+            return value;
+        }
+        throw new IllegalArgumentException("Missing number " + name);
+    }
+
+    private static int[] ports(Map<String, Object> values, String name) {
+        if (values.get(name) instanceof int[] value) {
+            return value;
+        }
+        throw new IllegalArgumentException("Missing array " + name);
+    }
+
+    private static final class Parser {
+
+        // Longer texts are quoted around the position of an error only
+        private static final int MAX_QUOTED_LENGTH = 120;
+
+        private final String line;
+        private int position;
+
+        private Parser(String line) {
+            this.line = line;
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> values = new HashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (!consume('}')) {
+                do {
+                    skipWhitespace();
+                    String name = readString();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    Object value = readValue();
+                    if (value != null) {
+                        values.put(name, value);
+                    }
+                    skipWhitespace();
+                } while (consume(','));
+                expect('}');
+            }
+
+            return values;
+        }
+
+        private void expectEnd(String value) {
+            skipWhitespace();
+            if (position != line.length()) {
+                throw error("Unexpected content after " + value + " at " + position);
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return error(message, null);
+        }
+
+        private IllegalArgumentException error(String message, Throwable cause) {
+            String quoted = line.length() <= MAX_QUOTED_LENGTH ? line
+                    : line.substring(Math.max(0, position - MAX_QUOTED_LENGTH / 2), Math.min(line.length(), position + MAX_QUOTED_LENGTH / 2));
+
+            return new IllegalArgumentException(message + ": " + quoted, cause);
+        }
+
+        private char peek() {
+            if (position >= line.length()) {
+                throw error("Unexpected end of input");
+            }
+
+            return line.charAt(position);
+        }
+
+        private boolean consume(char expected) {
+            if (position < line.length() && line.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!consume(expected)) {
+                throw error("Expected '" + expected + "' at " + position);
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+        }
+
+        private Object readValue() {
+            char first = peek();
+            if (first == '"') {
+                return readString();
+            }
+            if (first == '[') {
+                return readNumbers();
+            }
+            if (consumeLiteral("true")) {
+                return Boolean.TRUE;
+            }
+            if (consumeLiteral("false")) {
+                return Boolean.FALSE;
+            }
+            if (consumeLiteral("null")) {
+                return null;
+            }
+
+            return readNumber();
+        }
+
+        private boolean consumeLiteral(String literal) {
+            if (line.startsWith(literal, position)) {
+                position += literal.length();
+                return true;
+            }
+
+            return false;
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            char c;
+            while ((c = peek()) != '"') {
+                position++;
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = peek();
+                position++;
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > line.length()) {
+                            throw error("Invalid escape at " + position);
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(line, position, position + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid escape at " + position, e);
+                        }
+                        position += 4;
+                    }
+                    default -> throw error("Invalid escape at " + position);
+                }
+            }
+            position++;
+
+            return value.toString();
+        }
+
+        private long readNumber() {
+            int start = position;
+            if (position < line.length() && line.charAt(position) == '-') {
+                position++;
+            }
+            while (position < line.length() && Character.isDigit(line.charAt(position))) {
+                position++;
+            }
+            try {
+                return Long.parseLong(line, start, position, 10);
+            } catch (NumberFormatException e) {
+                throw error("Invalid number at " + start, e);
+            }
+        }
+
+        private int[] readNumbers() {
+            expect('[');
+            int[] numbers = new int[8];
+            int size = 0;
+            skipWhitespace();
+            if (!consume(']')) {
+                do {
+                    skipWhitespace();
+                    if (size == numbers.length) {
+                        numbers = Arrays.copyOf(numbers, size * 2);
+                    }
+                    long number = readNumber();
+                    if (number != (int) number) {
+                        throw error("Number out of range at " + position);
+                    }
+                    numbers[size++] = (int) number;
+                    skipWhitespace();
+                } while (consume(','));
+                expect(']');
+            }
+
+            return Arrays.copyOf(numbers, size);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber writing discovery updates as newline-delimited JSON, one object per line.
+ * Every line is flushed as soon as it is written and updates are requested one at a time,
+ * so the output is incremental and nothing but the update being written is held in memory.
+ * <p>
+ * Lines look like {@code {"type":"device","ip":"192.168.1.1"}}, {@code {"type":"port","ip":"192.168.1.1","port":22}}
+ * {@code {"type":"mac","ip":"192.168.1.1","mac":"b8:27:eb:dd:ee:ff","vendor":"Raspberry Pi Foundation"}}
+ * and {@code {"type":"hostname","ip":"192.168.1.1","hostname":"router.lan"}}. Progress lines
+ * ({@code {"type":"progress","completedBlocks":1,"totalBlocks":256}}) are only written when requested.
+ * Rescans against an inventory end with {@code {"type":"appeared","ip":"192.168.1.7"}},
+ * {@code {"type":"gone","ip":"192.168.1.9","lastSeen":"2024-01-01T12:00:00Z"}} and
+ * {@code {"type":"ports-changed","ip":"192.168.1.1","opened":[443],"closed":[80]}} lines.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class NdjsonWriter implements Flow.Subscriber<DiscoveryUpdate> {
+
+    private final Writer writer;
+    private final boolean writeProgress;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final StringBuilder line = new StringBuilder(128);
+    private Flow.Subscription subscription;
+
+    /**
+     * @param writer        the writer to write the lines to
+     * @param writeProgress whether to write progress lines as well
+     */
+    public NdjsonWriter(Writer writer, boolean writeProgress) {
+        this.writer = writer;
+        this.writeProgress = writeProgress;
+    }
+
+    /**
+     * @return a future completing once the last update has been written
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(DiscoveryUpdate item) {
+        try {
+            if (writeProgress || !(item instanceof DiscoveryProgress)) {
+                line.setLength(0);
+                appendJson(line, item);
+                line.append('\n');
+                writer.append(line);
+                writer.flush();
+            }
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            completion.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        completion.complete(null);
+    }
+
+    /**
+     * Appends the JSON object representing an update.
+     *
+     * @param builder the builder to append to
+     * @param update  the update
+     */
+    public static void appendJson(StringBuilder builder, DiscoveryUpdate update) {
+        switch (update) {
+            case DeviceUpdate.DeviceFound deviceFound -> {
+                builder.append("{\"type\":\"device\",\"ip\":");
+                appendString(builder, deviceFound.ipAddress());
+            }
+            case DeviceUpdate.PortFound portFound -> {
+                builder.append("{\"type\":\"port\",\"ip\":");
+                appendString(builder, portFound.ipAddress());
+                builder.append(",\"port\":").append(portFound.port());
+            }
+            case DeviceUpdate.ServiceFound serviceFound -> {
+                builder.append("{\"type\":\"service\",\"ip\":");
+                appendString(builder, serviceFound.ipAddress());
+                builder.append(",\"port\":").append(serviceFound.port()).append(",\"service\":");
+                appendString(builder, serviceFound.service());
+            }
+            case DeviceUpdate.MacFound macFound -> {
+                builder.append("{\"type\":\"mac\",\"ip\":");
+                appendString(builder, macFound.ipAddress());
+                builder.append(",\"mac\":");
+                appendString(builder, macFound.macAddress());
+                if (!macFound.vendor().isEmpty()) {
+                    builder.append(",\"vendor\":");
+                    appendString(builder, macFound.vendor());
+                }
+            }
+            case DeviceUpdate.HostnameFound hostnameFound -> {
+                builder.append("{\"type\":\"hostname\",\"ip\":");
+                appendString(builder, hostnameFound.ipAddress());
+                builder.append(",\"hostname\":");
+                appendString(builder, hostnameFound.hostname());
+            }
+            case DeviceUpdate.DeviceAppeared deviceAppeared -> {
+                builder.append("{\"type\":\"appeared\",\"ip\":");
+                appendString(builder, deviceAppeared.ipAddress());
+            }
+            case DeviceUpdate.DeviceGone deviceGone -> {
+                builder.append("{\"type\":\"gone\",\"ip\":");
+                appendString(builder, deviceGone.ipAddress());
+                builder.append(",\"lastSeen\":");
+                appendString(builder, deviceGone.lastSeen().toString());
+            }
+            case DeviceUpdate.PortsChanged portsChanged -> {
+                builder.append("{\"type\":\"ports-changed\",\"ip\":");
+                appendString(builder, portsChanged.ipAddress());
+                builder.append(",\"opened\":");
+                appendPorts(builder, portsChanged.openedPorts());
+                builder.append(",\"closed\":");
+                appendPorts(builder, portsChanged.closedPorts());
+            }
+            case DiscoveryProgress progress -> builder.append("{\"type\":\"progress\",\"completedBlocks\":")
+                    .append(progress.completedBlocks())
+                    .append(",\"totalBlocks\":")
+                    .append(progress.totalBlocks());
+        }
+        builder.append('}');
+    }
+
+    private static void appendPorts(StringBuilder builder, int[] ports) {
+        builder.append('[');
+        for (int i = 0; i < ports.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(ports[i]);
+        }
+        builder.append(']');
+    }
+
+    /**
+     * Appends a string as a quoted and escaped JSON string.
+     *
+     * @param builder the builder to append to
+     * @param value   the string
+     */
+    public static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
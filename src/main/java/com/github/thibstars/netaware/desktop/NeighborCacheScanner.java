@@ -0,0 +1,185 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.IpAddressFoundEvent;
+import com.github.thibstars.netaware.events.MacFoundEvent;
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scanner reporting the hosts the operating system already knows from its ARP/neighbor cache, without sending probes.
+ * The cache is read from {@code /proc/net/arp} or, when that file is not available, from the output of {@code ip neigh}.
+ * For every complete entry an {@link IpAddressFoundEvent} and a {@link MacFoundEvent} are dispatched.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class NeighborCacheScanner {
+
+    public static final Path PROC_NET_ARP = Path.of("/proc/net/arp");
+
+    private static final String INCOMPLETE_MAC_ADDRESS = "00:00:00:00:00:00";
+    private static final Duration IP_NEIGH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final EventManager eventManager;
+    private final Path arpTable;
+
+    public NeighborCacheScanner(EventManager eventManager) {
+        this(eventManager, PROC_NET_ARP);
+    }
+
+    /**
+     * @param eventManager the event manager to dispatch the found hosts to
+     * @param arpTable     the file to read the ARP table from, in the format of {@code /proc/net/arp}
+     */
+    public NeighborCacheScanner(EventManager eventManager, Path arpTable) {
+        this.eventManager = eventManager;
+        this.arpTable = arpTable;
+    }
+
+    /**
+     * Creates a scanner reading the ARP table configured through the {@code netaware.scan.arpTable} system property.
+     *
+     * @param eventManager the event manager to dispatch the found hosts to
+     * @return the configured scanner
+     */
+    public static NeighborCacheScanner fromSystemProperties(EventManager eventManager) {
+        return new NeighborCacheScanner(eventManager, Path.of(System.getProperty("netaware.scan.arpTable", PROC_NET_ARP.toString())));
+    }
+
+    /**
+     * Reads the neighbor cache and dispatches an event for every IP and MAC address found in it.
+     *
+     * @return the MAC addresses found, by IP address
+     */
+    public Map<InetAddress, String> scan() {
+        Map<InetAddress, String> neighbors = readNeighbors();
+        neighbors.forEach((ipAddress, macAddress) -> {
+            eventManager.dispatchEvent(new IpAddressFoundEvent(this, ipAddress));
+            eventManager.dispatchEvent(new MacFoundEvent(this, ipAddress, macAddress));
+        });
+
+        return neighbors;
+    }
+
+    private Map<InetAddress, String> readNeighbors() {
+        if (Files.isReadable(arpTable)) {
+            try {
+                return parseArpTable(Files.readAllLines(arpTable, StandardCharsets.US_ASCII));
+            } catch (IOException e) {
+                System.err.println("Could not read ARP table " + arpTable + ": " + e.getMessage());
+            }
+        }
+
+        return parseIpNeigh(runIpNeigh());
+    }
+
+    /**
+     * Parses the lines of an ARP table in the format of {@code /proc/net/arp}:
+     * {@code IP address  HW type  Flags  HW address  Mask  Device}, preceded by a header line.
+     *
+     * @param lines the lines of the ARP table
+     * @return the MAC addresses of the complete entries, by IP address
+     */
+    static Map<InetAddress, String> parseArpTable(List<String> lines) {
+        Map<InetAddress, String> neighbors = new LinkedHashMap<>();
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length >= 4 && !"0x0".equals(columns[2])) {
+                addNeighbor(neighbors, columns[0], columns[3]);
+            }
+        }
+
+        return neighbors;
+    }
+
+    /**
+     * Parses the output of {@code ip neigh}, e.g. {@code 192.168.1.1 dev eth0 lladdr aa:bb:cc:dd:ee:ff REACHABLE}.
+     *
+     * @param lines the lines of the output
+     * @return the MAC addresses of the entries having a link layer address, by IP address
+     */
+    static Map<InetAddress, String> parseIpNeigh(List<String> lines) {
+        Map<InetAddress, String> neighbors = new LinkedHashMap<>();
+        for (String line : lines) {
+            String[] columns = line.trim().split("\\s+");
+            for (int i = 1; i < columns.length - 1; i++) {
+                if ("lladdr".equals(columns[i])) {
+                    addNeighbor(neighbors, columns[0], columns[i + 1]);
+                    break;
+                }
+            }
+        }
+
+        return neighbors;
+    }
+
+    private static void addNeighbor(Map<InetAddress, String> neighbors, String ipAddress, String macAddress) {
+        if (ipAddress.indexOf('.') < 0 || INCOMPLETE_MAC_ADDRESS.equals(macAddress)) {
+            return;
+        }
+        try {
+            neighbors.put(Ipv4Addresses.toInetAddress(Ipv4Addresses.parse(ipAddress)), macAddress);
+        } catch (IllegalArgumentException e) {
+            // Not an IPv4 entry
+        }
+    }
+
+    private static List<String> runIpNeigh() {
+        return runCommand(List.of("ip", "neigh", "show"), IP_NEIGH_TIMEOUT);
+    }
+
+    /**
+     * Runs a command and collects the lines of its output. The output is read on a thread of its own,
+     * so a command that hangs without closing its output is killed once the timeout runs out.
+     *
+     * @param command the command and its arguments
+     * @param timeout the time the command gets to exit
+     * @return the lines of the output, empty when the command could not be run or did not exit in time
+     */
+    static List<String> runCommand(List<String> command, Duration timeout) {
+        Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            // No neighbor cache available on this platform
+            return List.of();
+        }
+        CompletableFuture<List<String>> output = CompletableFuture.supplyAsync(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII))) {
+                return reader.lines().toList();
+            } catch (IOException | UncheckedIOException e) {
+                // Closed by killing the process
+                return List.of();
+            }
+        }, Thread::startVirtualThread);
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.err.println(String.join(" ", command) + " did not exit within " + timeout.toMillis() + " ms");
+                return List.of();
+            }
+            // Exited, its output is closed once its children are done with it
+            return output.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (ExecutionException | TimeoutException e) {
+            return List.of();
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless entry point of the application, discovering devices without Swing
+ * and streaming the results as newline-delimited JSON to stdout or a file.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class NetAwareCli {
+
+    private static final String USAGE = """
+            Usage: NetAwareDesktop --headless [options]
+              --output <file>         write the results to a file instead of stdout
+              --targets <cidrs>       comma separated networks to sweep, e.g. 10.0.0.0/16,192.168.1.0/24
+              --exclude <cidrs>       comma separated networks never to sweep
+              --no-local-networks     don't sweep the networks of the local network interfaces
+              --private-networks      sweep the 10.0/16, 172.16/20 and 192.168/16 private networks as well
+              --inventory <file>      rescan against the inventory in the given file and write the differences
+              --compare <file>        rescan against the devices exported to the given .csv, .json or .ndx file
+              --progress              write progress lines as well
+              --monitor               keep rescanning and write the changes until stopped
+              --metrics               write per-stage latencies and timeouts to stderr when done
+              --coordinate <port>     hand out the sweep in shards to workers connecting on the given port, 0 for any
+              --spawn-workers <n>     start the given amount of workers on this machine when coordinating
+              --worker <host:port>    scan the shards handed out by the coordinator at the given address
+              --help                  show this help
+            """;
+
+    private NetAwareCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs a discovery as described by the given command line arguments.
+     *
+     * @param args the command line arguments
+     * @return the exit code: 0 on success, 1 on failure, 2 on invalid arguments and 130 when interrupted
+     */
+    public static int run(String[] args) {
+        Path output = null;
+        Path inventoryFile = null;
+        Path comparedFile = null;
+        boolean includeLocalNetworks = true;
+        boolean includePrivateNetworks = false;
+        boolean writeProgress = false;
+        boolean writeMetrics = false;
+        boolean monitor = false;
+        Integer coordinatorPort = null;
+        int spawnedWorkers = 0;
+        String coordinatorAddress = null;
+        List<Cidr> includedNetworks = new ArrayList<>();
+        List<Cidr> excludedNetworks = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--headless" -> {
+                        // Selects this entry point
+                    }
+                    case "--output" -> output = Path.of(value(args, ++i));
+                    case "--targets" -> includedNetworks.addAll(TargetPlanner.parseCidrs(value(args, ++i)));
+                    case "--exclude" -> excludedNetworks.addAll(TargetPlanner.parseCidrs(value(args, ++i)));
+                    case "--no-local-networks" -> includeLocalNetworks = false;
+                    case "--private-networks" -> includePrivateNetworks = true;
+                    case "--inventory" -> inventoryFile = Path.of(value(args, ++i));
+                    case "--compare" -> comparedFile = Path.of(value(args, ++i));
+                    case "--progress" -> writeProgress = true;
+                    case "--metrics" -> writeMetrics = true;
+                    case "--monitor" -> monitor = true;
+                    case "--coordinate" -> coordinatorPort = Integer.parseInt(value(args, ++i));
+                    case "--spawn-workers" -> spawnedWorkers = Integer.parseInt(value(args, ++i));
+                    case "--worker" -> coordinatorAddress = value(args, ++i);
+                    case "--help" -> {
+                        System.out.print(USAGE);
+                        return 0;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (coordinatorPort != null && (monitor || inventoryFile != null || comparedFile != null)) {
+                throw new IllegalArgumentException("Options --monitor, --inventory and --compare can't be combined with --coordinate");
+            }
+            if (inventoryFile != null && comparedFile != null) {
+                throw new IllegalArgumentException("Options --inventory and --compare can't be combined");
+            }
+            if (spawnedWorkers != 0 && coordinatorPort == null) {
+                throw new IllegalArgumentException("Option --spawn-workers requires --coordinate");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        TargetPlanner targetPlanner = new TargetPlanner(includeLocalNetworks, includePrivateNetworks, includedNetworks, excludedNetworks);
+        if (coordinatorAddress != null) {
+            return work(new LocalDeviceService(ScanScheduler.fromSystemProperties(), targetPlanner, ProbeFactory.netAware()), coordinatorAddress);
+        }
+        DeviceInventory inventory;
+        try {
+            inventory = comparedFile == null
+                    ? inventoryFile == null ? null : new DeviceInventory(inventoryFile)
+                    : importInventory(comparedFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not import devices from " + comparedFile + ": " + e.getMessage());
+            return 1;
+        }
+        LocalDeviceService localDeviceService = null;
+        ShardCoordinator coordinator = null;
+        DeviceService deviceService;
+        try {
+            if (coordinatorPort == null) {
+                localDeviceService = new LocalDeviceService(ScanScheduler.fromSystemProperties(), targetPlanner, ProbeFactory.netAware(), inventory);
+                deviceService = localDeviceService;
+            } else {
+                coordinator = ShardCoordinator.fromSystemProperties(targetPlanner, coordinatorPort);
+                System.err.println("Coordinating workers on port " + coordinator.getPort());
+                coordinator.spawnLocalWorkers(spawnedWorkers);
+                deviceService = coordinator;
+            }
+        } catch (IOException e) {
+            System.err.println("Could not start coordinator: " + e.getMessage());
+            if (coordinator != null) {
+                coordinator.close();
+            }
+            return 1;
+        }
+
+        try (Writer writer = output == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            if (monitor) {
+                return monitor(localDeviceService, writer);
+            }
+            NdjsonWriter ndjsonWriter = new NdjsonWriter(writer, writeProgress);
+            Discovery discovery = deviceService.discoverAsync(ndjsonWriter);
+            Thread cancelOnShutdown = new Thread(discovery::cancel);
+            Runtime.getRuntime().addShutdownHook(cancelOnShutdown);
+
+            ndjsonWriter.completion().join();
+            if (discovery.isCancelled()) {
+                // Cancelled by the hook, the JVM is shutting down so the hook can't be removed anymore
+                System.err.println("Device discovery cancelled");
+                return 130;
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(cancelOnShutdown);
+            } catch (IllegalStateException e) {
+                // Shutdown started right after the discovery completed, the hook cancels nothing anymore
+            }
+            if (writeMetrics) {
+                System.err.println(discovery.getMetrics().summary());
+            }
+
+            return 0;
+        } catch (IOException | CompletionException e) {
+            System.err.println("Device discovery failed: " + e.getMessage());
+            return 1;
+        } finally {
+            deviceService.close();
+        }
+    }
+
+    /**
+     * Imports the IPv4 devices of an exported file into a temporary inventory, deleted on exit.
+     */
+    private static DeviceInventory importInventory(Path exportedFile) throws IOException {
+        List<InventoryEntry> entries = DeviceExport.read(exportedFile).stream()
+                .filter(entry -> isIpv4Address(entry.ipAddress()))
+                .toList();
+        Path inventoryFile = Files.createTempFile("netaware-compare", ".dat");
+        // A missing file denotes an empty inventory, an empty one an unsupported format
+        Files.delete(inventoryFile);
+        inventoryFile.toFile().deleteOnExit();
+        DeviceInventory inventory = new DeviceInventory(inventoryFile);
+        inventory.update(entries);
+
+        return inventory;
+    }
+
+    private static boolean isIpv4Address(String ipAddress) {
+        try {
+            Ipv4Addresses.parse(ipAddress);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scans the shards handed out by a coordinator until it closes the connection.
+     */
+    private static int work(LocalDeviceService deviceService, String coordinatorAddress) {
+        int separator = coordinatorAddress.lastIndexOf(':');
+        if (separator < 0) {
+            System.err.println("Invalid coordinator address, expected <host:port>: " + coordinatorAddress);
+            return 2;
+        }
+        try (deviceService) {
+            new ShardWorker(deviceService).run(
+                    coordinatorAddress.substring(0, separator),
+                    Integer.parseInt(coordinatorAddress.substring(separator + 1))
+            );
+
+            return 0;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid coordinator address, expected <host:port>: " + coordinatorAddress);
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Lost connection to coordinator: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Monitors the network until the JVM shuts down, writing a line per change: devices up are written as found,
+     * devices down as gone, opened ports as found and closed ports as changed ports.
+     */
+    private static int monitor(LocalDeviceService deviceService, Writer writer) {
+        NetworkMonitor networkMonitor = NetworkMonitor.fromSystemProperties(deviceService, new EventManager());
+        StringBuilder line = new StringBuilder(128);
+        networkMonitor.forwardUpdates(update -> {
+            synchronized (line) {
+                line.setLength(0);
+                NdjsonWriter.appendJson(line, update);
+                line.append('\n');
+                try {
+                    writer.append(line);
+                    writer.flush();
+                } catch (IOException e) {
+                    System.err.println("Could not write change: " + e.getMessage());
+                }
+            }
+        });
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            networkMonitor.stop();
+            stopped.countDown();
+        }));
+        networkMonitor.start();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return 0;
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for option " + args[index - 1]);
+        }
+
+        return args[index];
+    }
+}
@@ -1,14 +1,22 @@
 package com.github.thibstars.netaware.desktop;
 
+import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
+
 /**
  * Main class of the desktop application.
+ * Runs headless, see {@link NetAwareCli}, when started with {@code --headless} or without a display.
  *
  * @author Thibault Helsmoortel
  */
 public class NetAwareDesktop {
 
     public static void main(String[] args) {
-        new MainFrame();
+        if (GraphicsEnvironment.isHeadless() || Arrays.asList(args).contains("--headless")) {
+            NetAwareCli.main(args);
+        } else {
+            MainFrame.launch();
+        }
     }
 
 }
@@ -0,0 +1,294 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.core.Event;
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Monitor keeping watch over the network by rescanning it periodically.
+ * <p>
+ * The watched devices are re-probed at a short interval, the whole target space of the device service at a longer one.
+ * Every interval is randomly stretched or shrunk by up to the jitter fraction, so the cycles don't line up into bursts.
+ * Both kinds of cycles only rely on probes, since the neighbor cache still lists devices that have just left.
+ * <p>
+ * The differences found by a cycle are dispatched through the event manager of the monitor as {@link DeviceUpEvent}s,
+ * {@link DeviceDownEvent}s, {@link PortOpenedEvent}s and {@link PortClosedEvent}s. Devices found by a sweep are watched
+ * from then on.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class NetworkMonitor {
+
+    public static final Duration DEFAULT_KNOWN_HOST_INTERVAL = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(10);
+    public static final double DEFAULT_JITTER = 0.2;
+
+    private final LocalDeviceService deviceService;
+    private final EventManager eventManager;
+    private final Duration knownHostInterval;
+    private final Duration sweepInterval;
+    private final double jitter;
+    private final Map<String, WatchedDevice> watchedDevices = new LinkedHashMap<>();
+    private final List<Discovery> runningCycles = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param deviceService     the service performing the cycles
+     * @param eventManager      the event manager to dispatch the changes to
+     * @param knownHostInterval the interval between the cycles re-probing the watched devices
+     * @param sweepInterval     the interval between the sweeps of the whole target space
+     * @param jitter            the fraction by which every interval is randomly stretched or shrunk, between 0 and 1
+     */
+    public NetworkMonitor(LocalDeviceService deviceService, EventManager eventManager, Duration knownHostInterval,
+            Duration sweepInterval, double jitter) {
+        if (knownHostInterval.isNegative() || knownHostInterval.isZero() || sweepInterval.isNegative() || sweepInterval.isZero()) {
+            throw new IllegalArgumentException("Intervals must be strictly positive.");
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1.");
+        }
+        this.deviceService = deviceService;
+        this.eventManager = eventManager;
+        this.knownHostInterval = knownHostInterval;
+        this.sweepInterval = sweepInterval;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Creates a monitor configured through the {@code netaware.monitor.knownHostInterval} and
+     * {@code netaware.monitor.sweepInterval} (seconds) and {@code netaware.monitor.jitter} system properties.
+     *
+     * @param deviceService the service performing the cycles
+     * @param eventManager  the event manager to dispatch the changes to
+     * @return the configured monitor
+     */
+    public static NetworkMonitor fromSystemProperties(LocalDeviceService deviceService, EventManager eventManager) {
+        return new NetworkMonitor(
+                deviceService,
+                eventManager,
+                Duration.ofSeconds(Long.getLong("netaware.monitor.knownHostInterval", DEFAULT_KNOWN_HOST_INTERVAL.toSeconds())),
+                Duration.ofSeconds(Long.getLong("netaware.monitor.sweepInterval", DEFAULT_SWEEP_INTERVAL.toSeconds())),
+                Double.parseDouble(System.getProperty("netaware.monitor.jitter", String.valueOf(DEFAULT_JITTER)))
+        );
+    }
+
+    public EventManager getEventManager() {
+        return eventManager;
+    }
+
+    /**
+     * Watches a device known to be up, without dispatching events for it.
+     *
+     * @param ipAddress the IP address of the device
+     * @param openPorts the ports known to be open on the device
+     */
+    public synchronized void watch(String ipAddress, int[] openPorts) {
+        WatchedDevice device = new WatchedDevice();
+        device.up = true;
+        device.lastSeen = Instant.now();
+        for (int port : openPorts) {
+            device.openPorts.add(port);
+        }
+        watchedDevices.put(ipAddress, device);
+    }
+
+    public synchronized int getWatchedDeviceCount() {
+        return watchedDevices.size();
+    }
+
+    /**
+     * Registers handlers on the event manager of this monitor, turning the changes into {@link DeviceUpdate}s:
+     * a device up is found, a device down is gone, an opened port is found and a closed port changes the ports.
+     *
+     * @param consumer the consumer of the updates, called on the thread dispatching the events
+     */
+    public void forwardUpdates(Consumer<DeviceUpdate> consumer) {
+        eventManager.registerHandler(DeviceUpEvent.class,
+                event -> consumer.accept(new DeviceUpdate.DeviceFound(event.getIpAddress().getHostAddress())));
+        eventManager.registerHandler(DeviceDownEvent.class,
+                event -> consumer.accept(new DeviceUpdate.DeviceGone(event.getIpAddress().getHostAddress(), event.getLastSeen())));
+        eventManager.registerHandler(PortOpenedEvent.class,
+                event -> consumer.accept(new DeviceUpdate.PortFound(event.getIpAddress().getHostAddress(), event.getTcpIpPort())));
+        eventManager.registerHandler(PortClosedEvent.class,
+                event -> consumer.accept(new DeviceUpdate.PortsChanged(event.getIpAddress().getHostAddress(), new int[0], new int[] {event.getTcpIpPort()})));
+    }
+
+    /**
+     * Starts monitoring. When no devices are watched yet, the first sweep starts right away.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("network-monitor").daemon().factory());
+        scheduleCycle(true, watchedDevices.isEmpty() ? 0 : jittered(sweepInterval));
+        scheduleCycle(false, jittered(knownHostInterval));
+    }
+
+    /**
+     * Stops monitoring, cancelling the cycles that are still running.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            runningCycles.forEach(Discovery::cancel);
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private synchronized void scheduleCycle(boolean sweep, long delayNanos) {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.schedule(() -> runCycle(sweep).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                System.err.println("Monitoring cycle failed: " + throwable.getMessage());
+            }
+            scheduleCycle(sweep, jittered(sweep ? sweepInterval : knownHostInterval));
+        }), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private long jittered(Duration interval) {
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+
+        return (long) (interval.toNanos() * factor);
+    }
+
+    private CompletableFuture<Void> runCycle(boolean sweep) {
+        List<String> probedAddresses;
+        synchronized (this) {
+            probedAddresses = new ArrayList<>(watchedDevices.keySet());
+        }
+        List<IpBlock> blocks = sweep
+                ? deviceService.getTargetPlanner().plan()
+                : probedAddresses.stream().map(ipAddress -> new IpBlock(Ipv4Addresses.parse(ipAddress), 1)).toList();
+        if (blocks.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CycleResults results = new CycleResults();
+        Discovery discovery;
+        synchronized (this) {
+            // Started under the same lock as stopping, so a cycle is either cancelled by stop or never started
+            if (scheduler == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            discovery = deviceService.discoverAsync(blocks, results);
+            runningCycles.add(discovery);
+        }
+
+        return results.completion
+                .thenRun(() -> {
+                    // A cancelled cycle ends early, its devices are not down
+                    if (!discovery.isCancelled()) {
+                        dispatchChanges(probedAddresses, results.openPortsByIpAddress);
+                    }
+                })
+                .whenComplete((result, throwable) -> runningCycles.remove(discovery));
+    }
+
+    private void dispatchChanges(List<String> probedAddresses, Map<String, PortSet> openPortsByIpAddress) {
+        Instant now = Instant.now();
+        List<Event> events = new ArrayList<>();
+        synchronized (this) {
+            for (String ipAddress : probedAddresses) {
+                WatchedDevice device = watchedDevices.get(ipAddress);
+                if (device != null && !openPortsByIpAddress.containsKey(ipAddress) && device.up) {
+                    device.up = false;
+                    events.add(new DeviceDownEvent(this, toInetAddress(ipAddress), device.lastSeen));
+                }
+            }
+            openPortsByIpAddress.forEach((ipAddress, openPorts) -> {
+                InetAddress inetAddress = toInetAddress(ipAddress);
+                WatchedDevice device = watchedDevices.computeIfAbsent(ipAddress, newIpAddress -> new WatchedDevice());
+                if (!device.up) {
+                    events.add(new DeviceUpEvent(this, inetAddress));
+                }
+                device.up = true;
+                device.lastSeen = now;
+                for (int port : device.openPorts.toArray()) {
+                    if (!openPorts.contains(port)) {
+                        device.openPorts.remove(port);
+                        events.add(new PortClosedEvent(this, inetAddress, port));
+                    }
+                }
+                for (int port : openPorts.toArray()) {
+                    if (device.openPorts.add(port)) {
+                        events.add(new PortOpenedEvent(this, inetAddress, port));
+                    }
+                }
+            });
+        }
+        events.forEach(eventManager::dispatchEvent);
+    }
+
+    private static InetAddress toInetAddress(String ipAddress) {
+        return Ipv4Addresses.toInetAddress(Ipv4Addresses.parse(ipAddress));
+    }
+
+    private static final class WatchedDevice {
+
+        private final PortSet openPorts = new PortSet();
+        private boolean up;
+        private Instant lastSeen;
+    }
+
+    /**
+     * Subscriber collecting the devices and open ports found by a single cycle.
+     */
+    private static final class CycleResults implements Flow.Subscriber<DiscoveryUpdate> {
+
+        private final Map<String, PortSet> openPortsByIpAddress = new HashMap<>();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(DiscoveryUpdate item) {
+            switch (item) {
+                case DeviceUpdate.DeviceFound deviceFound -> openPortsByIpAddress.putIfAbsent(deviceFound.ipAddress(), new PortSet());
+                case DeviceUpdate.PortFound portFound -> {
+                    PortSet openPorts = openPortsByIpAddress.get(portFound.ipAddress());
+                    if (openPorts != null) {
+                        openPorts.add(portFound.port());
+                    }
+                }
+                default -> {
+                    // Only presence and open ports are monitored
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completion.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.complete(null);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.TcpIpPortFoundEvent;
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * TCP/IP port scanner performing non-blocking connects, multiplexed over a single {@link Selector}.
+ * Scanning a host only queues its probes, so the calling thread is never blocked.
+ * A single selector thread keeps at most a maximum amount of connects in flight and reports every accepted connect
+ * as a {@link TcpIpPortFoundEvent}, just like the blocking {@link com.github.thibstars.netaware.scanners.PortScanner}.
+ * Connects are paced by an {@link AimdRateController}: answered connects, accepted or refused, grow the amount of
+ * connects in flight while connects running into the timeout shrink it.
+ * Closing the scanner aborts the scans still in progress, their futures complete exceptionally.
+ *
+ * @author Thibault Helsmoortel
+ */
+public final class NioPortScanner implements AutoCloseable {
+
+    public static final int[] DEFAULT_PORTS = IntStream.rangeClosed(1, 1024).toArray();
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofMillis(1000);
+    public static final int DEFAULT_MAX_IN_FLIGHT = 512;
+    public static final double DEFAULT_MAX_RATE = 20_000;
+
+    private static final long MAX_SELECT_MILLIS = 50;
+
+    private final EventManager eventManager;
+    private final int[] ports;
+    private final long connectTimeoutNanos;
+    private final AimdRateController rateController;
+    private final Queue<Probe> pendingProbes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingProbeCount = new AtomicInteger();
+    private final Selector selector;
+    private final Thread selectorThread;
+    // Guards queueing probes against the selector loop draining them once closed
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean closed;
+
+    public NioPortScanner(EventManager eventManager) {
+        this(eventManager, DEFAULT_PORTS, DEFAULT_CONNECT_TIMEOUT, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Creates a scanner without packet rate limit, adapting the amount of connects in flight up to the given maximum.
+     *
+     * @param eventManager   the event manager to dispatch the found ports to
+     * @param ports          the ports to probe on every host
+     * @param connectTimeout the time after which a connect without answer is considered a closed port
+     * @param maxInFlight    the maximum amount of connects in flight at the same time
+     */
+    public NioPortScanner(EventManager eventManager, int[] ports, Duration connectTimeout, int maxInFlight) {
+        this(eventManager, ports, connectTimeout,
+                new AimdRateController(maxInFlight, maxInFlight, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * @param eventManager   the event manager to dispatch the found ports to
+     * @param ports          the ports to probe on every host
+     * @param connectTimeout the time after which a connect without answer is considered a closed port
+     * @param rateController the controller pacing the connects
+     */
+    public NioPortScanner(EventManager eventManager, int[] ports, Duration connectTimeout, AimdRateController rateController) {
+        this.eventManager = eventManager;
+        this.ports = ports.clone();
+        this.connectTimeoutNanos = connectTimeout.toNanos();
+        this.rateController = rateController;
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.selectorThread = Thread.ofPlatform()
+                .name("nio-port-scanner")
+                .daemon()
+                .start(this::runSelectorLoop);
+    }
+
+    /**
+     * Creates a scanner configured through the {@code netaware.portscan.ports} (e.g. {@code 1-1024,3389,8080})
+     * and {@code netaware.portscan.timeout} (milliseconds) system properties.
+     *
+     * @param eventManager   the event manager to dispatch the found ports to
+     * @param rateController the controller pacing the connects
+     * @return the configured scanner
+     */
+    public static NioPortScanner fromSystemProperties(EventManager eventManager, AimdRateController rateController) {
+        String ports = System.getProperty("netaware.portscan.ports");
+
+        return new NioPortScanner(
+                eventManager,
+                ports == null ? DEFAULT_PORTS : parsePorts(ports),
+                Duration.ofMillis(Long.getLong("netaware.portscan.timeout", DEFAULT_CONNECT_TIMEOUT.toMillis())),
+                rateController
+        );
+    }
+
+    /**
+     * @return the amount of probes waiting to be started
+     */
+    public int getPendingProbeCount() {
+        return pendingProbeCount.get();
+    }
+
+    public AimdRateController getRateController() {
+        return rateController;
+    }
+
+    /**
+     * Parses a port set made of comma separated ports and port ranges.
+     *
+     * @param ports the port set, e.g. "22,80,8000-8100"
+     * @return the distinct ports of the set, in ascending order
+     * @throws IllegalArgumentException when the port set is malformed or contains a port outside 1-65535
+     */
+    public static int[] parsePorts(String ports) {
+        try {
+            return Arrays.stream(ports.split(","))
+                    .map(String::trim)
+                    .filter(range -> !range.isEmpty())
+                    .flatMapToInt(range -> {
+                        int dash = range.indexOf('-');
+                        int from = Integer.parseInt(dash < 0 ? range : range.substring(0, dash).trim());
+                        int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1).trim());
+                        if (from < 1 || to > 65535 || from > to) {
+                            throw new IllegalArgumentException("Invalid port range: " + range);
+                        }
+                        return IntStream.rangeClosed(from, to);
+                    })
+                    .distinct()
+                    .sorted()
+                    .toArray();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port set: " + ports, e);
+        }
+    }
+
+    /**
+     * Queues the probes of the configured ports on the given host, without waiting for them.
+     *
+     * @param ipAddress the host to scan
+     */
+    public void scan(InetAddress ipAddress) {
+        scanAsync(ipAddress);
+    }
+
+    /**
+     * Queues the probes of the configured ports on the given host.
+     *
+     * @param ipAddress the host to scan
+     * @return a future completing once every port of the host has been probed,
+     * or exceptionally with a {@link CancellationException} when the scanner is closed before
+     * @throws IllegalStateException when the scanner is closed
+     */
+    public CompletableFuture<Void> scanAsync(InetAddress ipAddress) {
+        HostScan hostScan = new HostScan(ipAddress, ports.length);
+        if (ports.length == 0) {
+            hostScan.completion.complete(null);
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scanner is closed.");
+            }
+            for (int port : ports) {
+                pendingProbes.offer(new Probe(hostScan, port));
+            }
+            pendingProbeCount.addAndGet(ports.length);
+        } finally {
+            lock.unlock();
+        }
+        selector.wakeup();
+
+        return hostScan.completion;
+    }
+
+    /**
+     * Stops the selector thread, aborting the probes that are still queued or in flight.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSelectorLoop() {
+        try {
+            while (!closed) {
+                startPendingProbes();
+                long waitNanos = pendingProbes.isEmpty() ? Long.MAX_VALUE : rateController.nanosUntilNextPermit();
+                long waitMillis = Math.min(MAX_SELECT_MILLIS, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                if (waitMillis > 0) {
+                    selector.select(waitMillis);
+                } else {
+                    selector.selectNow();
+                }
+                long now = System.nanoTime();
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    finishConnect(key);
+                }
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid() && ((Probe) key.attachment()).deadline - now < 0) {
+                        complete(key, false, true);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Port scanner stopped: " + e.getMessage());
+        } finally {
+            // Also when stopped by a failing selector, so no probes are queued after the ones drained below
+            lock.lock();
+            try {
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid()) {
+                    abort(key);
+                }
+            }
+            Probe probe;
+            while ((probe = pendingProbes.poll()) != null) {
+                pendingProbeCount.decrementAndGet();
+                probe.hostScan.abort();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void startPendingProbes() {
+        Probe probe;
+        while (!pendingProbes.isEmpty() && rateController.tryAcquire(1)) {
+            probe = pendingProbes.poll();
+            pendingProbeCount.decrementAndGet();
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+            } catch (IOException e) {
+                // Out of sockets or the like, nothing was sent so it tells nothing about the network
+                closeQuietly(channel);
+                rateController.release();
+                probe.hostScan.probeCompleted();
+                continue;
+            }
+            try {
+                probe.deadline = System.nanoTime() + connectTimeoutNanos;
+                boolean connected = channel.connect(new InetSocketAddress(probe.hostScan.ipAddress, probe.port));
+                SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                if (connected) {
+                    complete(key, true, false);
+                }
+            } catch (IOException e) {
+                // Refused or unreachable right away
+                closeQuietly(channel);
+                rateController.onSuccess();
+                probe.hostScan.probeCompleted();
+            }
+        }
+    }
+
+    private void finishConnect(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        boolean connected;
+        try {
+            connected = ((SocketChannel) key.channel()).finishConnect();
+        } catch (IOException e) {
+            connected = false;
+        }
+        // Refused connects are answers too, only silence indicates congestion
+        complete(key, connected, false);
+    }
+
+    private void complete(SelectionKey key, boolean open, boolean timedOut) {
+        Probe probe = (Probe) key.attachment();
+        key.cancel();
+        closeQuietly((SocketChannel) key.channel());
+        if (timedOut) {
+            rateController.onTimeout();
+        } else {
+            rateController.onSuccess();
+        }
+        if (open) {
+            eventManager.dispatchEvent(new TcpIpPortFoundEvent(this, probe.hostScan.ipAddress, probe.port));
+        }
+        probe.hostScan.probeCompleted();
+    }
+
+    private void abort(SelectionKey key) {
+        Probe probe = (Probe) key.attachment();
+        key.cancel();
+        closeQuietly((SocketChannel) key.channel());
+        rateController.release();
+        probe.hostScan.abort();
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Probe is over either way
+            }
+        }
+    }
+
+    private static final class HostScan {
+
+        private final InetAddress ipAddress;
+        private final AtomicInteger remainingProbes;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        private HostScan(InetAddress ipAddress, int amountOfProbes) {
+            this.ipAddress = ipAddress;
+            this.remainingProbes = new AtomicInteger(amountOfProbes);
+        }
+
+        private void probeCompleted() {
+            if (remainingProbes.decrementAndGet() == 0) {
+                completion.complete(null);
+            }
+        }
+
+        private void abort() {
+            completion.completeExceptionally(new CancellationException("Scanner is closed."));
+        }
+    }
+
+    private static final class Probe {
+
+        private final HostScan hostScan;
+        private final int port;
+        private long deadline;
+
+        private Probe(HostScan hostScan, int port) {
+            this.hostScan = hostScan;
+            this.port = port;
+        }
+    }
+}
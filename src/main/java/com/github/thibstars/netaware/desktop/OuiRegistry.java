@@ -0,0 +1,301 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Registry of the organizationally unique identifiers (OUIs) assigned by the IEEE, naming the manufacturer
+ * of a device from the first three octets of its MAC address.
+ * <p>
+ * The registry is read either from a CSV file in the format of the IEEE MA-L registry, or from its compact form:
+ * a gzipped text file of {@code <prefix>\t<vendor>} lines, sorted by prefix, that only holds what a lookup needs.
+ * The registry is bundled in its compact form, converted from the CSV file by {@link #main(String[])};
+ * another registry can be used through the {@code netaware.oui.file} system property.
+ * Once read, the prefixes are held as a sorted primitive array searched by bisection, next to the vendor names,
+ * so a lookup does not allocate.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class OuiRegistry {
+
+    public static final String BUNDLED_RESOURCE = "oui.txt.gz";
+
+    private static final System.Logger LOGGER = System.getLogger(OuiRegistry.class.getName());
+    private static final String MA_L_REGISTRY = "MA-L";
+    private static final HexFormat PREFIX_FORMAT = HexFormat.of().withUpperCase();
+
+    private final int[] prefixes;
+    private final String[] vendors;
+
+    /**
+     * Reads a registry in the CSV format of the IEEE MA-L registry:
+     * a header line followed by lines holding the registry, the assignment as six hexadecimal digits,
+     * the organization name and the organization address. Lines that do not hold an MA-L assignment are skipped.
+     *
+     * @param reader the reader of the registry, left open
+     * @throws IOException when the registry could not be read
+     */
+    public OuiRegistry(Reader reader) throws IOException {
+        List<String> vendorsByLine = new ArrayList<>();
+        // Sorted by prefix first, the line index resolves the vendor afterwards
+        long[] prefixesAndLines = new long[1024];
+        Map<String, String> uniqueVendors = new HashMap<>();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            List<String> fields = parseFields(line, 3);
+            if (fields.size() < 3 || !MA_L_REGISTRY.equals(fields.get(0))) {
+                continue;
+            }
+            String assignment = fields.get(1);
+            int prefix = assignment.length() == 6 ? parsePrefix(assignment) : -1;
+            if (prefix < 0) {
+                continue;
+            }
+            int lineIndex = vendorsByLine.size();
+            if (lineIndex == prefixesAndLines.length) {
+                prefixesAndLines = Arrays.copyOf(prefixesAndLines, lineIndex * 2);
+            }
+            prefixesAndLines[lineIndex] = (long) prefix << 32 | lineIndex;
+            String vendor = fields.get(2).strip();
+            vendorsByLine.add(uniqueVendors.computeIfAbsent(vendor, name -> name));
+        }
+
+        prefixesAndLines = Arrays.copyOf(prefixesAndLines, vendorsByLine.size());
+        Arrays.sort(prefixesAndLines);
+        int[] sortedPrefixes = new int[prefixesAndLines.length];
+        String[] sortedVendors = new String[prefixesAndLines.length];
+        int size = 0;
+        for (long prefixAndLine : prefixesAndLines) {
+            int prefix = (int) (prefixAndLine >>> 32);
+            // The registry lists a few prefixes twice, the first line wins
+            if (size == 0 || sortedPrefixes[size - 1] != prefix) {
+                sortedPrefixes[size] = prefix;
+                sortedVendors[size] = vendorsByLine.get((int) prefixAndLine);
+                size++;
+            }
+        }
+        this.prefixes = Arrays.copyOf(sortedPrefixes, size);
+        this.vendors = Arrays.copyOf(sortedVendors, size);
+    }
+
+    private OuiRegistry(int[] prefixes, String[] vendors) {
+        this.prefixes = prefixes;
+        this.vendors = vendors;
+    }
+
+    /**
+     * Reads a registry in its compact form: {@code <prefix>\t<vendor>} lines, the prefix as six uppercase hexadecimal
+     * digits, sorted by prefix without duplicates.
+     *
+     * @param reader the reader of the registry, left open
+     * @return the registry
+     * @throws IOException when the registry could not be read, or is not in its compact form
+     */
+    public static OuiRegistry readCompact(Reader reader) throws IOException {
+        int[] prefixes = new int[1024];
+        List<String> vendors = new ArrayList<>();
+        Map<String, String> uniqueVendors = new HashMap<>();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            int size = vendors.size();
+            int prefix = line.length() > 7 && line.charAt(6) == '\t' ? parsePrefix(line.substring(0, 6)) : -1;
+            if (prefix < 0 || (size > 0 && prefixes[size - 1] >= prefix)) {
+                throw new IOException("Not a sorted compact registry line: " + line);
+            }
+            if (size == prefixes.length) {
+                prefixes = Arrays.copyOf(prefixes, size * 2);
+            }
+            prefixes[size] = prefix;
+            vendors.add(uniqueVendors.computeIfAbsent(line.substring(7), name -> name));
+        }
+
+        return new OuiRegistry(Arrays.copyOf(prefixes, vendors.size()), vendors.toArray(String[]::new));
+    }
+
+    /**
+     * Reads the registry configured through the {@code netaware.oui.file} system property, or the bundled one.
+     * The configured file is read as CSV when its name ends with {@code .csv}, as gzipped compact form when it ends
+     * with {@code .gz} and as compact form otherwise. A registry that cannot be read is logged and replaced by an empty one.
+     *
+     * @return the configured registry
+     */
+    public static OuiRegistry fromSystemProperties() {
+        String file = System.getProperty("netaware.oui.file");
+        try {
+            if (file != null) {
+                try (InputStream inputStream = Files.newInputStream(Path.of(file))) {
+                    return read(inputStream, file);
+                }
+            }
+            InputStream resource = OuiRegistry.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE);
+            if (resource == null) {
+                throw new IOException("Missing resource " + BUNDLED_RESOURCE);
+            }
+            try (resource) {
+                return read(resource, BUNDLED_RESOURCE);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read OUI registry " + (file != null ? file : BUNDLED_RESOURCE), e);
+            return new OuiRegistry(new int[0], new String[0]);
+        }
+    }
+
+    private static OuiRegistry read(InputStream inputStream, String name) throws IOException {
+        if (name.endsWith(".csv")) {
+            return new OuiRegistry(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
+        InputStream compactStream = name.endsWith(".gz") ? new GZIPInputStream(inputStream) : inputStream;
+
+        return readCompact(new InputStreamReader(compactStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes this registry in its compact form.
+     *
+     * @param writer the writer of the registry, left open
+     * @throws IOException when the registry could not be written
+     */
+    public void writeCompact(Writer writer) throws IOException {
+        for (int i = 0; i < prefixes.length; i++) {
+            writer.write(PREFIX_FORMAT.toHexDigits(prefixes[i]).substring(2));
+            writer.write('\t');
+            writer.write(vendors[i]);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Converts the CSV file of the IEEE MA-L registry to the gzipped compact form that is bundled, e.g.
+     * {@code java -cp target/classes com.github.thibstars.netaware.desktop.OuiRegistry oui.csv src/main/resources/oui.txt.gz}.
+     *
+     * @param args the CSV file to read and the file to write
+     * @throws IOException when either file could not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OuiRegistry <oui.csv> <oui.txt.gz>");
+            System.exit(2);
+        }
+        OuiRegistry registry;
+        try (Reader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            registry = new OuiRegistry(reader);
+        }
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(Path.of(args[1])));
+                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+            registry.writeCompact(writer);
+        }
+        System.out.println("Wrote " + registry.size() + " prefixes to " + args[1]);
+    }
+
+    /**
+     * @return the registry configured through the system properties, read on first use and shared afterwards
+     */
+    public static OuiRegistry getDefault() {
+        return DefaultRegistryHolder.REGISTRY;
+    }
+
+    /**
+     * Looks up the manufacturer of a device, without allocating.
+     *
+     * @param macAddress the MAC address of the device, its octets optionally separated by colons, hyphens or dots
+     * @return the name of the manufacturer, or an empty string when the address is not assigned in this registry
+     */
+    public String lookup(CharSequence macAddress) {
+        int prefix = parsePrefix(macAddress);
+        if (prefix < 0) {
+            return "";
+        }
+        int index = Arrays.binarySearch(prefixes, prefix);
+
+        return index >= 0 ? vendors[index] : "";
+    }
+
+    /**
+     * @return the amount of prefixes in this registry
+     */
+    public int size() {
+        return prefixes.length;
+    }
+
+    /**
+     * Parses the first six hexadecimal digits of a MAC address or assignment, skipping separators.
+     *
+     * @return the 24-bit prefix, or -1 when there are fewer than six digits before anything else than a separator
+     */
+    private static int parsePrefix(CharSequence value) {
+        int prefix = 0;
+        int digits = 0;
+        for (int i = 0; i < value.length() && digits < 6; i++) {
+            char character = value.charAt(i);
+            int digit = Character.digit(character, 16);
+            if (digit >= 0) {
+                prefix = prefix << 4 | digit;
+                digits++;
+            } else if (character != ':' && character != '-' && character != '.') {
+                return -1;
+            }
+        }
+
+        return digits == 6 ? prefix : -1;
+    }
+
+    /**
+     * Splits the first fields of a CSV line, unquoting quoted fields.
+     */
+    private static List<String> parseFields(String line, int maxFields) {
+        List<String> fields = new ArrayList<>(maxFields);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length() && fields.size() < maxFields; i++) {
+            char character = line.charAt(i);
+            if (quoted) {
+                if (character == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (character == '"') {
+                    quoted = false;
+                } else {
+                    field.append(character);
+                }
+            } else if (character == '"') {
+                quoted = true;
+            } else if (character == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(character);
+            }
+        }
+        if (fields.size() < maxFields) {
+            fields.add(field.toString());
+        }
+
+        return fields;
+    }
+
+    private static final class DefaultRegistryHolder {
+
+        private static final OuiRegistry REGISTRY = fromSystemProperties();
+    }
+}
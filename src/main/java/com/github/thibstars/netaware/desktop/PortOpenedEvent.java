@@ -0,0 +1,29 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.core.Event;
+import java.net.InetAddress;
+
+/**
+ * A TCP/IP port was found open on a device watched by the {@link NetworkMonitor}, while it was not open before.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class PortOpenedEvent extends Event {
+
+    private final InetAddress ipAddress;
+    private final Integer tcpIpPort;
+
+    public PortOpenedEvent(Object source, InetAddress ipAddress, Integer tcpIpPort) {
+        super(source);
+        this.ipAddress = ipAddress;
+        this.tcpIpPort = tcpIpPort;
+    }
+
+    public InetAddress getIpAddress() {
+        return ipAddress;
+    }
+
+    public Integer getTcpIpPort() {
+        return tcpIpPort;
+    }
+}
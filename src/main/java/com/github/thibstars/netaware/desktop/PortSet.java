@@ -0,0 +1,181 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.Arrays;
+
+/**
+ * Compact, sorted set of TCP/IP ports.
+ * Ports are stored as unsigned 16-bit values in a sorted array, so lookups are binary searches
+ * and a device with a handful of open ports only costs a handful of bytes.
+ * A port can carry a label, e.g. the service listening on it. Labels are kept in a parallel array,
+ * only allocated once a label is set.
+ * The textual form is only built when requested and cached until the set changes.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class PortSet {
+
+    private static final char[] NO_PORTS = new char[0];
+
+    private char[] ports = NO_PORTS;
+    // Null until a label is set, then as long as the ports array
+    private String[] labels;
+    private int size;
+    private String text = "";
+
+    /**
+     * Adds a port to this set.
+     *
+     * @param port the port, between 0 and 65535
+     * @return whether the port was added, false when it was already present
+     */
+    public boolean add(int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port: " + port);
+        }
+        int index = Arrays.binarySearch(ports, 0, size, (char) port);
+        if (index >= 0) {
+            return false;
+        }
+        int insertionPoint = -index - 1;
+        if (size == ports.length) {
+            ports = Arrays.copyOf(ports, Math.max(4, size * 2));
+            if (labels != null) {
+                labels = Arrays.copyOf(labels, ports.length);
+            }
+        }
+        System.arraycopy(ports, insertionPoint, ports, insertionPoint + 1, size - insertionPoint);
+        ports[insertionPoint] = (char) port;
+        if (labels != null) {
+            System.arraycopy(labels, insertionPoint, labels, insertionPoint + 1, size - insertionPoint);
+            labels[insertionPoint] = null;
+        }
+        size++;
+        text = null;
+
+        return true;
+    }
+
+    /**
+     * Removes a port from this set.
+     *
+     * @param port the port
+     * @return whether the port was removed, false when it was not present
+     */
+    public boolean remove(int port) {
+        if (port < 0 || port > 65535) {
+            return false;
+        }
+        int index = Arrays.binarySearch(ports, 0, size, (char) port);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ports, index + 1, ports, index, size - index - 1);
+        if (labels != null) {
+            System.arraycopy(labels, index + 1, labels, index, size - index - 1);
+            labels[size - 1] = null;
+        }
+        size--;
+        text = null;
+
+        return true;
+    }
+
+    /**
+     * @param port the port
+     * @return whether the port is part of this set
+     */
+    public boolean contains(int port) {
+        return port >= 0 && port <= 65535 && Arrays.binarySearch(ports, 0, size, (char) port) >= 0;
+    }
+
+    /**
+     * Labels a port of this set.
+     *
+     * @param port  the port
+     * @param label the label, e.g. the service listening on the port
+     * @return whether the label changed, false when it was set already or the port is not part of this set
+     */
+    public boolean setLabel(int port, String label) {
+        if (port < 0 || port > 65535) {
+            return false;
+        }
+        int index = Arrays.binarySearch(ports, 0, size, (char) port);
+        if (index < 0 || (labels != null && label.equals(labels[index]))) {
+            return false;
+        }
+        if (labels == null) {
+            labels = new String[ports.length];
+        }
+        labels[index] = label;
+        text = null;
+
+        return true;
+    }
+
+    /**
+     * @param port the port
+     * @return the label of the port, or null when the port has none or is not part of this set
+     */
+    public String getLabel(int port) {
+        if (labels == null || port < 0 || port > 65535) {
+            return null;
+        }
+        int index = Arrays.binarySearch(ports, 0, size, (char) port);
+
+        return index < 0 ? null : labels[index];
+    }
+
+    /**
+     * @param index the index of the port, in ascending port order
+     * @return the port at the given index
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+
+        return ports[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the ports of this set, in ascending order
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ports[i];
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the ports of this set in ascending order, separated by commas, each followed by its label if any
+     */
+    @Override
+    public String toString() {
+        if (text == null) {
+            StringBuilder builder = new StringBuilder(size * 6);
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append((int) ports[i]);
+                if (labels != null && labels[i] != null) {
+                    builder.append(" (").append(labels[i]).append(')');
+                }
+            }
+            text = builder.toString();
+        }
+
+        return text;
+    }
+}
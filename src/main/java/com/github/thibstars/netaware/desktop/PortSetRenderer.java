@@ -0,0 +1,17 @@
+package com.github.thibstars.netaware.desktop;
+
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Table cell renderer displaying a {@link PortSet} as its comma separated ports.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class PortSetRenderer extends DefaultTableCellRenderer {
+
+    @Override
+    protected void setValue(Object value) {
+        // The port set caches its text, so repainting an unchanged cell does not rebuild it
+        setText(value instanceof PortSet portSet ? portSet.toString() : "");
+    }
+}
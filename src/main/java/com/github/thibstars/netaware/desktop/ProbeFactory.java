@@ -0,0 +1,87 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.core.EventManager;
+import com.github.thibstars.netaware.scanners.IpScanner;
+import com.github.thibstars.netaware.scanners.MacScanner;
+import com.github.thibstars.netaware.scanners.PortScanner;
+import java.net.InetAddress;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Factory of the probes a discovery uses to find IP addresses, open TCP/IP ports, MAC addresses and hostnames.
+ * Probes report their findings as events on the given event manager.
+ * By default the NetAware scanners are used, other factories can replace them, e.g. to run the discovery
+ * pipeline without touching the network.
+ *
+ * @author Thibault Helsmoortel
+ */
+public interface ProbeFactory {
+
+    /**
+     * @param eventManager the event manager to dispatch IP address found events to
+     * @return a probe sweeping an address block
+     */
+    Probe<IpBlock> ipProbe(EventManager eventManager);
+
+    /**
+     * @param eventManager the event manager to dispatch TCP/IP port found events to
+     * @return a probe scanning the ports of a host
+     */
+    Probe<InetAddress> portProbe(EventManager eventManager);
+
+    /**
+     * @param eventManager the event manager to dispatch MAC found events to
+     * @return a probe looking up the MAC address of a host
+     */
+    Probe<InetAddress> macProbe(EventManager eventManager);
+
+    /**
+     * @return the lookup of the hostname of a host, returning the address of the host itself when it has none
+     */
+    default Function<InetAddress, String> hostnameLookup() {
+        return InetAddress::getCanonicalHostName;
+    }
+
+    /**
+     * @return the factory of probes backed by the NetAware scanners
+     */
+    static ProbeFactory netAware() {
+        return new ProbeFactory() {
+            @Override
+            public Probe<IpBlock> ipProbe(EventManager eventManager) {
+                IpScanner ipScanner = new IpScanner(eventManager);
+                return new Probe<>(ipScanner, block -> ipScanner.scan(block.toScannerInput()));
+            }
+
+            @Override
+            public Probe<InetAddress> portProbe(EventManager eventManager) {
+                PortScanner portScanner = new PortScanner(eventManager);
+                return new Probe<>(portScanner, portScanner::scan);
+            }
+
+            @Override
+            public Probe<InetAddress> macProbe(EventManager eventManager) {
+                MacScanner macScanner = new MacScanner(eventManager);
+                return new Probe<>(macScanner, macScanner::scan);
+            }
+        };
+    }
+
+    /**
+     * A probe of a target.
+     *
+     * @param eventSource the source of the events the probe dispatches
+     * @param action      the action probing a target
+     * @param <T>         the type of the probed targets
+     */
+    record Probe<T>(Object eventSource, Consumer<T> action) {
+
+        /**
+         * @param target the target to probe
+         */
+        public void scan(T target) {
+            action.accept(target);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a single discovery: latency histograms and timeout counts per {@link ScanStage},
+ * counts of what was found, how soon hosts were found and the depth of the queues results pass through.
+ * Every recorded unit of work is also emitted as a {@link ScanStageEvent} when Flight Recorder is recording.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class ScanMetrics {
+
+    private final long startNanos = System.nanoTime();
+    private final Map<ScanStage, LatencyHistogram> latencies = new EnumMap<>(ScanStage.class);
+    private final Map<ScanStage, LongAdder> timeouts = new EnumMap<>(ScanStage.class);
+    private final LongAdder hostsFound = new LongAdder();
+    private final LongAdder portsFound = new LongAdder();
+    private final LongAdder servicesFound = new LongAdder();
+    private final LongAdder macAddressesFound = new LongAdder();
+    private final LongAdder hostnamesFound = new LongAdder();
+    private final Map<String, QueueDepth> queueDepths = new ConcurrentHashMap<>();
+    // Time since the start at which each host was found, in the order they were found
+    private long[] hostFoundNanos = new long[64];
+    private int hostFoundCount;
+    private volatile long endNanos;
+
+    public ScanMetrics() {
+        for (ScanStage stage : ScanStage.values()) {
+            latencies.put(stage, new LatencyHistogram());
+            timeouts.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * Records a completed unit of work of a stage.
+     *
+     * @param stage        the stage
+     * @param target       the target of the work, e.g. the address block or host, used in the Flight Recorder event
+     * @param elapsedNanos the latency of the work
+     * @param timedOut     whether the work timed out
+     */
+    public void record(ScanStage stage, Object target, long elapsedNanos, boolean timedOut) {
+        latencies.get(stage).record(elapsedNanos);
+        if (timedOut) {
+            timeouts.get(stage).increment();
+        }
+
+        ScanStageEvent event = new ScanStageEvent();
+        if (event.isEnabled()) {
+            event.stage = stage.name();
+            event.target = String.valueOf(target);
+            event.latency = elapsedNanos;
+            event.timedOut = timedOut;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a discovery result.
+     *
+     * @param update the result
+     */
+    public void recordFound(DeviceUpdate update) {
+        switch (update) {
+            case DeviceUpdate.DeviceFound deviceFound -> {
+                hostsFound.increment();
+                recordHostFound();
+            }
+            case DeviceUpdate.PortFound portFound -> portsFound.increment();
+            case DeviceUpdate.ServiceFound serviceFound -> servicesFound.increment();
+            case DeviceUpdate.MacFound macFound -> macAddressesFound.increment();
+            case DeviceUpdate.HostnameFound hostnameFound -> hostnamesFound.increment();
+            case DeviceUpdate.DeviceAppeared deviceAppeared -> {
+                // Counted when the device was found
+            }
+            case DeviceUpdate.DeviceGone deviceGone -> {
+                // Not a result of this discovery
+            }
+            case DeviceUpdate.PortsChanged portsChanged -> {
+                // Counted when the ports were found
+            }
+        }
+    }
+
+    private synchronized void recordHostFound() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (hostFoundCount == hostFoundNanos.length) {
+            hostFoundNanos = Arrays.copyOf(hostFoundNanos, hostFoundCount * 2);
+        }
+        hostFoundNanos[hostFoundCount++] = elapsedNanos;
+    }
+
+    /**
+     * Records the current depth of a queue.
+     *
+     * @param queue the name of the queue
+     * @param depth the amount of items in the queue
+     */
+    public void recordQueueDepth(String queue, int depth) {
+        QueueDepth queueDepth = queueDepths.computeIfAbsent(queue, name -> new QueueDepth());
+        queueDepth.current.set(depth);
+        queueDepth.max.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Marks the discovery as finished, freezing the throughput figures and emitting a {@link ScanSummaryEvent}.
+     */
+    public void finish() {
+        endNanos = System.nanoTime();
+
+        ScanSummaryEvent event = new ScanSummaryEvent();
+        if (event.isEnabled()) {
+            event.scanDuration = getElapsedNanos();
+            event.hostsFound = hostsFound.sum();
+            event.portsFound = portsFound.sum();
+            event.macAddressesFound = macAddressesFound.sum();
+            event.timeToFirstHost = getTimeToHostsNanos(0);
+            event.timeTo90PercentOfHosts = getTimeToHostsNanos(0.9);
+            event.timeouts = timeouts.values().stream().mapToLong(LongAdder::sum).sum();
+            event.commit();
+        }
+    }
+
+    /**
+     * @param stage the stage
+     * @return the latency histogram of the stage
+     */
+    public LatencyHistogram getLatencies(ScanStage stage) {
+        return latencies.get(stage);
+    }
+
+    /**
+     * @param stage the stage
+     * @return the amount of units of work of the stage that timed out
+     */
+    public long getTimeouts(ScanStage stage) {
+        return timeouts.get(stage).sum();
+    }
+
+    public long getHostsFound() {
+        return hostsFound.sum();
+    }
+
+    public long getPortsFound() {
+        return portsFound.sum();
+    }
+
+    public long getServicesFound() {
+        return servicesFound.sum();
+    }
+
+    public long getMacAddressesFound() {
+        return macAddressesFound.sum();
+    }
+
+    public long getHostnamesFound() {
+        return hostnamesFound.sum();
+    }
+
+    /**
+     * @param fraction the fraction of the hosts found so far, between 0 and 1
+     * @return the time between the start of the discovery and finding that fraction of its hosts, at least one,
+     * or -1 when no hosts were found
+     */
+    public synchronized long getTimeToHostsNanos(double fraction) {
+        if (hostFoundCount == 0) {
+            return -1;
+        }
+        int hosts = Math.clamp((long) Math.ceil(fraction * hostFoundCount), 1, hostFoundCount);
+
+        return hostFoundNanos[hosts - 1];
+    }
+
+    /**
+     * @return the time between the start of the discovery and its end, or now when it is still running
+     */
+    public long getElapsedNanos() {
+        long end = endNanos;
+
+        return (end == 0 ? System.nanoTime() : end) - startNanos;
+    }
+
+    /**
+     * @return a human readable summary of these metrics
+     */
+    public String summary() {
+        double seconds = Math.max(1e-9, getElapsedNanos() / 1e9);
+        StringBuilder summary = new StringBuilder()
+                .append(String.format("Scan took %.1fs: %d hosts (%.1f/s), %d ports (%.1f/s), %d services, %d MAC addresses, %d hostnames%n",
+                        seconds, getHostsFound(), getHostsFound() / seconds, getPortsFound(), getPortsFound() / seconds,
+                        getServicesFound(), getMacAddressesFound(), getHostnamesFound()));
+        if (getHostsFound() > 0) {
+            summary.append(String.format("  first host after %d ms, 90%% of hosts after %d ms%n",
+                    getTimeToHostsNanos(0) / 1_000_000, getTimeToHostsNanos(0.9) / 1_000_000));
+        }
+        for (ScanStage stage : ScanStage.values()) {
+            summary.append(String.format("  %-15s %s timeouts=%d%n", stage, latencies.get(stage), getTimeouts(stage)));
+        }
+        queueDepths.forEach((queue, queueDepth) -> summary.append(String.format("  queue %s: depth=%d max=%d%n",
+                queue, queueDepth.current.get(), queueDepth.max.get())));
+
+        return summary.toString();
+    }
+
+    private static final class QueueDepth {
+
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.utils.OptimalThreadPoolSizeCalculator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Scheduler distributing the address blocks of a sweep over worker threads.
+ * <p>
+ * In {@link Mode#FAN_OUT} mode every block is an independent unit of work, picked up by whichever worker is free
+ * in the order of the {@link SweepQueue} of the sweep, so blocks promoted while sweeping are picked up early.
+ * The amount of blocks being scanned at the same time is capped by a concurrency budget shared by all sweeps
+ * of this scheduler. In {@link Mode#LEGACY_FIXED_POOL} mode the blocks of every /16 network are walked sequentially
+ * by a single task on a fixed thread pool, which is how sweeps were laid out originally.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class ScanScheduler {
+
+    public static final int DEFAULT_CONCURRENCY_BUDGET = 64;
+
+    /**
+     * The way blocks are distributed over threads.
+     */
+    public enum Mode {
+        /**
+         * One unit of work per block, run under the concurrency budget.
+         */
+        FAN_OUT,
+        /**
+         * One task per /16 network, run on a fixed thread pool.
+         */
+        LEGACY_FIXED_POOL
+    }
+
+    private final Mode mode;
+    private final int concurrencyBudget;
+    private final Semaphore permits;
+    private final Supplier<ExecutorService> executorServiceFactory;
+
+    /**
+     * Creates a fan-out scheduler running its blocks on virtual threads.
+     */
+    public ScanScheduler() {
+        this(Mode.FAN_OUT, DEFAULT_CONCURRENCY_BUDGET, Executors::newVirtualThreadPerTaskExecutor);
+    }
+
+    /**
+     * @param mode                   the way blocks are distributed over threads
+     * @param concurrencyBudget      the maximum amount of blocks scanned at the same time, across all sweeps
+     * @param executorServiceFactory the factory of the executor running the blocks in {@link Mode#FAN_OUT} mode
+     */
+    public ScanScheduler(Mode mode, int concurrencyBudget, Supplier<ExecutorService> executorServiceFactory) {
+        if (concurrencyBudget < 1) {
+            throw new IllegalArgumentException("Concurrency budget must be strictly positive.");
+        }
+        this.mode = mode;
+        this.concurrencyBudget = concurrencyBudget;
+        this.permits = new Semaphore(concurrencyBudget);
+        this.executorServiceFactory = executorServiceFactory;
+    }
+
+    /**
+     * Creates a scheduler configured through the {@code netaware.scan.scheduler} ({@code fan-out} or {@code legacy}),
+     * {@code netaware.scan.concurrency} and {@code netaware.scan.executor} ({@code virtual} or {@code platform})
+     * system properties.
+     *
+     * @return the configured scheduler
+     */
+    public static ScanScheduler fromSystemProperties() {
+        Mode mode = "legacy".equalsIgnoreCase(System.getProperty("netaware.scan.scheduler")) ? Mode.LEGACY_FIXED_POOL : Mode.FAN_OUT;
+        int concurrencyBudget = Integer.getInteger("netaware.scan.concurrency", DEFAULT_CONCURRENCY_BUDGET);
+        String executor = System.getProperty("netaware.scan.executor", "virtual").toLowerCase(Locale.ROOT);
+        Supplier<ExecutorService> executorServiceFactory = executor.equals("platform")
+                ? () -> Executors.newFixedThreadPool(concurrencyBudget)
+                : Executors::newVirtualThreadPerTaskExecutor;
+
+        return new ScanScheduler(mode, concurrencyBudget, executorServiceFactory);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getConcurrencyBudget() {
+        return concurrencyBudget;
+    }
+
+    /**
+     * @return a new executor suitable to run a sweep with {@link #sweep(List, ExecutorService, Consumer)}
+     */
+    public ExecutorService newExecutorService() {
+        if (mode == Mode.LEGACY_FIXED_POOL) {
+            OptimalThreadPoolSizeCalculator optimalThreadPoolSizeCalculator = new OptimalThreadPoolSizeCalculator();
+            return Executors.newFixedThreadPool(optimalThreadPoolSizeCalculator.get(0.9, 1000, 2));
+        }
+
+        return executorServiceFactory.get();
+    }
+
+    /**
+     * Scans the given blocks on the given executor. Shutting the executor down aborts the sweep:
+     * workers stop picking up blocks once they are interrupted.
+     *
+     * @param blocks          the blocks to scan
+     * @param executorService the executor running the sweep, see {@link #newExecutorService()}
+     * @param blockScanner    the action scanning a single block
+     * @return a future completing once every block has been scanned
+     */
+    public CompletableFuture<Void> sweep(List<IpBlock> blocks, ExecutorService executorService, Consumer<IpBlock> blockScanner) {
+        return sweep(new SweepQueue(blocks), executorService, blockScanner);
+    }
+
+    /**
+     * Scans the blocks of the given queue on the given executor, in the order the queue hands them out.
+     * In {@link Mode#LEGACY_FIXED_POOL} mode the lanes are laid out upfront, in the initial order of the queue.
+     * Shutting the executor down aborts the sweep: workers stop picking up blocks once they are interrupted.
+     *
+     * @param sweepQueue      the queue of the blocks to scan
+     * @param executorService the executor running the sweep, see {@link #newExecutorService()}
+     * @param blockScanner    the action scanning a single block
+     * @return a future completing once every block has been scanned
+     */
+    public CompletableFuture<Void> sweep(SweepQueue sweepQueue, ExecutorService executorService, Consumer<IpBlock> blockScanner) {
+        List<Runnable> tasks = mode == Mode.LEGACY_FIXED_POOL
+                ? laneTasks(sweepQueue.getRankedBlocks(), blockScanner)
+                : workerTasks(sweepQueue, blockScanner);
+
+        return CompletableFuture.allOf(
+                tasks.stream()
+                        .map(task -> CompletableFuture.runAsync(task, executorService))
+                        .toArray(CompletableFuture[]::new)
+        );
+    }
+
+    private List<Runnable> workerTasks(SweepQueue pendingBlocks, Consumer<IpBlock> blockScanner) {
+        int amountOfWorkers = Math.min(concurrencyBudget, pendingBlocks.getPendingCount());
+        List<Runnable> workers = new ArrayList<>(amountOfWorkers);
+        for (int i = 0; i < amountOfWorkers; i++) {
+            workers.add(() -> {
+                IpBlock block;
+                while (!Thread.currentThread().isInterrupted() && (block = pendingBlocks.poll()) != null) {
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    try {
+                        blockScanner.accept(block);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        }
+
+        return workers;
+    }
+
+    private static List<Runnable> laneTasks(List<IpBlock> blocks, Consumer<IpBlock> blockScanner) {
+        Map<Integer, List<IpBlock>> lanes = new LinkedHashMap<>();
+        for (IpBlock block : blocks) {
+            lanes.computeIfAbsent(block.startAddress() >>> 16, network -> new ArrayList<>()).add(block);
+        }
+
+        return lanes.values().stream()
+                .<Runnable>map(laneBlocks -> () -> {
+                    for (IpBlock block : laneBlocks) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        blockScanner.accept(block);
+                    }
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.thibstars.netaware.desktop;
+
+/**
+ * The stages a discovered device goes through, from being probed to being displayed.
+ *
+ * @author Thibault Helsmoortel
+ */
+public enum ScanStage {
+
+    /**
+     * Probing an address block for live hosts.
+     */
+    IP_PROBE,
+    /**
+     * Scanning the TCP/IP ports of a host.
+     */
+    PORT_SCAN,
+    /**
+     * Looking up the MAC address of a host.
+     */
+    MAC_LOOKUP,
+    /**
+     * Looking up the hostname of a host through reverse DNS.
+     */
+    HOSTNAME_LOOKUP,
+    /**
+     * Reading the banner of an open TCP/IP port to identify its service.
+     */
+    BANNER_GRAB,
+    /**
+     * Scanning a shard of a sharded discovery on a worker, from handing it out to its completion.
+     * Shards of workers that were lost count as timed out.
+     */
+    SHARD,
+    /**
+     * Applying a batch of updates to the result table.
+     */
+    UI_APPLY
+}
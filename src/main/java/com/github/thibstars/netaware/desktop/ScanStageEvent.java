@@ -0,0 +1,34 @@
+package com.github.thibstars.netaware.desktop;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event emitted for every unit of work completed by a stage of a discovery.
+ *
+ * @author Thibault Helsmoortel
+ */
+@Name("com.github.thibstars.netaware.ScanStage")
+@Label("Scan Stage")
+@Category("NetAware")
+@Description("A unit of work of a discovery stage: an address block probe, a port scan, a MAC lookup or a table update")
+@StackTrace(false)
+class ScanStageEvent extends jdk.jfr.Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Target")
+    String target;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Timed Out")
+    boolean timedOut;
+}
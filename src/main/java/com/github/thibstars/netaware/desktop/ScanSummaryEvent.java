@@ -0,0 +1,45 @@
+package com.github.thibstars.netaware.desktop;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event emitted once a discovery has finished.
+ *
+ * @author Thibault Helsmoortel
+ */
+@Name("com.github.thibstars.netaware.ScanSummary")
+@Label("Scan Summary")
+@Category("NetAware")
+@Description("Totals of a finished discovery")
+@StackTrace(false)
+class ScanSummaryEvent extends jdk.jfr.Event {
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long scanDuration;
+
+    @Label("Hosts Found")
+    long hostsFound;
+
+    @Label("Ports Found")
+    long portsFound;
+
+    @Label("MAC Addresses Found")
+    long macAddressesFound;
+
+    @Label("Time To First Host")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeToFirstHost;
+
+    @Label("Time To 90% Of Hosts")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeTo90PercentOfHosts;
+
+    @Label("Timeouts")
+    long timeouts;
+}
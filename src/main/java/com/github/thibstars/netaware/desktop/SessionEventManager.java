@@ -0,0 +1,82 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.core.Event;
+import com.github.thibstars.netaware.events.core.EventHandler;
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Event manager scoped to a single scan session, handed to the scanners of the session in place of a shared one.
+ * <p>
+ * Handlers are kept in a copy-on-write list per event type: dispatching, which happens at a high rate on many scanner
+ * threads, iterates a snapshot without taking a lock, while registering, which happens a handful of times per session,
+ * pays for the copy. Closing the manager drops its handlers, events dispatched afterwards are ignored.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class SessionEventManager extends EventManager {
+
+    private final Map<Class<?>, List<EventHandler<?>>> handlersByEventType = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    @Override
+    public <T extends Event> void registerHandler(Class<T> eventType, EventHandler<T> handler) {
+        if (closed) {
+            throw new IllegalStateException("Event manager is closed.");
+        }
+        handlersByEventType.computeIfAbsent(eventType, type -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Removes a handler registered for the given event type.
+     *
+     * @param eventType the type of the events the handler was registered for
+     * @param handler   the handler
+     * @param <T>       the type of the events
+     */
+    public <T extends Event> void unregisterHandler(Class<T> eventType, EventHandler<T> handler) {
+        List<EventHandler<?>> handlers = handlersByEventType.get(eventType);
+        if (handlers != null) {
+            handlers.remove(handler);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Event> void dispatchEvent(T event) {
+        if (closed) {
+            return;
+        }
+        List<EventHandler<?>> handlers = handlersByEventType.get(event.getClass());
+        if (handlers != null) {
+            for (EventHandler<?> handler : handlers) {
+                ((EventHandler<T>) handler).handle(event);
+            }
+        }
+    }
+
+    /**
+     * @return the amount of handlers registered, for every event type together
+     */
+    public int getHandlerCount() {
+        return handlersByEventType.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Drops every handler. Registering afterwards fails, dispatching does nothing.
+     */
+    public void close() {
+        closed = true;
+        handlersByEventType.clear();
+    }
+
+    /**
+     * @return whether this manager was closed, which its session does once its discovery completes or is cancelled
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,489 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Device service splitting the sweep into shards, handing them out to worker processes connecting over a socket,
+ * see {@link ShardWorker}, and merging the results they stream back into a single discovery.
+ * <p>
+ * Coordinator and workers exchange newline-delimited JSON. The coordinator sends a worker one shard at a time, as
+ * {@code {"type":"shard","id":3,"blocks":"10.0.48.0+256,10.0.49.0+256"}}, and {@code {"type":"cancel"}} to abort it.
+ * The worker streams the results of the shard as the lines of {@link NdjsonWriter}, ends them with
+ * {@code {"type":"shard-done","id":3}} and sends {@code {"type":"heartbeat"}} lines in between.
+ * A worker that disconnects or stays silent longer than the worker timeout is dropped and its shard is handed
+ * to another worker. A discovery fails once no worker has been connected for the worker timeout while shards remain,
+ * rather than waiting for workers forever. Results are merged per device, so a shard scanned twice does not publish its
+ * devices twice. The metrics of a discovery count the merged results and record the time every shard took as
+ * {@link ScanStage#SHARD}. Only a single discovery runs at a time.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class ShardCoordinator implements DeviceService {
+
+    public static final int DEFAULT_SHARD_SIZE = 16;
+    public static final Duration DEFAULT_WORKER_TIMEOUT = Duration.ofSeconds(30);
+
+    private final TargetPlanner targetPlanner;
+    private final int shardSize;
+    private final Duration workerTimeout;
+    private final ServerSocket serverSocket;
+    private final Thread acceptThread;
+    private final Set<WorkerConnection> workers = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<WorkerConnection> idleWorkers = new LinkedBlockingQueue<>();
+    private final List<Process> spawnedWorkers = new CopyOnWriteArrayList<>();
+    private final AtomicReference<ShardedRun> currentRun = new AtomicReference<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates a coordinator listening for workers on the given address.
+     *
+     * @param targetPlanner the planner deciding which addresses are swept
+     * @param shardSize     the amount of address blocks per shard
+     * @param workerTimeout the time after which a silent worker is considered dead, well above the heartbeat interval
+     * @param bindAddress   the address to listen for workers on, port 0 picks a free port
+     * @throws IOException when the address could not be bound
+     */
+    public ShardCoordinator(TargetPlanner targetPlanner, int shardSize, Duration workerTimeout, InetSocketAddress bindAddress)
+            throws IOException {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Shard size must be strictly positive.");
+        }
+        if (workerTimeout.compareTo(ShardWorker.HEARTBEAT_INTERVAL.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("Worker timeout must be at least twice the heartbeat interval of "
+                    + ShardWorker.HEARTBEAT_INTERVAL.toSeconds() + " seconds.");
+        }
+        this.targetPlanner = targetPlanner;
+        this.shardSize = shardSize;
+        this.workerTimeout = workerTimeout;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(bindAddress);
+        this.acceptThread = Thread.ofPlatform().name("shard-coordinator").daemon().start(this::acceptWorkers);
+    }
+
+    /**
+     * Creates a coordinator configured through the {@code netaware.shard.size}, {@code netaware.shard.workerTimeout}
+     * (seconds) and {@code netaware.shard.bindAddress} system properties. By default, only workers on the same machine
+     * can connect.
+     *
+     * @param targetPlanner the planner deciding which addresses are swept
+     * @param port          the port to listen for workers on, 0 picks a free port
+     * @return the configured coordinator
+     * @throws IOException when the port could not be bound
+     */
+    public static ShardCoordinator fromSystemProperties(TargetPlanner targetPlanner, int port) throws IOException {
+        String bindAddress = System.getProperty("netaware.shard.bindAddress");
+        return new ShardCoordinator(
+                targetPlanner,
+                Integer.getInteger("netaware.shard.size", DEFAULT_SHARD_SIZE),
+                Duration.ofSeconds(Long.getLong("netaware.shard.workerTimeout", DEFAULT_WORKER_TIMEOUT.toSeconds())),
+                bindAddress == null
+                        ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                        : new InetSocketAddress(bindAddress, port)
+        );
+    }
+
+    /**
+     * @return the port workers connect to
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the amount of workers currently connected
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Starts worker processes on this machine, running the same application with the same {@code netaware.*}
+     * system properties. They connect on their own and are stopped when this coordinator is closed.
+     *
+     * @param count the amount of workers to start
+     * @throws IOException when a worker process could not be started
+     */
+    public void spawnLocalWorkers(int count) throws IOException {
+        String java = ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        InetAddress address = serverSocket.getInetAddress();
+        String host = address.isAnyLocalAddress() ? InetAddress.getLoopbackAddress().getHostAddress() : address.getHostAddress();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path")));
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("netaware."))
+                .sorted()
+                .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        command.addAll(List.of(NetAwareDesktop.class.getName(), "--headless", "--worker", host + ":" + getPort()));
+        for (int i = 0; i < count; i++) {
+            spawnedWorkers.add(new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+    }
+
+    /**
+     * Starts a sharded discovery of the targets of the planner, once workers are available.
+     *
+     * @param subscriber the subscriber receiving the merged results and progress of the scan
+     * @return the handle to the running scan
+     * @throws IllegalStateException when a discovery is running already, or the coordinator is closed
+     */
+    @Override
+    public Discovery discoverAsync(Flow.Subscriber<? super DiscoveryUpdate> subscriber) {
+        if (closed) {
+            throw new IllegalStateException("Coordinator is closed.");
+        }
+        // Hand out the blocks most likely to hold devices first
+        List<IpBlock> blocks = new SweepQueue(
+                targetPlanner.plan(), TargetPlanner.localAddresses(), TargetPlanner.gatewayAddresses(TargetPlanner.localNetworks()), List.of()
+        ).getRankedBlocks();
+        ShardedRun run = new ShardedRun(blocks, subscriber);
+        if (!currentRun.compareAndSet(null, run)) {
+            throw new IllegalStateException("A sharded discovery is running already.");
+        }
+        run.start();
+
+        return run.discovery;
+    }
+
+    /**
+     * Cancels the running discovery, disconnects the workers and stops the worker processes it started.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ShardedRun run = currentRun.get();
+        if (run != null) {
+            run.discovery.cancel();
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Not accepting workers anymore either way
+        }
+        workers.forEach(WorkerConnection::disconnect);
+        spawnedWorkers.forEach(Process::destroy);
+        try {
+            acceptThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptWorkers() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setSoTimeout((int) workerTimeout.toMillis());
+                socket.setTcpNoDelay(true);
+                WorkerConnection worker = new WorkerConnection(socket);
+                workers.add(worker);
+                Thread.ofVirtual().name("shard-worker-" + socket.getRemoteSocketAddress()).start(worker::readLines);
+                idleWorkers.add(worker);
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Could not accept worker: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * A part of the blocks of a discovery, scanned by a single worker at a time.
+     */
+    private record Shard(ShardedRun run, int id, List<IpBlock> blocks) {
+
+        private String toJson() {
+            return "{\"type\":\"shard\",\"id\":" + id + ",\"blocks\":\""
+                    + blocks.stream().map(IpBlock::toString).collect(Collectors.joining(",")) + "\"}\n";
+        }
+    }
+
+    /**
+     * A single sharded discovery: hands out its shards to idle workers and merges their results.
+     */
+    private final class ShardedRun {
+
+        private final ExecutorService executorService = Executors.newSingleThreadExecutor(
+                Thread.ofVirtual().name("shard-dispatcher").factory()
+        );
+        private final Discovery discovery;
+        private final BlockingDeque<Shard> pendingShards = new LinkedBlockingDeque<>();
+        private final AtomicInteger remainingShards;
+        private final AtomicInteger completedBlocks = new AtomicInteger();
+        private final int totalBlocks;
+        // Merged results, guarded by this run
+        private final Set<String> hosts = new HashSet<>();
+        private final Map<String, PortSet> openPorts = new HashMap<>();
+        private final Set<String> services = new HashSet<>();
+        private final Map<String, String> macAddresses = new HashMap<>();
+        private final Map<String, String> hostnames = new HashMap<>();
+
+        private ShardedRun(List<IpBlock> blocks, Flow.Subscriber<? super DiscoveryUpdate> subscriber) {
+            for (int start = 0, id = 0; start < blocks.size(); start += shardSize, id++) {
+                pendingShards.add(new Shard(this, id, List.copyOf(blocks.subList(start, Math.min(blocks.size(), start + shardSize)))));
+            }
+            this.remainingShards = new AtomicInteger(pendingShards.size());
+            this.totalBlocks = blocks.size();
+
+            SubmissionPublisher<DiscoveryUpdate> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            this.discovery = new Discovery(publisher, executorService, new ScanMetrics(), null);
+            discovery.completion().whenComplete((result, throwable) -> {
+                currentRun.compareAndSet(this, null);
+                if (discovery.isCancelled()) {
+                    workers.forEach(worker -> worker.cancel(this));
+                }
+            });
+        }
+
+        private void start() {
+            if (remainingShards.get() == 0) {
+                discovery.finish(null);
+                return;
+            }
+            executorService.execute(this::dispatchShards);
+        }
+
+        private void dispatchShards() {
+            boolean waitingReported = false;
+            long workerlessSinceNanos = System.nanoTime();
+            try {
+                while (remainingShards.get() > 0 && !discovery.isCancelled()) {
+                    if (!workers.isEmpty()) {
+                        workerlessSinceNanos = System.nanoTime();
+                    } else if (System.nanoTime() - workerlessSinceNanos > workerTimeout.toNanos()) {
+                        discovery.finish(new IOException("No worker connected on port " + getPort() + " for "
+                                + workerTimeout.toSeconds() + " seconds, " + remainingShards.get() + " shards were not scanned"));
+                        return;
+                    }
+                    discovery.getMetrics().recordQueueDepth("pending shards", pendingShards.size());
+                    Shard shard = pendingShards.poll(100, TimeUnit.MILLISECONDS);
+                    if (shard == null) {
+                        continue;
+                    }
+                    WorkerConnection worker = idleWorkers.poll(1, TimeUnit.SECONDS);
+                    if (worker == null) {
+                        pendingShards.addFirst(shard);
+                        if (!waitingReported) {
+                            System.err.println("Waiting for a worker to connect on port " + getPort() + "...");
+                            waitingReported = true;
+                        }
+                    } else if (!worker.assign(shard)) {
+                        pendingShards.addFirst(shard);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Cancelled
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void onShardDone(Shard shard, long elapsedNanos) {
+            discovery.getMetrics().record(ScanStage.SHARD, shard.id(), elapsedNanos, false);
+            discovery.publish(new DiscoveryProgress(completedBlocks.addAndGet(shard.blocks().size()), totalBlocks));
+            if (remainingShards.decrementAndGet() == 0) {
+                discovery.finish(null);
+            }
+        }
+
+        private void reassign(Shard shard, long elapsedNanos) {
+            discovery.getMetrics().record(ScanStage.SHARD, shard.id(), elapsedNanos, true);
+            if (!discovery.isCancelled()) {
+                System.err.println("Reassigning shard " + shard.id() + " of a worker that was lost.");
+                pendingShards.addFirst(shard);
+            }
+        }
+
+        /**
+         * Publishes what a result adds to the results merged so far, if anything.
+         */
+        private void merge(DeviceUpdate update) {
+            if (isNew(update)) {
+                // Published outside the lock, publishing blocks while the subscriber is behind
+                discovery.publish(update);
+            }
+        }
+
+        private synchronized boolean isNew(DeviceUpdate update) {
+            String ipAddress = update.ipAddress();
+            return switch (update) {
+                case DeviceUpdate.DeviceFound deviceFound -> hosts.add(ipAddress);
+                case DeviceUpdate.PortFound portFound -> openPorts.computeIfAbsent(ipAddress, address -> new PortSet()).add(portFound.port());
+                case DeviceUpdate.ServiceFound serviceFound -> services.add(ipAddress + ':' + serviceFound.port() + ' ' + serviceFound.service());
+                case DeviceUpdate.MacFound macFound -> !macFound.macAddress().equals(macAddresses.put(ipAddress, macFound.macAddress()));
+                case DeviceUpdate.HostnameFound hostnameFound -> !hostnameFound.hostname().equals(hostnames.put(ipAddress, hostnameFound.hostname()));
+                // Workers perform plain discoveries, these are only reported by rescans against an inventory
+                case DeviceUpdate.DeviceAppeared deviceAppeared -> false;
+                case DeviceUpdate.DeviceGone deviceGone -> false;
+                case DeviceUpdate.PortsChanged portsChanged -> false;
+            };
+        }
+    }
+
+    /**
+     * The connection to a single worker, reading its lines on a thread of its own.
+     */
+    private final class WorkerConnection {
+
+        private final Socket socket;
+        private final Writer writer;
+        // Guarded by this connection
+        private Shard assignedShard;
+        private long assignedNanos;
+
+        private WorkerConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Sends a shard to this worker.
+         *
+         * @return whether the shard was sent, false when the worker was lost
+         */
+        private boolean assign(Shard shard) {
+            synchronized (this) {
+                if (socket.isClosed()) {
+                    return false;
+                }
+                assignedShard = shard;
+                assignedNanos = System.nanoTime();
+            }
+            try {
+                send(shard.toJson());
+                return true;
+            } catch (IOException e) {
+                synchronized (this) {
+                    assignedShard = null;
+                }
+                disconnect();
+                return false;
+            }
+        }
+
+        private void cancel(ShardedRun run) {
+            Shard shard;
+            synchronized (this) {
+                shard = assignedShard;
+            }
+            if (shard != null && shard.run() == run) {
+                try {
+                    send("{\"type\":\"cancel\"}\n");
+                } catch (IOException e) {
+                    disconnect();
+                }
+            }
+        }
+
+        private void send(String line) throws IOException {
+            // Lines are written whole, so the dispatcher and a cancelling thread can't interleave them
+            writer.write(line);
+            writer.flush();
+        }
+
+        private void readLines() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    handle(line);
+                }
+            } catch (SocketTimeoutException e) {
+                System.err.println("Worker " + socket.getRemoteSocketAddress() + " timed out.");
+            } catch (IOException e) {
+                // Disconnected
+            } finally {
+                disconnect();
+                Shard shard;
+                long elapsedNanos;
+                synchronized (this) {
+                    shard = assignedShard;
+                    elapsedNanos = System.nanoTime() - assignedNanos;
+                    assignedShard = null;
+                }
+                if (shard != null) {
+                    shard.run().reassign(shard, elapsedNanos);
+                }
+            }
+        }
+
+        private void handle(String line) {
+            Map<String, Object> values;
+            try {
+                values = NdjsonReader.parseObject(line);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring invalid line from worker: " + e.getMessage());
+                return;
+            }
+            Shard shard;
+            long elapsedNanos;
+            synchronized (this) {
+                shard = assignedShard;
+                elapsedNanos = System.nanoTime() - assignedNanos;
+            }
+            if ("shard-done".equals(values.get("type"))) {
+                if (shard != null && values.get("id") instanceof Long id && id == shard.id()) {
+                    synchronized (this) {
+                        assignedShard = null;
+                    }
+                    if (!shard.run().discovery.isCancelled()) {
+                        shard.run().onShardDone(shard, elapsedNanos);
+                    }
+                    idleWorkers.add(this);
+                }
+                return;
+            }
+            try {
+                if (shard != null && NdjsonReader.toUpdate(values) instanceof DeviceUpdate update) {
+                    shard.run().merge(update);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring invalid line from worker: " + e.getMessage());
+            }
+        }
+
+        private void disconnect() {
+            workers.remove(this);
+            idleWorkers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closed either way
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker scanning the shards handed out by a {@link ShardCoordinator} and streaming the results back over the same
+ * connection, as the lines of {@link NdjsonWriter}. See the coordinator for the exchanged lines.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class ShardWorker {
+
+    /**
+     * The interval at which a worker reports it is alive, busy or not.
+     */
+    public static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(5);
+
+    private final LocalDeviceService deviceService;
+    private volatile Discovery currentDiscovery;
+
+    /**
+     * @param deviceService the service scanning the shards
+     */
+    public ShardWorker(LocalDeviceService deviceService) {
+        this.deviceService = deviceService;
+    }
+
+    /**
+     * Connects to a coordinator and scans the shards it hands out, until the coordinator closes the connection.
+     *
+     * @param host the host of the coordinator
+     * @param port the port of the coordinator
+     * @throws IOException when the connection failed
+     */
+    public void run(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("shard-heartbeat").daemon().factory()
+            );
+            heartbeat.scheduleAtFixedRate(() -> send(writer, "{\"type\":\"heartbeat\"}\n"),
+                    0, HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    handle(line, writer);
+                }
+            } finally {
+                heartbeat.shutdownNow();
+                Discovery discovery = currentDiscovery;
+                if (discovery != null) {
+                    discovery.cancel();
+                }
+            }
+        }
+    }
+
+    private void handle(String line, Writer writer) {
+        Map<String, Object> values;
+        try {
+            values = NdjsonReader.parseObject(line);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid line from coordinator: " + e.getMessage());
+            return;
+        }
+        switch (String.valueOf(values.get("type"))) {
+            case "shard" -> {
+                if (values.get("id") instanceof Long id && values.get("blocks") instanceof String blocks) {
+                    scan(id, blocks, writer);
+                } else {
+                    System.err.println("Ignoring invalid shard from coordinator: " + line);
+                }
+            }
+            case "cancel" -> {
+                Discovery discovery = currentDiscovery;
+                if (discovery != null) {
+                    discovery.cancel();
+                }
+            }
+            default -> System.err.println("Ignoring unknown line from coordinator: " + line);
+        }
+    }
+
+    private void scan(long id, String blocks, Writer writer) {
+        List<IpBlock> shardBlocks;
+        try {
+            shardBlocks = blocks.isEmpty() ? List.of() : Arrays.stream(blocks.split(",")).map(IpBlock::parse).toList();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid shard from coordinator: " + e.getMessage());
+            return;
+        }
+        NdjsonWriter ndjsonWriter = new NdjsonWriter(writer, true);
+        currentDiscovery = deviceService.discoverAsync(shardBlocks, ndjsonWriter);
+        // Written once every result of the shard has been, cancelled or not
+        ndjsonWriter.completion().whenComplete((result, throwable) -> send(writer, "{\"type\":\"shard-done\",\"id\":" + id + "}\n"));
+    }
+
+    private static void send(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.flush();
+        } catch (IOException e) {
+            // The coordinator is gone, reading the connection ends the worker
+        }
+    }
+}
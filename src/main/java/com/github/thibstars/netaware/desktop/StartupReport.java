@@ -0,0 +1,45 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Report of the time it took the application to reach the milestones of its startup, such as painting its first frame,
+ * measured from the launch of its process. Enabled through {@code netaware.startup.report=true}, every milestone is
+ * printed to the standard error once, as a {@code startup <milestone> <milliseconds> ms} line, and otherwise costs nothing.
+ *
+ * @author Thibault Helsmoortel
+ */
+public final class StartupReport {
+
+    public static final String FIRST_FRAME = "first-frame";
+    public static final String FIRST_RESULT = "first-result";
+
+    private static final boolean ENABLED = Boolean.getBoolean("netaware.startup.report");
+    private static final Set<String> REACHED_MILESTONES = ConcurrentHashMap.newKeySet();
+
+    private StartupReport() {
+    }
+
+    /**
+     * Reports a milestone of the startup, unless reports are disabled or it was reported before. Safe to call from any thread.
+     *
+     * @param milestone the milestone that was reached
+     */
+    public static void reached(String milestone) {
+        if (ENABLED && REACHED_MILESTONES.add(milestone)) {
+            System.err.println("startup " + milestone + " " + Duration.between(LaunchHolder.LAUNCH, Instant.now()).toMillis() + " ms");
+        }
+    }
+
+    /**
+     * Only looks up the launch of the process once a report is enabled.
+     */
+    private static final class LaunchHolder {
+
+        // Falls back to the first report when the platform doesn't tell when the process was launched
+        private static final Instant LAUNCH = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+    }
+}
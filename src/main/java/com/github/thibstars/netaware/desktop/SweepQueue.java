@@ -0,0 +1,171 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * Queue of the blocks of a sweep, handing out the blocks most likely to hold live devices first.
+ * <p>
+ * Blocks are ranked by {@link Priority}: the /24 networks of the local network interfaces and of their gateways first,
+ * then the networks where devices were found before, then the networks next to devices found during this sweep,
+ * and the rest last. Blocks of the same rank keep the order they were planned in.
+ * Finding a device promotes the pending blocks of its /24 network and of the adjacent ones, since addresses tend to be
+ * handed out in clusters. A promoted block is queued again at its new rank, its stale entry is skipped once it comes up.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class SweepQueue {
+
+    /**
+     * The rank of a block, blocks of a lower rank are swept first.
+     */
+    public enum Priority {
+        /**
+         * Part of the /24 network of a local network interface, or of a gateway of the local networks.
+         */
+        LOCAL,
+        /**
+         * Part of a /24 network where devices were found before.
+         */
+        PREVIOUS_HIT,
+        /**
+         * Part of the /24 network of a device found during this sweep, or of an adjacent one.
+         */
+        NEAR_HIT,
+        /**
+         * Any other block.
+         */
+        REMAINING
+    }
+
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+            .comparing(Entry::priority)
+            .thenComparingInt(Entry::plannedIndex);
+
+    private final PriorityBlockingQueue<Entry> entries;
+    private final Map<IpBlock, Entry> pendingEntries = new ConcurrentHashMap<>();
+    private final Map<Integer, List<Entry>> entriesByNetwork = new HashMap<>();
+
+    /**
+     * Creates a queue handing out the blocks in the order they were planned.
+     *
+     * @param blocks the blocks to sweep
+     */
+    public SweepQueue(List<IpBlock> blocks) {
+        this(blocks, List.of(), List.of(), List.of());
+    }
+
+    /**
+     * @param blocks           the blocks to sweep, in the order they were planned
+     * @param localAddresses   the addresses of the local network interfaces
+     * @param gatewayAddresses the addresses of the gateways of the local networks, see {@link TargetPlanner#gatewayAddresses(List)}
+     * @param previousHits     the addresses of devices found before
+     */
+    public SweepQueue(List<IpBlock> blocks, Collection<Integer> localAddresses, Collection<Integer> gatewayAddresses,
+            Collection<Integer> previousHits) {
+        Set<Integer> localNetworks24 = new HashSet<>();
+        localAddresses.forEach(address -> localNetworks24.add(network24(address)));
+        gatewayAddresses.forEach(address -> localNetworks24.add(network24(address)));
+        Set<Integer> previousHitNetworks24 = new HashSet<>();
+        previousHits.forEach(address -> previousHitNetworks24.add(network24(address)));
+
+        this.entries = new PriorityBlockingQueue<>(Math.max(1, blocks.size()), ENTRY_ORDER);
+        for (int i = 0; i < blocks.size(); i++) {
+            IpBlock block = blocks.get(i);
+            // Blocks never cross a /24 boundary, so their first address tells their network
+            int network24 = network24(block.startAddress());
+            Priority priority;
+            if (localNetworks24.contains(network24)) {
+                priority = Priority.LOCAL;
+            } else if (previousHitNetworks24.contains(network24)) {
+                priority = Priority.PREVIOUS_HIT;
+            } else {
+                priority = Priority.REMAINING;
+            }
+            Entry entry = new Entry(block, priority, i);
+            // A block planned twice is swept once, at its first planned position
+            if (pendingEntries.putIfAbsent(block, entry) == null) {
+                entries.add(entry);
+                entriesByNetwork.computeIfAbsent(network24, network -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    /**
+     * @return the blocks of this queue in the order they would be handed out if no device is found
+     */
+    public List<IpBlock> getRankedBlocks() {
+        return pendingEntries.values().stream()
+                .sorted(ENTRY_ORDER)
+                .map(Entry::block)
+                .toList();
+    }
+
+    /**
+     * Takes the pending block of the lowest rank.
+     *
+     * @return the block, or null when no blocks are pending anymore
+     */
+    public IpBlock poll() {
+        Entry entry;
+        while ((entry = entries.poll()) != null) {
+            // Only the entry still pending claims the block, promoted blocks leave a stale entry behind
+            if (pendingEntries.remove(entry.block(), entry)) {
+                return entry.block();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the amount of blocks not handed out yet
+     */
+    public int getPendingCount() {
+        return pendingEntries.size();
+    }
+
+    /**
+     * Promotes the pending blocks of the /24 network of a device that was found, and of the adjacent networks.
+     *
+     * @param address the address of the device, as a 32-bit integer
+     */
+    public void onDeviceFound(int address) {
+        int network24 = network24(address);
+        promote(network24 - 1);
+        promote(network24);
+        promote(network24 + 1);
+    }
+
+    private void promote(int network24) {
+        List<Entry> networkEntries = entriesByNetwork.get(network24);
+        if (networkEntries == null) {
+            return;
+        }
+        for (Entry entry : networkEntries) {
+            if (entry.priority().compareTo(Priority.NEAR_HIT) <= 0) {
+                continue;
+            }
+            Entry promotedEntry = new Entry(entry.block(), Priority.NEAR_HIT, entry.plannedIndex());
+            if (pendingEntries.replace(entry.block(), entry, promotedEntry)) {
+                entries.add(promotedEntry);
+            }
+        }
+    }
+
+    private static int network24(int address) {
+        return address >>> 8;
+    }
+
+    private record Entry(IpBlock block, Priority priority, int plannedIndex) {
+
+    }
+}
@@ -0,0 +1,304 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Planner deciding which addresses a sweep covers, and in which order.
+ * <p>
+ * The networks attached to the local network interfaces come first, followed by explicitly included networks.
+ * The private networks that used to be swept unconditionally are only planned when requested,
+ * or as a fallback when nothing else is. Excluded networks are never planned and every address is planned once.
+ * The plan is split into blocks of at most 256 addresses that never cross a /24 boundary.
+ *
+ * @author Thibault Helsmoortel
+ */
+public class TargetPlanner {
+
+    public static final int MAX_BLOCK_SIZE = 256;
+
+    public static final Path PROC_NET_ROUTE = Path.of("/proc/net/route");
+
+    // Flag of the routes leading through a gateway, see route(8)
+    private static final int RTF_GATEWAY = 0x2;
+
+    /**
+     * The widest network swept for a local network interface. Interfaces on wider networks only get
+     * the part of their network surrounding their own address swept.
+     */
+    public static final int MIN_LOCAL_PREFIX_LENGTH = 16;
+
+    /**
+     * The private networks swept when no other targets are available.
+     */
+    public static final List<Cidr> PRIVATE_NETWORKS = List.of(
+            Cidr.parse("10.0.0.0/16"),
+            Cidr.parse("172.16.0.0/20"),
+            Cidr.parse("192.168.0.0/16")
+    );
+
+    private final boolean includeLocalNetworks;
+    private final boolean includePrivateNetworks;
+    private final List<Cidr> includedNetworks;
+    private final List<Cidr> excludedNetworks;
+
+    /**
+     * Creates a planner sweeping the local networks, falling back to the private networks.
+     */
+    public TargetPlanner() {
+        this(true, false, List.of(), List.of());
+    }
+
+    /**
+     * @param includeLocalNetworks   whether to sweep the networks attached to the local network interfaces
+     * @param includePrivateNetworks whether to sweep the {@link #PRIVATE_NETWORKS}, even when other targets are available
+     * @param includedNetworks       the networks to sweep explicitly
+     * @param excludedNetworks       the networks never to sweep
+     */
+    public TargetPlanner(boolean includeLocalNetworks, boolean includePrivateNetworks,
+            List<Cidr> includedNetworks, List<Cidr> excludedNetworks) {
+        this.includeLocalNetworks = includeLocalNetworks;
+        this.includePrivateNetworks = includePrivateNetworks;
+        this.includedNetworks = List.copyOf(includedNetworks);
+        this.excludedNetworks = List.copyOf(excludedNetworks);
+    }
+
+    /**
+     * Creates a planner configured through the {@code netaware.scan.targets} and {@code netaware.scan.exclude}
+     * (comma separated CIDR lists), {@code netaware.scan.localNetworks} and {@code netaware.scan.privateNetworks}
+     * system properties.
+     *
+     * @return the configured planner
+     */
+    public static TargetPlanner fromSystemProperties() {
+        return new TargetPlanner(
+                Boolean.parseBoolean(System.getProperty("netaware.scan.localNetworks", "true")),
+                Boolean.getBoolean("netaware.scan.privateNetworks"),
+                parseCidrs(System.getProperty("netaware.scan.targets", "")),
+                parseCidrs(System.getProperty("netaware.scan.exclude", ""))
+        );
+    }
+
+    /**
+     * @param cidrs comma separated networks in CIDR notation
+     * @return the parsed networks
+     */
+    public static List<Cidr> parseCidrs(String cidrs) {
+        return Arrays.stream(cidrs.split(","))
+                .filter(cidr -> !cidr.isBlank())
+                .map(Cidr::parse)
+                .toList();
+    }
+
+    /**
+     * @return the blocks to sweep, in the order they should be swept
+     */
+    public List<IpBlock> plan() {
+        return plan(includeLocalNetworks ? localNetworks() : List.of());
+    }
+
+    /**
+     * Plans the sweep, given the networks attached to the local network interfaces.
+     *
+     * @param localNetworks the networks attached to the local network interfaces, in priority order
+     * @return the blocks to sweep, in the order they should be swept
+     */
+    public List<IpBlock> plan(List<Cidr> localNetworks) {
+        List<long[]> ranges = new ArrayList<>();
+        localNetworks.forEach(network -> ranges.add(hostRange(network)));
+        includedNetworks.forEach(network -> ranges.add(range(network)));
+        if (includePrivateNetworks || ranges.isEmpty()) {
+            PRIVATE_NETWORKS.forEach(network -> ranges.add(range(network)));
+        }
+
+        List<long[]> plannedRanges = new ArrayList<>();
+        List<long[]> blockedRanges = new ArrayList<>();
+        excludedNetworks.forEach(network -> blockedRanges.add(range(network)));
+        for (long[] range : ranges) {
+            List<long[]> remainder = subtract(range, blockedRanges);
+            plannedRanges.addAll(remainder);
+            blockedRanges.add(range);
+        }
+
+        List<IpBlock> blocks = new ArrayList<>();
+        for (long[] range : plannedRanges) {
+            long start = range[0];
+            while (start < range[1]) {
+                long end = Math.min(range[1], (start & ~(MAX_BLOCK_SIZE - 1L)) + MAX_BLOCK_SIZE);
+                blocks.add(new IpBlock((int) start, (int) (end - start)));
+                start = end;
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * @return the IPv4 networks attached to the network interfaces that are up, excluding loopback interfaces
+     */
+    public static List<Cidr> localNetworks() {
+        List<Cidr> networks = new ArrayList<>();
+        try {
+            for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!networkInterface.isUp() || networkInterface.isLoopback()) {
+                    continue;
+                }
+                for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                    if (interfaceAddress.getAddress() instanceof Inet4Address inet4Address) {
+                        int prefixLength = Math.max(MIN_LOCAL_PREFIX_LENGTH, interfaceAddress.getNetworkPrefixLength());
+                        Cidr network = new Cidr(Ipv4Addresses.of(inet4Address), prefixLength);
+                        if (!networks.contains(network)) {
+                            networks.add(network);
+                        }
+                    }
+                }
+            }
+        } catch (SocketException e) {
+            System.err.println("Could not list network interfaces: " + e.getMessage());
+        }
+
+        return networks;
+    }
+
+    /**
+     * @return the IPv4 addresses of the network interfaces that are up, excluding loopback interfaces
+     */
+    public static List<Integer> localAddresses() {
+        List<Integer> addresses = new ArrayList<>();
+        try {
+            for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!networkInterface.isUp() || networkInterface.isLoopback()) {
+                    continue;
+                }
+                for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                    if (interfaceAddress.getAddress() instanceof Inet4Address inet4Address) {
+                        addresses.add(Ipv4Addresses.of(inet4Address));
+                    }
+                }
+            }
+        } catch (SocketException e) {
+            System.err.println("Could not list network interfaces: " + e.getMessage());
+        }
+
+        return addresses;
+    }
+
+    /**
+     * Finds the IPv4 gateways of the local networks, from the first of these sources that names any:
+     * the {@code netaware.scan.gateways} system property (a comma separated list of addresses),
+     * the routing table configured through the {@code netaware.scan.routeTable} system property
+     * (in the format of {@code /proc/net/route}, which it defaults to) and finally the first host of every local network,
+     * the address gateways are most commonly given. Only the last source is available on every platform.
+     *
+     * @param localNetworks the networks attached to the local network interfaces
+     * @return the addresses of the gateways
+     */
+    public static List<Integer> gatewayAddresses(List<Cidr> localNetworks) {
+        String configuredGateways = System.getProperty("netaware.scan.gateways", "");
+        if (!configuredGateways.isBlank()) {
+            return Arrays.stream(configuredGateways.split(","))
+                    .map(String::strip)
+                    .filter(address -> !address.isEmpty())
+                    .map(Ipv4Addresses::parse)
+                    .toList();
+        }
+        Path routeTable = Path.of(System.getProperty("netaware.scan.routeTable", PROC_NET_ROUTE.toString()));
+        if (Files.isReadable(routeTable)) {
+            try {
+                List<Integer> gateways = parseRouteTable(Files.readAllLines(routeTable, StandardCharsets.US_ASCII));
+                if (!gateways.isEmpty()) {
+                    return gateways;
+                }
+            } catch (IOException e) {
+                System.err.println("Could not read routing table " + routeTable + ": " + e.getMessage());
+            }
+        }
+
+        return localNetworks.stream()
+                .map(network -> network.network() + 1)
+                .toList();
+    }
+
+    /**
+     * Parses the gateways of a routing table in the format of {@code /proc/net/route}: a header line followed by a line
+     * per route, holding the interface, the destination, the gateway and the flags, addresses as hexadecimal integers
+     * in the byte order of the host.
+     *
+     * @param lines the lines of the routing table
+     * @return the distinct addresses of the gateways routes lead through
+     */
+    static List<Integer> parseRouteTable(List<String> lines) {
+        List<Integer> gateways = new ArrayList<>();
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            String[] fields = line.strip().split("\\s+");
+            if (fields.length < 4) {
+                continue;
+            }
+            try {
+                int gateway = Integer.parseUnsignedInt(fields[2], 16);
+                int flags = Integer.parseInt(fields[3], 16);
+                if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+                    gateway = Integer.reverseBytes(gateway);
+                }
+                if ((flags & RTF_GATEWAY) != 0 && gateway != 0 && !gateways.contains(gateway)) {
+                    gateways.add(gateway);
+                }
+            } catch (NumberFormatException e) {
+                // Not a route
+            }
+        }
+
+        return gateways;
+    }
+
+    private static long[] range(Cidr network) {
+        return new long[]{network.firstAddress(), network.firstAddress() + network.size()};
+    }
+
+    /**
+     * @return the range of the network without its network and broadcast address, unless it is too small to have them
+     */
+    private static long[] hostRange(Cidr network) {
+        long[] range = range(network);
+        if (network.prefixLength() <= 30) {
+            range[0]++;
+            range[1]--;
+        }
+
+        return range;
+    }
+
+    private static List<long[]> subtract(long[] range, List<long[]> blockedRanges) {
+        List<long[]> remainder = new ArrayList<>();
+        remainder.add(range);
+        for (long[] blocked : blockedRanges) {
+            List<long[]> next = new ArrayList<>();
+            for (long[] part : remainder) {
+                if (blocked[1] <= part[0] || blocked[0] >= part[1]) {
+                    next.add(part);
+                    continue;
+                }
+                if (part[0] < blocked[0]) {
+                    next.add(new long[]{part[0], blocked[0]});
+                }
+                if (blocked[1] < part[1]) {
+                    next.add(new long[]{blocked[1], part[1]});
+                }
+            }
+            remainder = next;
+        }
+
+        return remainder;
+    }
+}
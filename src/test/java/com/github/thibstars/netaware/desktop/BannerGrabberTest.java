@@ -0,0 +1,143 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Grabs the banners of listeners on the loopback address: ones answering like a service, and silent ones accepting
+ * connections without ever sending a byte.
+ *
+ * @author Thibault Helsmoortel
+ */
+class BannerGrabberTest {
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+    // Ports the grabber sends its hello to, the first one free is listened on
+    private static final int[] HTTP_PORTS = {8008, 8081, 8888, 8000, 8080, 3000, 5000};
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable resource : resources.reversed()) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void identifiesTheServiceFromItsBanner() throws Exception {
+        int port = listen(0, socket -> socket.getOutputStream().write(ascii("SSH-2.0-OpenSSH_9.6 Ubuntu\r\n")));
+
+        BannerGrabber.Result result = grabber(Duration.ofSeconds(2)).grab(LOOPBACK, port).get(5, TimeUnit.SECONDS);
+
+        assertEquals(new BannerGrabber.Result("SSH OpenSSH_9.6", false), result);
+    }
+
+    @Test
+    void sendsAHelloToHttpPorts() throws Exception {
+        int port = listen(httpPort(), socket -> {
+            byte[] request = socket.getInputStream().readNBytes("HEAD / HTTP/1.0\r\n\r\n".length());
+            if (new String(request, StandardCharsets.US_ASCII).startsWith("HEAD / ")) {
+                socket.getOutputStream().write(ascii("HTTP/1.0 200 OK\r\nServer: nginx/1.25.3\r\n\r\n"));
+            }
+        });
+
+        BannerGrabber.Result result = grabber(Duration.ofSeconds(2)).grab(LOOPBACK, port).get(5, TimeUnit.SECONDS);
+
+        assertEquals(new BannerGrabber.Result("HTTP nginx/1.25.3", false), result);
+    }
+
+    @Test
+    void identifiesNothingOnSilentHttpPorts() throws Exception {
+        int port = listen(httpPort(), socket -> socket.getInputStream().readAllBytes());
+
+        BannerGrabber grabber = grabber(Duration.ofMillis(200));
+        BannerGrabber.Result result = grabber.grab(LOOPBACK, port).get(5, TimeUnit.SECONDS);
+
+        // Only what the port sent is identified, never the hello sent to it
+        assertEquals(new BannerGrabber.Result("", true), result);
+        assertEquals(1, grabber.getAvailableBufferCount());
+    }
+
+    @Test
+    void closingStopsTheGrabsInFlight() throws Exception {
+        int port = listen(0, socket -> socket.getInputStream().readAllBytes());
+        BannerGrabber grabber = grabber(Duration.ofMinutes(1));
+        CompletableFuture<BannerGrabber.Result> grab = grabber.grab(LOOPBACK, port);
+        while (grabber.getAvailableBufferCount() > 0) {
+            Thread.onSpinWait();
+        }
+
+        grabber.close();
+
+        assertEquals("", grab.get(5, TimeUnit.SECONDS).service());
+        assertEquals(1, grabber.getAvailableBufferCount());
+        assertThrows(IllegalStateException.class, () -> grabber.grab(LOOPBACK, port));
+    }
+
+    private BannerGrabber grabber(Duration timeout) {
+        BannerGrabber grabber = new BannerGrabber(1, timeout, 256);
+        resources.add(grabber);
+
+        return grabber;
+    }
+
+    /**
+     * Accepts connections on the given port, or any free port for 0, handing each one to the listener.
+     *
+     * @return the port listened on
+     */
+    private int listen(int port, Listener listener) throws IOException {
+        ServerSocket serverSocket = new ServerSocket();
+        resources.add(serverSocket);
+        serverSocket.bind(new InetSocketAddress(LOOPBACK, port));
+        Thread.startVirtualThread(() -> {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    listener.accept(socket);
+                } catch (IOException e) {
+                    // Closed by the test or by the grabber
+                }
+            }
+        });
+
+        return serverSocket.getLocalPort();
+    }
+
+    private static int httpPort() {
+        for (int port : HTTP_PORTS) {
+            try (ServerSocket serverSocket = new ServerSocket()) {
+                serverSocket.bind(new InetSocketAddress(LOOPBACK, port));
+                return port;
+            } catch (IOException e) {
+                // In use, try the next one
+            }
+        }
+        throw new IllegalStateException("No HTTP port is free on the loopback address.");
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @FunctionalInterface
+    private interface Listener {
+
+        void accept(Socket socket) throws IOException;
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class DeviceExportTest {
+
+    private static final Instant EXPORTED = Instant.parse("2024-05-01T12:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackTheDevicesWrittenAsCsv() throws IOException {
+        assertRoundTrip(DeviceExport.Format.CSV);
+    }
+
+    @Test
+    void readsBackTheDevicesWrittenAsJson() throws IOException {
+        assertRoundTrip(DeviceExport.Format.JSON);
+    }
+
+    @Test
+    void readsBackTheDevicesWrittenAsBinary() throws IOException {
+        assertRoundTrip(DeviceExport.Format.BINARY);
+    }
+
+    @Test
+    void exportsTablesLargerThanAChunk() throws IOException {
+        for (DeviceExport.Format format : DeviceExport.Format.values()) {
+            DeviceTableModel tableModel = new DeviceTableModel();
+            tableModel.apply(IntStream.range(0, 2500)
+                    .<DeviceUpdate>mapToObj(row -> new DeviceUpdate.DeviceFound(Ipv4Addresses.format(Ipv4Addresses.parse("10.0.0.0") + row)))
+                    .toList());
+            List<Runnable> chunkReads = new ArrayList<>();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            DeviceExport.write(tableModel, chunkRead -> {
+                chunkReads.add(chunkRead);
+                chunkRead.run();
+            }, format, output);
+
+            assertEquals(3, chunkReads.size());
+            List<InventoryEntry> entries = DeviceExport.read(format, new ByteArrayInputStream(output.toByteArray()), EXPORTED);
+            assertEquals(IntStream.range(0, 2500).mapToObj(row -> tableModel.getDevice(row).getIpAddress()).toList(),
+                    entries.stream().map(InventoryEntry::ipAddress).toList());
+        }
+    }
+
+    @Test
+    void readsJsonArraysWhateverTheirLayout() throws IOException {
+        String json = """
+                [ {"ip": "10.0.0.1", "vendor": "a {b} \\"c\\"",
+                   "mac": "aa:bb:cc:dd:ee:ff", "online": true, "hostname": null,
+                   "ports": [ 443,
+                              22 ] },
+                  {"ip": "10.0.0.2"}, {"ip": "10.0.0.3", "ports": []}
+                ]""";
+
+        List<InventoryEntry> entries = DeviceExport.read(DeviceExport.Format.JSON, input(json), EXPORTED);
+
+        assertEquals(List.of(
+                new InventoryEntry("10.0.0.1", "aa:bb:cc:dd:ee:ff", new int[]{22, 443}, EXPORTED, EXPORTED),
+                new InventoryEntry("10.0.0.2", "", new int[0], EXPORTED, EXPORTED),
+                new InventoryEntry("10.0.0.3", "", new int[0], EXPORTED, EXPORTED)
+        ), entries);
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        assertThrows(IOException.class, () -> DeviceExport.read(DeviceExport.Format.JSON, input("[{\"ip\": \"10.0.0.1\"}"), EXPORTED));
+        assertThrows(IOException.class, () -> DeviceExport.read(DeviceExport.Format.JSON, input("{\"ip\": \"10.0.0.1\"}"), EXPORTED));
+        assertThrows(IOException.class, () -> DeviceExport.read(DeviceExport.Format.JSON, input("[{\"ip\": \"10.0.0.1\"} {}]"), EXPORTED));
+        assertThrows(IOException.class, () -> DeviceExport.read(DeviceExport.Format.JSON, input("[{\"ip\": \"10.0.0.1\"}] ]"), EXPORTED));
+    }
+
+    @Test
+    void rejectsPortsOutOfRange() throws IOException {
+        assertThrows(IOException.class, () -> DeviceExport.read(DeviceExport.Format.CSV, input("ip,mac\n10.0.0.1,,,,UP,65536\n"), EXPORTED));
+        assertThrows(IOException.class, () -> DeviceExport.read(DeviceExport.Format.JSON, input("[{\"ip\": \"10.0.0.1\", \"ports\": [-1]}]"), EXPORTED));
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        DeviceExport.write(new DeviceTableModel(), Runnable::run, DeviceExport.Format.BINARY, binary);
+        DataOutputStream device = new DataOutputStream(binary);
+        device.writeByte(0);
+        device.writeInt(Ipv4Addresses.parse("10.0.0.1"));
+        device.writeByte(DeviceStatus.UP.ordinal());
+        device.writeShort(1);
+        // The word of ports 65536 up to 65599
+        device.writeShort(1024);
+        device.writeLong(1);
+        assertThrows(IOException.class, () -> DeviceExport.read(DeviceExport.Format.BINARY, new ByteArrayInputStream(binary.toByteArray()), EXPORTED));
+    }
+
+    private void assertRoundTrip(DeviceExport.Format format) throws IOException {
+        DeviceTableModel tableModel = new DeviceTableModel();
+        tableModel.apply(List.of(
+                new DeviceUpdate.DeviceFound("192.168.1.1"),
+                new DeviceUpdate.MacFound("192.168.1.1", "00:1A:2B:3C:4D:5E", "Vendor, Inc."),
+                new DeviceUpdate.HostnameFound("192.168.1.1", "router \"main\""),
+                // Ports at the edges of the range and of the 64 port words
+                new DeviceUpdate.PortFound("192.168.1.1", 65535),
+                new DeviceUpdate.PortFound("192.168.1.1", 0),
+                new DeviceUpdate.PortFound("192.168.1.1", 63),
+                new DeviceUpdate.PortFound("192.168.1.1", 64),
+                new DeviceUpdate.PortFound("192.168.1.1", 443),
+                new DeviceUpdate.ServiceFound("192.168.1.1", 443, "HTTP nginx/1.25.3"),
+                new DeviceUpdate.DeviceFound("192.168.1.20"),
+                new DeviceUpdate.DeviceFound("fe80::1"),
+                new DeviceUpdate.MacFound("fe80::1", "00:1a:2b:3c:4d:5e:6f:70", ""),
+                new DeviceUpdate.PortFound("fe80::1", 22)
+        ));
+        Path file = directory.resolve("devices." + format.getExtension());
+
+        DeviceExport.write(tableModel, Runnable::run, file);
+        Files.setLastModifiedTime(file, FileTime.from(EXPORTED));
+
+        assertEquals(List.of(
+                new InventoryEntry("192.168.1.1", format == DeviceExport.Format.BINARY ? "00:1a:2b:3c:4d:5e" : "00:1A:2B:3C:4D:5E",
+                        new int[]{0, 63, 64, 443, 65535}, EXPORTED, EXPORTED),
+                new InventoryEntry("192.168.1.20", "", new int[0], EXPORTED, EXPORTED),
+                new InventoryEntry("fe80::1", "00:1a:2b:3c:4d:5e:6f:70", new int[]{22}, EXPORTED, EXPORTED)
+        ), DeviceExport.read(file));
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
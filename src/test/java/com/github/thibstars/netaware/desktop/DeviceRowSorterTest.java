@@ -0,0 +1,173 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.RowSorterEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class DeviceRowSorterTest {
+
+    private final DeviceTableModel tableModel = new DeviceTableModel();
+    private final DeviceRowSorter rowSorter = new DeviceRowSorter(tableModel);
+    private final List<RowSorterEvent> sorterChanges = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // The table forwards the events of the model to the sorter, the way the main window does
+        JTable table = new JTable(tableModel);
+        table.setRowSorter(rowSorter);
+        tableModel.addBatchListener(rowSorter);
+        rowSorter.addRowSorterListener(event -> {
+            if (event.getType() == RowSorterEvent.Type.SORTED) {
+                sorterChanges.add(event);
+            }
+        });
+    }
+
+    @Test
+    void keepsRowsInTheOrderTheyWereFoundWithoutSortKeys() {
+        tableModel.apply(List.of(found("10.0.0.3"), found("10.0.0.1")));
+        tableModel.apply(List.of(found("10.0.0.2"), new DeviceUpdate.HostnameFound("10.0.0.1", "a.lan")));
+
+        assertEquals(List.of("10.0.0.3", "10.0.0.1", "10.0.0.2"), viewOrder());
+    }
+
+    @Test
+    void announcesABatchOfChangesOnce() {
+        rowSorter.setSortKeys(List.of(new RowSorter.SortKey(DeviceTableModel.HOSTNAME_COLUMN, SortOrder.ASCENDING)));
+        tableModel.apply(List.of(found("10.0.0.1"), hostname("10.0.0.1", "d"), found("10.0.0.2"), hostname("10.0.0.2", "b")));
+        sorterChanges.clear();
+
+        tableModel.apply(List.of(
+                hostname("10.0.0.1", "a"),
+                hostname("10.0.0.2", "e"),
+                found("10.0.0.3"), hostname("10.0.0.3", "c"),
+                found("10.0.0.4"), hostname("10.0.0.4", "f")
+        ));
+
+        assertEquals(1, sorterChanges.size());
+        assertEquals(List.of("10.0.0.1", "10.0.0.3", "10.0.0.2", "10.0.0.4"), viewOrder());
+        // The view the table saw before the batch
+        RowSorterEvent sorterChange = sorterChanges.getFirst();
+        assertEquals(2, sorterChange.getPreviousRowCount());
+        assertEquals(1, sorterChange.convertPreviousRowIndexToModel(0));
+    }
+
+    @Test
+    void doesNotAnnounceABatchLeavingTheViewAsItWas() {
+        rowSorter.setSortKeys(List.of(new RowSorter.SortKey(DeviceTableModel.HOSTNAME_COLUMN, SortOrder.ASCENDING)));
+        tableModel.apply(List.of(found("10.0.0.1"), hostname("10.0.0.1", "a"), found("10.0.0.2"), hostname("10.0.0.2", "c")));
+        sorterChanges.clear();
+
+        tableModel.apply(List.of(hostname("10.0.0.1", "b"), new DeviceUpdate.PortFound("10.0.0.2", 22)));
+
+        assertEquals(0, sorterChanges.size());
+        assertEquals(List.of("10.0.0.1", "10.0.0.2"), viewOrder());
+    }
+
+    @Test
+    void keepsTheViewSortedAndFilteredAcrossBatches() {
+        rowSorter.setSortKeys(List.of(new RowSorter.SortKey(DeviceTableModel.HOSTNAME_COLUMN, SortOrder.DESCENDING)));
+        rowSorter.setFilter(DeviceFilter.parse("", "22", ""));
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> addresses = new ArrayList<>();
+        for (int batch = 0; batch < 50; batch++) {
+            List<DeviceUpdate> updates = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                if (addresses.isEmpty() || random.nextInt(4) == 0) {
+                    String address = "10.0." + batch + "." + i;
+                    addresses.add(address);
+                    updates.add(found(address));
+                }
+                String address = addresses.get(random.nextInt(addresses.size()));
+                updates.add(random.nextBoolean()
+                        ? hostname(address, "host-" + random.nextInt(100))
+                        : new DeviceUpdate.PortFound(address, random.nextBoolean() ? 22 : 80));
+            }
+            tableModel.apply(updates);
+
+            assertEquals(expectedViewOrder(Comparator.comparing(Device::getHostname, String.CASE_INSENSITIVE_ORDER).reversed()), viewOrder());
+        }
+    }
+
+    @Test
+    void showsTheMatchingRowsInSortOrderWhenTheFilterChanges() {
+        rowSorter.setSortKeys(List.of(new RowSorter.SortKey(DeviceTableModel.IP_ADDRESS_COLUMN, SortOrder.DESCENDING)));
+        tableModel.apply(List.of(
+                found("10.0.0.1"), new DeviceUpdate.PortFound("10.0.0.1", 22),
+                found("10.0.0.3"),
+                found("10.0.0.2"), new DeviceUpdate.PortFound("10.0.0.2", 22)
+        ));
+
+        rowSorter.setFilter(DeviceFilter.parse("", "22", ""));
+        assertEquals(List.of("10.0.0.2", "10.0.0.1"), viewOrder());
+
+        tableModel.apply(List.of(new DeviceUpdate.PortFound("10.0.0.3", 22)));
+        assertEquals(List.of("10.0.0.3", "10.0.0.2", "10.0.0.1"), viewOrder());
+
+        rowSorter.setFilter(DeviceFilter.parse("10.0.0.1", "", ""));
+        assertEquals(List.of("10.0.0.1"), viewOrder());
+
+        rowSorter.setFilter(DeviceFilter.NONE);
+        assertEquals(List.of("10.0.0.3", "10.0.0.2", "10.0.0.1"), viewOrder());
+    }
+
+    @Test
+    void resortsTheRowsWhenTheSortKeyChanges() {
+        tableModel.apply(List.of(
+                found("10.0.0.2"), hostname("10.0.0.2", "a"),
+                found("10.0.0.3"), hostname("10.0.0.3", "c"),
+                found("10.0.0.1"), hostname("10.0.0.1", "b")
+        ));
+
+        rowSorter.toggleSortOrder(DeviceTableModel.IP_ADDRESS_COLUMN);
+        assertEquals(List.of("10.0.0.1", "10.0.0.2", "10.0.0.3"), viewOrder());
+
+        rowSorter.toggleSortOrder(DeviceTableModel.IP_ADDRESS_COLUMN);
+        assertEquals(List.of("10.0.0.3", "10.0.0.2", "10.0.0.1"), viewOrder());
+
+        rowSorter.toggleSortOrder(DeviceTableModel.HOSTNAME_COLUMN);
+        assertEquals(List.of("10.0.0.2", "10.0.0.1", "10.0.0.3"), viewOrder());
+
+        rowSorter.setSortKeys(List.of());
+        assertEquals(List.of("10.0.0.2", "10.0.0.3", "10.0.0.1"), viewOrder());
+    }
+
+    private List<String> viewOrder() {
+        return IntStream.range(0, rowSorter.getViewRowCount())
+                .mapToObj(viewRow -> tableModel.getDevice(rowSorter.convertRowIndexToModel(viewRow)).getIpAddress())
+                .toList();
+    }
+
+    /**
+     * @return the rows matching the filter, sorted from scratch with ties in the order they were found
+     */
+    private List<String> expectedViewOrder(Comparator<Device> order) {
+        return IntStream.range(0, tableModel.getRowCount())
+                .mapToObj(tableModel::getDevice)
+                .filter(rowSorter.getFilter()::matches)
+                .sorted(order)
+                .map(Device::getIpAddress)
+                .toList();
+    }
+
+    private static DeviceUpdate found(String ipAddress) {
+        return new DeviceUpdate.DeviceFound(ipAddress);
+    }
+
+    private static DeviceUpdate hostname(String ipAddress, String hostname) {
+        return new DeviceUpdate.HostnameFound(ipAddress, hostname);
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.List;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class DeviceTableModelTest {
+
+    private static final Instant LAST_SEEN = Instant.parse("2024-05-01T12:00:00Z");
+
+    private final DeviceTableModel tableModel = new DeviceTableModel();
+
+    @Test
+    void reconcilesTheDevicesAlreadyPresentWithTheirKnownState() throws IOException {
+        OuiRegistry ouiRegistry = OuiRegistry.readCompact(new StringReader("001A2B\tVendor\n"));
+        tableModel.addKnownDevices(List.of(entry("10.0.0.1", "", 22)), ouiRegistry);
+        tableModel.apply(List.of(
+                new DeviceUpdate.DeviceFound("10.0.0.2"),
+                new DeviceUpdate.DeviceAppeared("10.0.0.2"),
+                new DeviceUpdate.PortFound("10.0.0.2", 80),
+                new DeviceUpdate.DeviceFound("10.0.0.3"),
+                new DeviceUpdate.MacFound("10.0.0.3", "00:1a:2b:00:00:03", "Vendor")
+        ));
+
+        tableModel.addKnownDevices(List.of(
+                entry("10.0.0.1", "00:1a:2b:00:00:01", 443),
+                entry("10.0.0.2", "00:1a:2b:00:00:02", 8080),
+                entry("10.0.0.3", "00:1a:2b:ff:ff:ff"),
+                entry("10.0.0.4", "")
+        ), ouiRegistry);
+
+        // Not confirmed yet, shows the state of the latest entry
+        assertDevice("10.0.0.1", DeviceStatus.KNOWN, "00:1a:2b:00:00:01", "Vendor", 22, 443);
+        // Found as new, known after all, the ports found by the discovery are kept
+        assertDevice("10.0.0.2", DeviceStatus.UP, "00:1a:2b:00:00:02", "Vendor", 80);
+        // Found by the discovery, keeps its own MAC address
+        assertDevice("10.0.0.3", DeviceStatus.UP, "00:1a:2b:00:00:03", "Vendor");
+        assertDevice("10.0.0.4", DeviceStatus.KNOWN, "", "");
+        assertEquals(4, tableModel.getRowCount());
+    }
+
+    @Test
+    void mergesEntriesListedTwiceInASortedTable() throws IOException {
+        DeviceRowSorter rowSorter = new DeviceRowSorter(tableModel);
+        new JTable(tableModel).setRowSorter(rowSorter);
+        tableModel.addBatchListener(rowSorter);
+        rowSorter.setSortKeys(List.of(new RowSorter.SortKey(DeviceTableModel.OPEN_PORTS_COLUMN, SortOrder.ASCENDING)));
+        tableModel.apply(List.of(new DeviceUpdate.DeviceFound("10.0.0.9")));
+
+        tableModel.addKnownDevices(List.of(
+                entry("10.0.0.1", "", 22),
+                entry("10.0.0.2", ""),
+                entry("10.0.0.1", "00:1a:2b:00:00:01", 80)
+        ), OuiRegistry.readCompact(new StringReader("001A2B\tVendor\n")));
+
+        assertEquals(3, tableModel.getRowCount());
+        assertEquals(3, rowSorter.getViewRowCount());
+        assertDevice("10.0.0.1", DeviceStatus.KNOWN, "00:1a:2b:00:00:01", "Vendor", 22, 80);
+        assertEquals(tableModel.getRowOf("10.0.0.1"), rowSorter.convertRowIndexToModel(2));
+    }
+
+    private void assertDevice(String ipAddress, DeviceStatus status, String macAddress, String vendor, int... openPorts) {
+        Device device = tableModel.getDevice(tableModel.getRowOf(ipAddress));
+        assertEquals(status, device.getStatus());
+        assertEquals(macAddress, device.getMacAddress());
+        assertEquals(vendor, device.getVendor());
+        assertArrayEquals(openPorts, device.getOpenPorts().toArray());
+    }
+
+    private static InventoryEntry entry(String ipAddress, String macAddress, int... openPorts) {
+        return new InventoryEntry(ipAddress, macAddress, openPorts, LAST_SEEN, LAST_SEEN);
+    }
+}
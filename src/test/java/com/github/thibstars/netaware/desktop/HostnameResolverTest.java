@@ -0,0 +1,123 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class HostnameResolverTest {
+
+    private static final InetAddress ADDRESS = Ipv4Addresses.toInetAddress(Ipv4Addresses.parse("10.0.0.1"));
+    private static final InetAddress OTHER_ADDRESS = Ipv4Addresses.toInetAddress(Ipv4Addresses.parse("10.0.0.2"));
+
+    private final AtomicInteger lookupCount = new AtomicInteger();
+    private final CountDownLatch lookupsReleased = new CountDownLatch(1);
+    private HostnameResolver hostnameResolver;
+
+    @AfterEach
+    void tearDown() {
+        lookupsReleased.countDown();
+        if (hostnameResolver != null) {
+            hostnameResolver.close();
+        }
+    }
+
+    @Test
+    void concurrentRequestsShareASingleLookup() throws Exception {
+        hostnameResolver = resolver(blockingLookup(ipAddress -> "router.lan"), Duration.ofMinutes(1), 4);
+
+        List<CompletableFuture<String>> resolutions = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            threads.add(Thread.startVirtualThread(() -> {
+                CompletableFuture<String> resolution = hostnameResolver.resolve(ADDRESS);
+                synchronized (resolutions) {
+                    resolutions.add(resolution);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        lookupsReleased.countDown();
+
+        for (CompletableFuture<String> resolution : resolutions) {
+            assertEquals("router.lan", resolution.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, lookupCount.get());
+    }
+
+    @Test
+    void cachesHostnamesUntilTheyExpire() throws Exception {
+        lookupsReleased.countDown();
+        hostnameResolver = resolver(blockingLookup(ipAddress -> "router.lan"), Duration.ofMinutes(1), 4);
+
+        assertEquals("router.lan", hostnameResolver.resolve(ADDRESS).get(5, TimeUnit.SECONDS));
+        assertEquals("router.lan", hostnameResolver.resolve(ADDRESS).get(5, TimeUnit.SECONDS));
+        assertEquals(1, lookupCount.get());
+
+        hostnameResolver.close();
+        hostnameResolver = resolver(blockingLookup(ipAddress -> "router.lan"), Duration.ZERO, 4);
+        hostnameResolver.resolve(ADDRESS).get(5, TimeUnit.SECONDS);
+        hostnameResolver.resolve(ADDRESS).get(5, TimeUnit.SECONDS);
+        assertEquals(3, lookupCount.get());
+    }
+
+    @Test
+    void resolvesAddressesWithoutHostnameToAnEmptyString() throws Exception {
+        lookupsReleased.countDown();
+        hostnameResolver = resolver(blockingLookup(InetAddress::getHostAddress), Duration.ofMinutes(1), 4);
+
+        assertEquals("", hostnameResolver.resolve(ADDRESS).get(5, TimeUnit.SECONDS));
+        hostnameResolver.close();
+        hostnameResolver = resolver(blockingLookup(ipAddress -> {
+            throw new IllegalStateException("No resolver");
+        }), Duration.ofMinutes(1), 4);
+        assertEquals("", hostnameResolver.resolve(ADDRESS).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void closingCompletesTheWaitingLookupsWithoutHostname() throws Exception {
+        hostnameResolver = resolver(blockingLookup(ipAddress -> "router.lan"), Duration.ofMinutes(1), 1);
+        hostnameResolver.resolve(ADDRESS);
+        while (lookupCount.get() == 0) {
+            Thread.onSpinWait();
+        }
+        // Waits for the only lookup permit
+        CompletableFuture<String> waitingResolution = hostnameResolver.resolve(OTHER_ADDRESS);
+
+        hostnameResolver.close();
+
+        assertEquals("", waitingResolution.get(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> hostnameResolver.resolve(ADDRESS));
+    }
+
+    private Function<InetAddress, String> blockingLookup(Function<InetAddress, String> lookup) {
+        return ipAddress -> {
+            lookupCount.incrementAndGet();
+            try {
+                lookupsReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return lookup.apply(ipAddress);
+        };
+    }
+
+    private static HostnameResolver resolver(Function<InetAddress, String> lookup, Duration timeToLive, int maxConcurrentLookups) {
+        return new HostnameResolver(lookup, 16, timeToLive, timeToLive, maxConcurrentLookups);
+    }
+}
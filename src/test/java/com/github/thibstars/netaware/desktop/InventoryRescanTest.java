@@ -0,0 +1,104 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class InventoryRescanTest {
+
+    private static final Instant FIRST_SEEN = Instant.parse("2026-01-01T10:00:00Z");
+    private static final Instant LAST_SEEN = Instant.parse("2026-02-01T10:00:00Z");
+    private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+    private static final IpBlock NETWORK = IpBlock.of("10.0.0.0", 256);
+
+    @TempDir
+    Path directory;
+
+    private DeviceInventory inventory;
+    private InventoryRescan rescan;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new DeviceInventory(directory.resolve("inventory.dat"));
+        inventory.update(List.of(
+                new InventoryEntry("10.0.0.1", "02:00:00:00:00:01", new int[]{22, 80}, FIRST_SEEN, LAST_SEEN),
+                new InventoryEntry("10.0.0.2", "02:00:00:00:00:02", new int[]{443}, FIRST_SEEN, LAST_SEEN),
+                new InventoryEntry("10.0.0.3", "02:00:00:00:00:03", new int[]{22}, FIRST_SEEN, LAST_SEEN),
+                new InventoryEntry("192.168.1.1", "02:00:00:00:01:01", new int[]{53}, FIRST_SEEN, LAST_SEEN)
+        ));
+        rescan = new InventoryRescan(inventory, List.of(NETWORK));
+    }
+
+    @Test
+    void sweepsTheKnownHostsWithinTheTargetsOnTheirOwn() {
+        assertEquals(List.of(IpBlock.of("10.0.0.1", 1), IpBlock.of("10.0.0.2", 1), IpBlock.of("10.0.0.3", 1)), rescan.getKnownHostBlocks());
+    }
+
+    @Test
+    void reportsEveryDifferenceAsSoonAsItIsKnown() {
+        // A new device appears as soon as it is found
+        rescan.record(new DeviceUpdate.DeviceFound("10.0.0.9"));
+        assertEquals(List.of(new DeviceUpdate.DeviceAppeared("10.0.0.9")), rescan.onDeviceFound("10.0.0.9"));
+
+        // A known device is only compared once its ports have been scanned
+        rescan.record(new DeviceUpdate.DeviceFound("10.0.0.1"));
+        assertEquals(List.of(), rescan.onDeviceFound("10.0.0.1"));
+        rescan.record(new DeviceUpdate.PortFound("10.0.0.1", 22));
+        rescan.record(new DeviceUpdate.PortFound("10.0.0.1", 8080));
+        assertEquals(List.of(new DeviceUpdate.PortsChanged("10.0.0.1", new int[]{8080}, new int[]{80})), rescan.onPortsScanned("10.0.0.1"));
+
+        rescan.record(new DeviceUpdate.DeviceFound("10.0.0.3"));
+        rescan.record(new DeviceUpdate.PortFound("10.0.0.3", 22));
+        assertEquals(List.of(), rescan.onPortsScanned("10.0.0.3"));
+
+        // A known device is gone once its block was swept without finding it
+        assertEquals(List.of(), rescan.onBlockSwept(IpBlock.of("10.0.0.3", 1)));
+        assertEquals(List.of(new DeviceUpdate.DeviceGone("10.0.0.2", LAST_SEEN)), rescan.onBlockSwept(IpBlock.of("10.0.0.2", 1)));
+        assertEquals(List.of(), rescan.onBlockSwept(NETWORK));
+
+        // Nothing left to report, but the inventory is updated
+        assertEquals(List.of(), rescan.finish(NOW));
+        assertEquals(new InventoryEntry("10.0.0.9", "", new int[0], NOW, NOW), inventory.get("10.0.0.9"));
+        assertEquals(new InventoryEntry("10.0.0.1", "02:00:00:00:00:01", new int[]{22, 8080}, FIRST_SEEN, NOW), inventory.get("10.0.0.1"));
+        assertEquals(LAST_SEEN, inventory.get("10.0.0.2").lastSeen());
+    }
+
+    @Test
+    void reportsWhatWasNotReportedYetWhenFinishing() {
+        rescan.record(new DeviceUpdate.DeviceFound("10.0.0.1"));
+        rescan.record(new DeviceUpdate.PortFound("10.0.0.1", 22));
+        rescan.record(new DeviceUpdate.DeviceFound("10.0.0.9"));
+
+        List<DeviceUpdate> deltas = rescan.finish(NOW);
+
+        assertEquals(4, deltas.size());
+        assertTrue(deltas.contains(new DeviceUpdate.DeviceAppeared("10.0.0.9")));
+        assertTrue(deltas.contains(new DeviceUpdate.PortsChanged("10.0.0.1", new int[0], new int[]{80})));
+        assertTrue(deltas.contains(new DeviceUpdate.DeviceGone("10.0.0.2", LAST_SEEN)));
+        assertTrue(deltas.contains(new DeviceUpdate.DeviceGone("10.0.0.3", LAST_SEEN)));
+    }
+
+    @Test
+    void comparesInventoryEntriesByTheContentOfTheirPorts() {
+        InventoryEntry entry = new InventoryEntry("10.0.0.1", "", new int[]{22, 80}, FIRST_SEEN, LAST_SEEN);
+        InventoryEntry sameEntry = new InventoryEntry("10.0.0.1", "", new int[]{22, 80}, FIRST_SEEN, LAST_SEEN);
+
+        assertEquals(entry, sameEntry);
+        assertEquals(entry.hashCode(), sameEntry.hashCode());
+        assertNotEquals(entry, new InventoryEntry("10.0.0.1", "", new int[]{22}, FIRST_SEEN, LAST_SEEN));
+        assertEquals("InventoryEntry[ipAddress=10.0.0.1, macAddress=, openPorts=[22, 80], firstSeen=" + FIRST_SEEN
+                + ", lastSeen=" + LAST_SEEN + "]", entry.toString());
+        assertArrayEquals(new int[]{22, 80}, entry.openPorts());
+    }
+}
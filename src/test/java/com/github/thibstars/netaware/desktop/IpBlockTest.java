@@ -0,0 +1,65 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class IpBlockTest {
+
+    @Test
+    void parsesItsOwnNotation() {
+        IpBlock block = IpBlock.of("192.168.1.0", 256);
+
+        assertEquals(block, IpBlock.parse(block.toString()));
+        assertThrows(IllegalArgumentException.class, () -> IpBlock.parse("192.168.1.0/24"));
+    }
+
+    @Test
+    void containsItsAddressesOnly() {
+        IpBlock block = IpBlock.of("255.255.255.0", 256);
+
+        assertTrue(block.contains(Ipv4Addresses.parse("255.255.255.0")));
+        assertTrue(block.contains(Ipv4Addresses.parse("255.255.255.255")));
+        assertFalse(block.contains(Ipv4Addresses.parse("255.255.254.255")));
+        assertFalse(block.contains(Ipv4Addresses.parse("0.0.0.0")));
+    }
+
+    @Test
+    void splitsBlocksAroundExcludedAddresses() {
+        List<IpBlock> blocks = List.of(IpBlock.of("10.0.0.0", 256), IpBlock.of("10.0.1.0", 256), IpBlock.of("10.0.2.0", 4));
+
+        List<IpBlock> remainder = IpBlock.excluding(blocks, List.of(
+                Ipv4Addresses.parse("10.0.1.255"),
+                Ipv4Addresses.parse("10.0.0.10"),
+                Ipv4Addresses.parse("10.0.0.0"),
+                Ipv4Addresses.parse("10.0.0.11"),
+                Ipv4Addresses.parse("10.0.2.0"),
+                Ipv4Addresses.parse("10.0.2.1"),
+                Ipv4Addresses.parse("10.0.2.2"),
+                Ipv4Addresses.parse("10.0.2.3"),
+                Ipv4Addresses.parse("192.168.1.1")
+        ));
+
+        assertEquals(List.of(
+                IpBlock.of("10.0.0.1", 9),
+                IpBlock.of("10.0.0.12", 244),
+                IpBlock.of("10.0.1.0", 255)
+        ), remainder);
+    }
+
+    @Test
+    void keepsBlocksWithoutExcludedAddresses() {
+        List<IpBlock> blocks = List.of(IpBlock.of("255.255.255.0", 256));
+
+        assertEquals(blocks, IpBlock.excluding(blocks, List.of()));
+        assertEquals(blocks, IpBlock.excluding(blocks, List.of(Ipv4Addresses.parse("10.0.0.1"))));
+        assertEquals(List.of(IpBlock.of("255.255.255.0", 255)), IpBlock.excluding(blocks, List.of(Ipv4Addresses.parse("255.255.255.255"))));
+    }
+}
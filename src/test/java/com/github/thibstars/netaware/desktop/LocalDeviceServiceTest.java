@@ -0,0 +1,140 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class LocalDeviceServiceTest {
+
+    private static final IpBlock FIRST_NETWORK = IpBlock.of("10.1.0.0", 256);
+    private static final IpBlock SECOND_NETWORK = IpBlock.of("10.2.0.0", 256);
+
+    private final StubProbeFactory probeFactory = new StubProbeFactory(
+            IntStream.range(1, 7).boxed()
+                    .flatMap(host -> Set.of("10.1.0." + host, "10.2.0." + host).stream())
+                    .collect(Collectors.toSet()),
+            List.of(22, 80)
+    );
+    private final LocalDeviceService localDeviceService = new LocalDeviceService(
+            new ScanScheduler(), new TargetPlanner(), probeFactory
+    );
+
+    @AfterEach
+    void tearDown() {
+        localDeviceService.close();
+    }
+
+    @Test
+    void concurrentDiscoveriesOnlySeeTheirOwnResults() throws Exception {
+        RecordingSubscriber first = new RecordingSubscriber();
+        RecordingSubscriber second = new RecordingSubscriber();
+        localDeviceService.discoverAsync(List.of(FIRST_NETWORK), first);
+        localDeviceService.discoverAsync(List.of(SECOND_NETWORK), second);
+
+        assertOnlyWithin(FIRST_NETWORK, first.completion().get(10, TimeUnit.SECONDS));
+        assertOnlyWithin(SECOND_NETWORK, second.completion().get(10, TimeUnit.SECONDS));
+        assertEquals(6, first.getFoundAddresses().size());
+        assertEquals(6, second.getFoundAddresses().size());
+    }
+
+    @Test
+    void sessionsAreClosedOnceTheirDiscoveryCompletes() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        localDeviceService.discoverAsync(List.of(FIRST_NETWORK), subscriber).completion().get(10, TimeUnit.SECONDS);
+        awaitTearDown(localDeviceService);
+
+        assertEquals(1, probeFactory.getEventManagers().size());
+        assertClosed(probeFactory.getEventManagers().getFirst());
+    }
+
+    @Test
+    void sessionsAreClosedOnceTheirDiscoveryIsCancelled() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Discovery discovery = localDeviceService.discoverAsync(List.of(FIRST_NETWORK, SECOND_NETWORK), subscriber);
+        assertEquals(1, localDeviceService.getRunningSessionCount());
+
+        discovery.cancel();
+        awaitTearDown(localDeviceService);
+
+        assertEquals(1, probeFactory.getEventManagers().size());
+        assertClosed(probeFactory.getEventManagers().getFirst());
+    }
+
+    @Test
+    void rescanSweepsKnownHostsOnlyOnceAndReportsTheDifferences(@TempDir Path directory) throws Exception {
+        Path emptyArpTable = Files.writeString(directory.resolve("arp.txt"), "IP address       HW type     Flags       HW address            Mask     Device\n");
+        DeviceInventory inventory = new DeviceInventory(directory.resolve("inventory.dat"));
+        Instant lastSeen = Instant.parse("2026-01-01T10:00:00Z");
+        inventory.update(List.of(
+                new InventoryEntry("10.1.0.2", "", new int[]{22}, lastSeen, lastSeen),
+                new InventoryEntry("10.1.0.100", "", new int[]{22, 80}, lastSeen, lastSeen)
+        ));
+        String arpTable = System.setProperty("netaware.scan.arpTable", emptyArpTable.toString());
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            try (LocalDeviceService rescanningService = new LocalDeviceService(
+                    new ScanScheduler(), new TargetPlanner(false, false, List.of(Cidr.parse("10.1.0.0/24")), List.of()), probeFactory, inventory
+            )) {
+                rescanningService.discoverAsync(subscriber).completion().get(10, TimeUnit.SECONDS);
+            }
+            List<DiscoveryUpdate> updates = subscriber.completion().get(10, TimeUnit.SECONDS);
+
+            for (int knownAddress : List.of(Ipv4Addresses.parse("10.1.0.2"), Ipv4Addresses.parse("10.1.0.100"))) {
+                assertEquals(List.of(new IpBlock(knownAddress, 1)), probeFactory.getSweptBlocks().stream()
+                        .filter(block -> block.contains(knownAddress))
+                        .toList());
+            }
+            assertTrue(updates.contains(new DeviceUpdate.PortsChanged("10.1.0.2", new int[]{80}, new int[0])));
+            assertTrue(updates.contains(new DeviceUpdate.DeviceGone("10.1.0.100", lastSeen)));
+            assertTrue(updates.contains(new DeviceUpdate.DeviceAppeared("10.1.0.1")));
+            assertFalse(updates.contains(new DeviceUpdate.DeviceAppeared("10.1.0.2")));
+        } finally {
+            if (arpTable == null) {
+                System.clearProperty("netaware.scan.arpTable");
+            } else {
+                System.setProperty("netaware.scan.arpTable", arpTable);
+            }
+        }
+    }
+
+    private static void assertClosed(EventManager eventManager) {
+        SessionEventManager sessionEventManager = (SessionEventManager) eventManager;
+        assertTrue(sessionEventManager.isClosed());
+        assertEquals(0, sessionEventManager.getHandlerCount());
+    }
+
+    private static void assertOnlyWithin(IpBlock block, List<DiscoveryUpdate> updates) {
+        for (DiscoveryUpdate update : updates) {
+            if (update instanceof DeviceUpdate deviceUpdate) {
+                assertTrue(block.contains(Ipv4Addresses.parse(deviceUpdate.ipAddress())), deviceUpdate + " is not in " + block);
+            }
+        }
+    }
+
+    /**
+     * Sessions are torn down right after the completion of their discovery, on the thread completing it.
+     */
+    static void awaitTearDown(LocalDeviceService localDeviceService) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (localDeviceService.getRunningSessionCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, localDeviceService.getRunningSessionCount());
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.thibstars.netaware.events.IpAddressFoundEvent;
+import com.github.thibstars.netaware.events.MacFoundEvent;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class NeighborCacheScannerTest {
+
+    @Test
+    void parsesTheCompleteEntriesOfAnArpTable() throws Exception {
+        Map<InetAddress, String> neighbors = NeighborCacheScanner.parseArpTable(readFixture("proc-net-arp.txt"));
+
+        assertEquals(Map.of(
+                "192.168.1.1", "a4:91:b1:12:34:56",
+                "192.168.1.23", "3c:22:fb:ab:cd:ef",
+                "192.168.1.57", "b8:27:eb:01:02:03",
+                "172.17.0.2", "02:42:ac:11:00:02"
+        ), byHostAddress(neighbors));
+    }
+
+    @Test
+    void parsesTheIpv4EntriesWithALinkLayerAddressOfIpNeigh() throws Exception {
+        Map<InetAddress, String> neighbors = NeighborCacheScanner.parseIpNeigh(readFixture("ip-neigh.txt"));
+
+        assertEquals(Map.of(
+                "192.168.1.1", "a4:91:b1:12:34:56",
+                "192.168.1.23", "3c:22:fb:ab:cd:ef",
+                "172.17.0.2", "02:42:ac:11:00:02"
+        ), byHostAddress(neighbors));
+    }
+
+    @Test
+    void parsesAnArpTableWithoutEntries() {
+        assertTrue(NeighborCacheScanner.parseArpTable(List.of()).isEmpty());
+        assertTrue(NeighborCacheScanner.parseArpTable(List.of("IP address       HW type     Flags       HW address            Mask     Device")).isEmpty());
+    }
+
+    @Test
+    void dispatchesTheHostAndMacAddressOfEveryNeighbor() throws Exception {
+        SessionEventManager eventManager = new SessionEventManager();
+        List<String> events = new ArrayList<>();
+        eventManager.registerHandler(IpAddressFoundEvent.class, event -> events.add("ip " + event.getIpAddress().getHostAddress()));
+        eventManager.registerHandler(MacFoundEvent.class, event -> events.add("mac " + event.getMacAddress()));
+
+        new NeighborCacheScanner(eventManager, fixture("proc-net-arp.txt")).scan();
+
+        assertEquals(List.of(
+                "ip 192.168.1.1", "mac a4:91:b1:12:34:56",
+                "ip 192.168.1.23", "mac 3c:22:fb:ab:cd:ef",
+                "ip 192.168.1.57", "mac b8:27:eb:01:02:03",
+                "ip 172.17.0.2", "mac 02:42:ac:11:00:02"
+        ), events);
+    }
+
+    @Test
+    void collectsTheOutputOfACommand() {
+        assertEquals(List.of("first", "second"), NeighborCacheScanner.runCommand(List.of("printf", "first\\nsecond\\n"), Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void killsACommandThatDoesNotExitInTime() {
+        long start = System.nanoTime();
+        List<String> lines = NeighborCacheScanner.runCommand(List.of("sleep", "30"), Duration.ofMillis(200));
+
+        assertTrue(lines.isEmpty());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos(), "Waited for the command to exit");
+    }
+
+    @Test
+    void returnsNothingWhenTheCommandDoesNotExist() {
+        assertTrue(NeighborCacheScanner.runCommand(List.of("netaware-no-such-command"), Duration.ofSeconds(1)).isEmpty());
+    }
+
+    private static Map<String, String> byHostAddress(Map<InetAddress, String> neighbors) {
+        Map<String, String> byHostAddress = new LinkedHashMap<>();
+        neighbors.forEach((ipAddress, macAddress) -> byHostAddress.put(ipAddress.getHostAddress(), macAddress));
+
+        return byHostAddress;
+    }
+
+    private static List<String> readFixture(String name) throws IOException, URISyntaxException {
+        return Files.readAllLines(fixture(name), StandardCharsets.US_ASCII);
+    }
+
+    private static Path fixture(String name) throws URISyntaxException {
+        return Path.of(NeighborCacheScannerTest.class.getResource("/neighbors/" + name).toURI());
+    }
+}
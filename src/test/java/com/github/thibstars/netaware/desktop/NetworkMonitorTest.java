@@ -0,0 +1,78 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class NetworkMonitorTest {
+
+    private final StubProbeFactory probeFactory = new StubProbeFactory(Set.of("10.1.0.1", "10.1.0.2"), List.of(22));
+    private final LocalDeviceService localDeviceService = new LocalDeviceService(
+            new ScanScheduler(), new TargetPlanner(), probeFactory
+    );
+    private final SessionEventManager monitorEventManager = new SessionEventManager();
+    private final NetworkMonitor networkMonitor = new NetworkMonitor(
+            localDeviceService, monitorEventManager, Duration.ofMillis(50), Duration.ofHours(1), 0
+    );
+    private final List<DeviceUpdate> updates = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        networkMonitor.stop();
+        localDeviceService.close();
+    }
+
+    @Test
+    void everyCycleDropsItsHandlersOnceItEnds() throws Exception {
+        networkMonitor.forwardUpdates(updates::add);
+        networkMonitor.watch("10.1.0.1", new int[]{22});
+        networkMonitor.watch("10.1.0.2", new int[]{22, 80});
+        networkMonitor.watch("10.1.0.3", new int[]{22});
+        networkMonitor.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (probeFactory.getEventManagers().size() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        networkMonitor.stop();
+        LocalDeviceServiceTest.awaitTearDown(localDeviceService);
+
+        assertTrue(probeFactory.getEventManagers().size() >= 4);
+        for (EventManager cycleEventManager : probeFactory.getEventManagers()) {
+            assertEquals(0, ((SessionEventManager) cycleEventManager).getHandlerCount());
+        }
+        // Only the handlers forwarding the updates, registered once
+        assertEquals(4, monitorEventManager.getHandlerCount());
+    }
+
+    @Test
+    void dispatchesTheChangesOfACycleOnce() throws Exception {
+        networkMonitor.forwardUpdates(updates::add);
+        networkMonitor.watch("10.1.0.1", new int[]{22});
+        networkMonitor.watch("10.1.0.2", new int[]{22, 80});
+        networkMonitor.watch("10.1.0.3", new int[]{22});
+        networkMonitor.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (probeFactory.getEventManagers().size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        networkMonitor.stop();
+        LocalDeviceServiceTest.awaitTearDown(localDeviceService);
+
+        assertEquals(2, updates.size(), updates.toString());
+        assertTrue(updates.contains(new DeviceUpdate.PortsChanged("10.1.0.2", new int[0], new int[]{80})));
+        assertTrue(updates.stream().anyMatch(update -> update instanceof DeviceUpdate.DeviceGone gone && gone.ipAddress().equals("10.1.0.3")));
+    }
+}
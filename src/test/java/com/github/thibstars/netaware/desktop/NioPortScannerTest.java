@@ -0,0 +1,186 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.thibstars.netaware.events.TcpIpPortFoundEvent;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Scans listeners on the loopback address: accepting ones for open ports, released ones for closed ports
+ * and ones with a full backlog, which drop new connects without answering, for ports that time out.
+ *
+ * @author Thibault Helsmoortel
+ */
+class NioPortScannerTest {
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(300);
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private final SessionEventManager eventManager = new SessionEventManager();
+    private final Set<Integer> openPorts = ConcurrentHashMap.newKeySet();
+
+    NioPortScannerTest() {
+        eventManager.registerHandler(TcpIpPortFoundEvent.class, event -> openPorts.add(event.getTcpIpPort()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable resource : resources.reversed()) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void reportsOpenPortsOnly() throws Exception {
+        int openPort = openPort();
+        int closedPort = closedPort();
+
+        NioPortScanner scanner = scanner(new int[]{openPort, closedPort}, 8);
+        long start = System.nanoTime();
+        scanner.scanAsync(LOOPBACK).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Set.of(openPort), openPorts);
+        // Both were answered, without waiting for the timeout
+        assertTrue(System.nanoTime() - start < CONNECT_TIMEOUT.toNanos());
+        assertEquals(0, scanner.getRateController().getTimeoutCount());
+    }
+
+    @Test
+    void reportsPortsWithoutAnswerAsTimedOut() throws Exception {
+        int silentPort = silentPort();
+
+        NioPortScanner scanner = scanner(new int[]{silentPort}, 8);
+        long start = System.nanoTime();
+        scanner.scanAsync(LOOPBACK).get(5, TimeUnit.SECONDS);
+
+        assertTrue(openPorts.isEmpty());
+        assertTrue(System.nanoTime() - start >= CONNECT_TIMEOUT.toNanos());
+        assertEquals(1, scanner.getRateController().getTimeoutCount());
+    }
+
+    @Test
+    void neverExceedsTheMaximumAmountOfConnectsInFlight() throws Exception {
+        int maxInFlight = 3;
+        int[] silentPorts = new int[8];
+        for (int i = 0; i < silentPorts.length; i++) {
+            silentPorts[i] = silentPort();
+        }
+
+        NioPortScanner scanner = scanner(silentPorts, maxInFlight);
+        CompletableFuture<Void> scan = scanner.scanAsync(LOOPBACK);
+        int maxObservedInFlight = 0;
+        while (!scan.isDone()) {
+            maxObservedInFlight = Math.max(maxObservedInFlight, scanner.getRateController().getInFlight());
+            Thread.sleep(1);
+        }
+        scan.get();
+
+        assertTrue(openPorts.isEmpty());
+        assertEquals(maxInFlight, maxObservedInFlight);
+        assertEquals(silentPorts.length, scanner.getRateController().getTimeoutCount());
+        assertEquals(0, scanner.getRateController().getInFlight());
+    }
+
+    @Test
+    void abortsQueuedScansOnClose() throws Exception {
+        NioPortScanner scanner = scanner(new int[]{silentPort(), silentPort(), silentPort()}, 1);
+        CompletableFuture<Void> scan = scanner.scanAsync(LOOPBACK);
+        scanner.close();
+
+        assertThrows(CancellationException.class, () -> scan.get(1, TimeUnit.SECONDS));
+        assertEquals(0, scanner.getRateController().getInFlight());
+        assertThrows(IllegalStateException.class, () -> scanner.scanAsync(LOOPBACK));
+    }
+
+    @Test
+    void completesEveryScanQueuedWhileClosing() throws Exception {
+        NioPortScanner scanner = scanner(new int[]{silentPort()}, 1);
+        Queue<CompletableFuture<Void>> scans = new ConcurrentLinkedQueue<>();
+        Thread scanning = Thread.startVirtualThread(() -> {
+            try {
+                while (true) {
+                    scans.add(scanner.scanAsync(LOOPBACK));
+                }
+            } catch (IllegalStateException e) {
+                // Closed
+            }
+        });
+        while (scans.isEmpty()) {
+            Thread.onSpinWait();
+        }
+
+        scanner.close();
+        scanning.join();
+
+        for (CompletableFuture<Void> scan : scans) {
+            assertThrows(CancellationException.class, () -> scan.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void parsesPortSets() {
+        assertArrayEquals(new int[]{22, 80, 8000, 8001, 8002}, NioPortScanner.parsePorts("80, 22,8000-8002,80"));
+        assertThrows(IllegalArgumentException.class, () -> NioPortScanner.parsePorts("0-10"));
+        assertThrows(IllegalArgumentException.class, () -> NioPortScanner.parsePorts("65536"));
+        assertThrows(IllegalArgumentException.class, () -> NioPortScanner.parsePorts("http"));
+    }
+
+    private NioPortScanner scanner(int[] ports, int maxInFlight) {
+        NioPortScanner scanner = new NioPortScanner(eventManager, ports, CONNECT_TIMEOUT, maxInFlight);
+        resources.add(scanner);
+
+        return scanner;
+    }
+
+    private int openPort() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 50, LOOPBACK);
+        resources.add(serverSocket);
+
+        return serverSocket.getLocalPort();
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, LOOPBACK)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    /**
+     * Opens a listener that never accepts and fills its backlog, after which its port drops new connects silently.
+     */
+    private int silentPort() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 1, LOOPBACK);
+        resources.add(serverSocket);
+        for (int i = 0; i < 16; i++) {
+            Socket socket = new Socket();
+            resources.add(socket);
+            try {
+                socket.connect(new InetSocketAddress(LOOPBACK, serverSocket.getLocalPort()), 100);
+            } catch (SocketTimeoutException e) {
+                return serverSocket.getLocalPort();
+            }
+        }
+        throw new IllegalStateException("Backlog of port " + serverSocket.getLocalPort() + " does not fill up.");
+    }
+}
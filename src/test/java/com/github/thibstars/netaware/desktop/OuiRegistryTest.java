@@ -0,0 +1,98 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class OuiRegistryTest {
+
+    @Test
+    void readsTheLargeAssignmentsOfAnIeeeRegistry() throws IOException {
+        OuiRegistry ouiRegistry = readFixture();
+
+        assertEquals(5, ouiRegistry.size());
+        assertEquals("Raspberry Pi Foundation", ouiRegistry.lookup("B8:27:EB:12:34:56"));
+        assertEquals("PCS Systemtechnik GmbH", ouiRegistry.lookup("080027000000"));
+        // Unquoted names end at their first comma
+        assertEquals("Google", ouiRegistry.lookup("3c-5a-b4-00-00-01"));
+    }
+
+    @Test
+    void unquotesQuotedNames() throws IOException {
+        OuiRegistry ouiRegistry = readFixture();
+
+        assertEquals("Cisco Systems, Inc", ouiRegistry.lookup("00:00:0c:00:00:01"));
+        assertEquals("Private \"Quoted\" Vendor", ouiRegistry.lookup("acde.4800.1122"));
+    }
+
+    @Test
+    void keepsTheFirstNameOfAPrefixListedTwice() throws IOException {
+        assertEquals("Cisco Systems, Inc", readFixture().lookup("00000C"));
+    }
+
+    @Test
+    void doesNotNameUnassignedOrMalformedAddresses() throws IOException {
+        OuiRegistry ouiRegistry = readFixture();
+
+        assertEquals("", ouiRegistry.lookup("02:00:00:00:00:01"));
+        assertEquals("", ouiRegistry.lookup("B8:27"));
+        assertEquals("", ouiRegistry.lookup("B8 27 EB 12 34 56"));
+        assertEquals("", ouiRegistry.lookup(""));
+    }
+
+    @Test
+    void readsWhatItWroteInCompactForm() throws IOException {
+        OuiRegistry ouiRegistry = readFixture();
+        StringWriter writer = new StringWriter();
+        ouiRegistry.writeCompact(writer);
+
+        assertEquals("""
+                00000C\tCisco Systems, Inc
+                080027\tPCS Systemtechnik GmbH
+                3C5AB4\tGoogle
+                ACDE48\tPrivate "Quoted" Vendor
+                B827EB\tRaspberry Pi Foundation
+                """, writer.toString());
+        OuiRegistry compactRegistry = OuiRegistry.readCompact(new StringReader(writer.toString()));
+        assertEquals(ouiRegistry.size(), compactRegistry.size());
+        assertEquals("Raspberry Pi Foundation", compactRegistry.lookup("B8:27:EB:12:34:56"));
+    }
+
+    @Test
+    void rejectsCompactRegistriesThatAreNotSorted() {
+        assertThrows(IOException.class, () -> OuiRegistry.readCompact(new StringReader("B827EB\tRaspberry Pi Foundation\n00000C\tCisco\n")));
+        assertThrows(IOException.class, () -> OuiRegistry.readCompact(new StringReader("00000C\tCisco\n00000C\tCisco\n")));
+        assertThrows(IOException.class, () -> OuiRegistry.readCompact(new StringReader("MA-L,00000C,Cisco\n")));
+    }
+
+    @Test
+    void bundlesARegistryInCompactForm() throws IOException {
+        try (InputStream resource = OuiRegistry.class.getClassLoader().getResourceAsStream(OuiRegistry.BUNDLED_RESOURCE);
+                Reader reader = new InputStreamReader(new GZIPInputStream(resource), StandardCharsets.UTF_8)) {
+            OuiRegistry ouiRegistry = OuiRegistry.readCompact(reader);
+
+            assertTrue(ouiRegistry.size() > 0);
+            assertEquals("Raspberry Pi Foundation", ouiRegistry.lookup("B8:27:EB:12:34:56"));
+        }
+    }
+
+    private static OuiRegistry readFixture() throws IOException {
+        try (InputStream fixture = OuiRegistryTest.class.getResourceAsStream("/oui/oui.csv");
+                Reader reader = new InputStreamReader(fixture, StandardCharsets.UTF_8)) {
+            return new OuiRegistry(reader);
+        }
+    }
+}
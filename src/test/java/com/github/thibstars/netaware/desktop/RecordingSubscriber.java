@@ -0,0 +1,54 @@
+package com.github.thibstars.netaware.desktop;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber keeping every update it receives, completing its future once the publisher is done.
+ *
+ * @author Thibault Helsmoortel
+ */
+class RecordingSubscriber implements Flow.Subscriber<DiscoveryUpdate> {
+
+    private final List<DiscoveryUpdate> updates = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<List<DiscoveryUpdate>> completion = new CompletableFuture<>();
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(DiscoveryUpdate item) {
+        updates.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        completion.complete(updates);
+    }
+
+    /**
+     * @return a future completing with every update received, once the publisher has completed
+     */
+    CompletableFuture<List<DiscoveryUpdate>> completion() {
+        return completion;
+    }
+
+    /**
+     * @return the addresses of the devices found so far, in order
+     */
+    List<String> getFoundAddresses() {
+        return updates.stream()
+                .filter(DeviceUpdate.DeviceFound.class::isInstance)
+                .map(update -> ((DeviceUpdate.DeviceFound) update).ipAddress())
+                .toList();
+    }
+}
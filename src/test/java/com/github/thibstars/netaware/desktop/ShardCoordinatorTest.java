@@ -0,0 +1,116 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class ShardCoordinatorTest {
+
+    private static final Duration WORKER_TIMEOUT = ShardWorker.HEARTBEAT_INTERVAL.multipliedBy(2);
+
+    private final TargetPlanner targetPlanner = new TargetPlanner(
+            false, false, List.of(Cidr.parse("10.1.0.0/24"), Cidr.parse("10.2.0.0/24"), Cidr.parse("10.3.0.0/24")), List.of()
+    );
+    private final List<LocalDeviceService> workerServices = new ArrayList<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private ShardCoordinator coordinator;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        coordinator.close();
+        for (Thread workerThread : workerThreads) {
+            workerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        workerServices.forEach(LocalDeviceService::close);
+    }
+
+    @Test
+    void mergesTheResultsOfTwoWorkersIntoASingleDiscovery() throws Exception {
+        coordinator = new ShardCoordinator(targetPlanner, 1, WORKER_TIMEOUT, loopback());
+        startWorker();
+        startWorker();
+        awaitWorkers(2);
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Discovery discovery = coordinator.discoverAsync(subscriber);
+        List<DiscoveryUpdate> updates = subscriber.completion().get(20, TimeUnit.SECONDS);
+
+        Set<String> expectedAddresses = IntStream.range(1, 5).boxed()
+                .flatMap(host -> Set.of("10.1.0." + host, "10.2.0." + host, "10.3.0." + host).stream())
+                .collect(Collectors.toSet());
+        List<String> foundAddresses = subscriber.getFoundAddresses();
+        assertEquals(expectedAddresses, new HashSet<>(foundAddresses));
+        assertEquals(expectedAddresses.size(), foundAddresses.size(), "Devices are published once");
+        assertEquals(expectedAddresses.size() * 2L, updates.stream().filter(DeviceUpdate.PortFound.class::isInstance).count());
+        assertEquals(new DiscoveryProgress(3, 3), updates.stream()
+                .filter(DiscoveryProgress.class::isInstance)
+                .reduce((first, second) -> second)
+                .orElseThrow());
+
+        ScanMetrics metrics = discovery.getMetrics();
+        assertEquals(expectedAddresses.size(), metrics.getHostsFound());
+        assertEquals(expectedAddresses.size() * 2L, metrics.getPortsFound());
+        assertEquals(3, metrics.getLatencies(ScanStage.SHARD).getCount());
+        assertEquals(0, metrics.getTimeouts(ScanStage.SHARD));
+    }
+
+    @Test
+    void failsOnceNoWorkerIsConnectedForTheWorkerTimeout() throws Exception {
+        coordinator = new ShardCoordinator(targetPlanner, 1, WORKER_TIMEOUT, loopback());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Discovery discovery = coordinator.discoverAsync(subscriber);
+
+        ExecutionException exception = assertThrows(
+                ExecutionException.class, () -> discovery.completion().get(WORKER_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS)
+        );
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertThrows(ExecutionException.class, () -> subscriber.completion().get(5, TimeUnit.SECONDS));
+    }
+
+    private void startWorker() {
+        LocalDeviceService workerService = new LocalDeviceService(
+                new ScanScheduler(), new TargetPlanner(), new StubProbeFactory(Set.copyOf(IntStream.range(1, 5).boxed()
+                .flatMap(host -> Set.of("10.1.0." + host, "10.2.0." + host, "10.3.0." + host).stream())
+                .toList()), List.of(22, 80))
+        );
+        workerServices.add(workerService);
+        workerThreads.add(Thread.ofVirtual().start(() -> {
+            try {
+                new ShardWorker(workerService).run(InetAddress.getLoopbackAddress().getHostAddress(), coordinator.getPort());
+            } catch (IOException e) {
+                // Disconnected once the coordinator is closed
+            }
+        }));
+    }
+
+    private void awaitWorkers(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coordinator.getWorkerCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, coordinator.getWorkerCount());
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.thibstars.netaware.desktop;
+
+import com.github.thibstars.netaware.events.IpAddressFoundEvent;
+import com.github.thibstars.netaware.events.MacFoundEvent;
+import com.github.thibstars.netaware.events.TcpIpPortFoundEvent;
+import com.github.thibstars.netaware.events.core.EventManager;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Probe factory finding a fixed set of devices, each with the same open ports, without touching the network.
+ * Remembers the event managers it hands out probes for, so tests can check how sessions clean up after themselves,
+ * and the blocks it swept.
+ *
+ * @author Thibault Helsmoortel
+ */
+class StubProbeFactory implements ProbeFactory {
+
+    private final Set<String> deviceAddresses;
+    private final List<Integer> openPorts;
+    private final List<EventManager> eventManagers = new CopyOnWriteArrayList<>();
+    private final List<IpBlock> sweptBlocks = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param deviceAddresses the addresses of the devices that answer the sweep
+     * @param openPorts       the ports open on every device
+     */
+    StubProbeFactory(Set<String> deviceAddresses, List<Integer> openPorts) {
+        this.deviceAddresses = deviceAddresses;
+        this.openPorts = openPorts;
+    }
+
+    /**
+     * @return the event managers of every session the probes were created for, in order
+     */
+    List<EventManager> getEventManagers() {
+        return eventManagers;
+    }
+
+    /**
+     * @return every block swept by the probes, in the order the sweeps started
+     */
+    List<IpBlock> getSweptBlocks() {
+        return sweptBlocks;
+    }
+
+    @Override
+    public Probe<IpBlock> ipProbe(EventManager eventManager) {
+        eventManagers.add(eventManager);
+        Object source = new Object();
+        return new Probe<>(source, block -> {
+            sweptBlocks.add(block);
+            for (int address = block.startAddress(); address != block.endAddress(); address++) {
+                if (deviceAddresses.contains(Ipv4Addresses.format(address))) {
+                    eventManager.dispatchEvent(new IpAddressFoundEvent(source, Ipv4Addresses.toInetAddress(address)));
+                }
+            }
+        });
+    }
+
+    @Override
+    public Probe<InetAddress> portProbe(EventManager eventManager) {
+        Object source = new Object();
+        return new Probe<>(source, ipAddress -> {
+            for (int port : openPorts) {
+                eventManager.dispatchEvent(new TcpIpPortFoundEvent(source, ipAddress, port));
+            }
+        });
+    }
+
+    @Override
+    public Probe<InetAddress> macProbe(EventManager eventManager) {
+        Object source = new Object();
+        return new Probe<>(source, ipAddress -> {
+            byte[] address = ipAddress.getAddress();
+            eventManager.dispatchEvent(new MacFoundEvent(source, ipAddress,
+                    String.format("02:00:%02x:%02x:%02x:%02x", address[0], address[1], address[2], address[3])));
+        });
+    }
+
+    @Override
+    public Function<InetAddress, String> hostnameLookup() {
+        // No hostnames, without asking a DNS server
+        return InetAddress::getHostAddress;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.thibstars.netaware.desktop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Thibault Helsmoortel
+ */
+class TargetPlannerTest {
+
+    private static final List<Cidr> LOCAL_NETWORKS = List.of(Cidr.parse("192.168.1.0/24"), Cidr.parse("10.8.0.0/16"));
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("netaware.scan.gateways");
+        System.clearProperty("netaware.scan.routeTable");
+    }
+
+    @Test
+    void parsesTheDistinctGatewaysOfARoutingTable() throws Exception {
+        List<Integer> gateways = TargetPlanner.parseRouteTable(Files.readAllLines(fixture(), StandardCharsets.US_ASCII));
+
+        assertEquals(List.of(nativeAddress("192.168.1.1"), nativeAddress("10.0.0.1")), gateways);
+    }
+
+    @Test
+    void prefersTheConfiguredGateways() throws Exception {
+        System.setProperty("netaware.scan.gateways", "192.168.1.254, 10.8.0.254");
+        System.setProperty("netaware.scan.routeTable", fixture().toString());
+
+        assertEquals(
+                List.of(Ipv4Addresses.parse("192.168.1.254"), Ipv4Addresses.parse("10.8.0.254")),
+                TargetPlanner.gatewayAddresses(LOCAL_NETWORKS)
+        );
+    }
+
+    @Test
+    void readsTheGatewaysFromTheRoutingTable() throws Exception {
+        System.setProperty("netaware.scan.routeTable", fixture().toString());
+
+        assertEquals(List.of(nativeAddress("192.168.1.1"), nativeAddress("10.0.0.1")), TargetPlanner.gatewayAddresses(LOCAL_NETWORKS));
+    }
+
+    @Test
+    void takesTheFirstHostOfEveryLocalNetworkWithoutRoutingTable(@TempDir Path directory) throws IOException {
+        Path routeTable = directory.resolve("route");
+        Files.writeString(routeTable, "Iface\tDestination\tGateway \tFlags\n");
+        System.setProperty("netaware.scan.routeTable", routeTable.toString());
+
+        assertEquals(
+                List.of(Ipv4Addresses.parse("192.168.1.1"), Ipv4Addresses.parse("10.8.0.1")),
+                TargetPlanner.gatewayAddresses(LOCAL_NETWORKS)
+        );
+    }
+
+    /**
+     * @return the address the fixture, written on a little-endian host, holds on this host
+     */
+    private static int nativeAddress(String address) {
+        int parsedAddress = Ipv4Addresses.parse(address);
+
+        return ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? parsedAddress : Integer.reverseBytes(parsedAddress);
+    }
+
+    private static Path fixture() throws URISyntaxException {
+        return Path.of(TargetPlannerTest.class.getResource("/routes/proc-net-route.txt").toURI());
+    }
+}